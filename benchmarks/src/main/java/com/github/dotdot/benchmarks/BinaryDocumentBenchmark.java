@@ -0,0 +1,95 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.DotDot;
+import com.github.dotdot.JsonPathExtractor;
+import com.github.dotdot.binary.BinaryDocument;
+import com.github.dotdot.binary.BinaryWriter;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading five fields of a large stored document: parsing its JSON with Gson and calling
+ * DotDot.get, extracting them from the JSON bytes, and resolving them in place from the
+ * binary format, on a heap and on a direct buffer. Opening a binary document decodes its key dictionary,
+ * which is measured separately from the reads. Writing the binary format is measured too.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BinaryDocumentBenchmark {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Param({"1000", "10000"})
+    public int keys;
+
+    private Map<String, Object> doc;
+    private byte[] json;
+    private byte[] binary;
+    private ByteBuffer direct;
+    private BinaryDocument opened;
+    private List<String> paths;
+    private JsonPathExtractor extractor;
+    private Gson gson;
+
+    @Setup
+    public void setup() {
+        gson = new Gson();
+        doc = Documents.build("LinkedHashMap", keys, 4);
+        json = gson.toJson(doc).getBytes(UTF_8);
+        binary = BinaryWriter.write(doc);
+        direct = ByteBuffer.allocateDirect(binary.length);
+        direct.put(binary).flip();
+        opened = BinaryDocument.of(direct);
+        paths = Arrays.asList(
+                Documents.leafPath(0, 4),
+                Documents.leafPath(keys / 4, 4),
+                Documents.leafPath(keys / 2, 4),
+                Documents.leafPath(keys - 2, 4),
+                Documents.leafPath(keys + 1, 4));
+        extractor = JsonPathExtractor.compile(paths);
+    }
+
+    private Object[] read(Map<String, Object> map) {
+        Object[] values = new Object[paths.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = DotDot.get(paths.get(i), map);
+        }
+        return values;
+    }
+
+    @Benchmark
+    public Object[] gsonThenGet() {
+        return read(gson.fromJson(new String(json, UTF_8), Map.class));
+    }
+
+    @Benchmark
+    public Object[] extractJson() {
+        return extractor.extract(json);
+    }
+
+    @Benchmark
+    public Object[] openThenGet() {
+        return read(BinaryDocument.of(binary));
+    }
+
+    @Benchmark
+    public Object[] getOpenedDirect() {
+        return read(opened);
+    }
+
+    @Benchmark
+    public byte[] write() {
+        return BinaryWriter.write(doc);
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.DotDot;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of bulk operations over a batch of documents from one thread to many.
+ * `sequential` is the one document at a time loop that the bulk API replaces.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"10000"})
+    public int documents;
+
+    private ForkJoinPool pool;
+    private List<Map<String, Object>> batch;
+    private List<String> paths;
+
+    @Setup
+    public void setup() {
+        pool = new ForkJoinPool(threads);
+        batch = new ArrayList<Map<String, Object>>(documents);
+        for (int i = 0; i < documents; i++) {
+            batch.add(Documents.build("HashMap", 50, 4));
+        }
+        paths = Arrays.asList(Documents.leafPath(3, 4), Documents.leafPath(17, 4),
+                Documents.leafPath(28, 4), Documents.leafPath(45, 4));
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<Object[]> extract() {
+        return DotDot.bulk(batch).executor(pool).extract(paths);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> copyInclude() {
+        return DotDot.bulk(batch).executor(pool).copyInclude(paths);
+    }
+
+    @Benchmark
+    public boolean[] validate() {
+        return DotDot.bulk(batch).executor(pool).validate(paths);
+    }
+
+    @Benchmark
+    public List<Object[]> sequential() {
+        List<Object[]> result = new ArrayList<Object[]>(batch.size());
+        for (Map<String, Object> document : batch) {
+            Object[] values = new Object[paths.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = DotDot.get(paths.get(i), document);
+            }
+            result.add(values);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,60 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.CachedDocument;
+import com.github.dotdot.DotDot;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same dozen paths read over and over from a large document, walking a nested HashMap
+ * compared with a CachedDocument. Every other path is a miss, which is cached too.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CachedDocumentBenchmark {
+
+    private static final int HOT_PATHS = 12;
+
+    @Param({"10000"})
+    public int keys;
+
+    @Param({"4", "8"})
+    public int depth;
+
+    private Map<String, Object> nested;
+    private CachedDocument cached;
+    private String[] paths;
+    private int next;
+
+    @Setup
+    public void setup() {
+        nested = Documents.build("HashMap", keys, depth);
+        cached = CachedDocument.of(nested);
+        paths = new String[HOT_PATHS];
+        for (int i = 0; i < HOT_PATHS; i++) {
+            paths[i] = Documents.leafPath(i % 2 == 0 ? i * (keys / HOT_PATHS) : keys + i, depth);
+        }
+    }
+
+    private String nextPath() {
+        String path = paths[next];
+        next = next == HOT_PATHS - 1 ? 0 : next + 1;
+        return path;
+    }
+
+    @Benchmark
+    public Object nested() {
+        return DotDot.get(nextPath(), nested);
+    }
+
+    @Benchmark
+    public Object cached() {
+        return DotDot.get(nextPath(), cached);
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.CompactMap;
+import com.github.dotdot.DotDot;
+import com.github.dotdot.DotPath;
+import com.github.dotdot.KeyPool;
+import com.github.dotdot.MapFactory;
+import com.github.dotdot.converters.StringConverter;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures with JOL the retained size of many small documents built with DotDot.put,
+ * with HashMaps, with CompactMaps and with CompactMaps that share a KeyPool.
+ * Every document gets its own key strings, like documents parsed from JSON.
+ * <pre>
+ *     java -cp benchmarks/target/benchmarks.jar com.github.dotdot.benchmarks.CompactMapFootprint 100000
+ * </pre>
+ */
+public class CompactMapFootprint {
+
+    public static void main(String[] args) {
+        int documents = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+        report("HashMap", documents, MapFactory.HASH_MAP);
+        report("CompactMap", documents, CompactMap.factory(null));
+        report("CompactMap+KeyPool", documents, CompactMap.factory(KeyPool.create(KeyPool.DEFAULT_CAPACITY)));
+    }
+
+    private static void report(String name, int documents, MapFactory factory) {
+        List<Map<String, Object>> built = new ArrayList<Map<String, Object>>(documents);
+        for (int i = 0; i < documents; i++) {
+            built.add(document(i, factory));
+        }
+
+        // the values are the same in every variant, so the difference is the maps and their keys
+        long total = GraphLayout.parseInstance(built).totalSize();
+        System.out.printf("%-20s %,14d bytes %,8d bytes/document%n", name, total, total / documents);
+    }
+
+    private static Map<String, Object> document(int i, MapFactory factory) {
+        Map<String, Object> document = factory.create(0);
+        DotDot.put(key("id"), i, document, factory);
+        DotDot.put(key("user.name"), "user" + i, document, factory);
+        DotDot.put(key("user.email"), "user" + i + "@example.com", document, factory);
+        DotDot.put(key("user.address.city"), "city" + i % 100, document, factory);
+        DotDot.put(key("user.address.zip"), i % 100000, document, factory);
+        DotDot.put(key("order.total"), i * 1.5, document, factory);
+        DotDot.put(key("order.currency"), "EUR", document, factory);
+        DotDot.put(key("order.items"), i % 7, document, factory);
+        return document;
+    }
+
+    private static DotPath<String> key(String path) {
+        // compiled again for every document, so its keys are new strings like the keys of parsed JSON
+        return DotPath.compile(path, StringConverter.INSTANCE);
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.DotDot;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many threads writing into one shared document: DotDot.put on a HashMap behind a global lock,
+ * compared with putConcurrent and incrementAtPath on a ConcurrentHashMap tree.
+ * Every thread writes its own leaves below shared levels, counters are either
+ * one hot path for all threads or one path per thread.
+ * Run it with -t to change the number of threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ConcurrentPutBenchmark {
+
+    private final Object lock = new Object();
+    private Map<String, Object> locked;
+    private ConcurrentMap<String, Object> concurrent;
+
+    @State(Scope.Thread)
+    public static class ThreadPaths {
+        String[] leaves;
+        String counter;
+        int next;
+
+        @Setup
+        public void setup() {
+            String thread = "t" + Thread.currentThread().getId();
+            leaves = new String[1024];
+            for (int i = 0; i < leaves.length; i++) {
+                leaves[i] = "region" + (i % 8) + ".host" + (i % 64) + "." + thread + "_" + i;
+            }
+            counter = "stats." + thread + ".hits";
+        }
+
+        String nextLeaf() {
+            return leaves[next++ & (leaves.length - 1)];
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        locked = new HashMap<String, Object>();
+        concurrent = new ConcurrentHashMap<String, Object>();
+    }
+
+    @Benchmark
+    public void lockedPut(ThreadPaths paths) {
+        synchronized (lock) {
+            DotDot.put(paths.nextLeaf(), 1, locked);
+        }
+    }
+
+    @Benchmark
+    public void putConcurrent(ThreadPaths paths) {
+        DotDot.putConcurrent(paths.nextLeaf(), 1, concurrent);
+    }
+
+    @Benchmark
+    public void lockedSharedCounter() {
+        synchronized (lock) {
+            Long hits = DotDot.getLong("stats.all.hits", locked, 0L);
+            DotDot.put("stats.all.hits", hits + 1, locked);
+        }
+    }
+
+    @Benchmark
+    public long incrementSharedCounter() {
+        return DotDot.incrementAtPath("stats.all.hits", 1, concurrent);
+    }
+
+    @Benchmark
+    public long incrementOwnCounter(ThreadPaths paths) {
+        return DotDot.incrementAtPath(paths.counter, 1, concurrent);
+    }
+}
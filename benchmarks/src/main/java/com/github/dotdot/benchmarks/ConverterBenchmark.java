@@ -0,0 +1,85 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.DotDot;
+import com.github.dotdot.DotPath;
+import com.github.dotdot.converters.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of every built-in converter, both when compiling a path and when
+ * looking up a String path on a map keyed by the converted type
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConverterBenchmark {
+
+    private static final String PATH = "1.1.1";
+
+    @Param({"String", "Int", "Long", "Short", "Byte", "Float", "Double", "Boolean", "Character"})
+    public String converterType;
+
+    private Converter<Object> converter;
+    private Map<Object, Object> doc;
+
+    @Setup
+    public void setup() {
+        converter = converter(converterType);
+
+        Object key = converter.convert("1");
+        Map<Object, Object> level2 = new HashMap<Object, Object>();
+        level2.put(key, 42);
+        Map<Object, Object> level1 = new HashMap<Object, Object>();
+        level1.put(key, level2);
+        doc = new HashMap<Object, Object>();
+        doc.put(key, level1);
+    }
+
+    @Benchmark
+    public Object convert() {
+        return converter.convert("1");
+    }
+
+    @Benchmark
+    public DotPath<Object> compile() {
+        return DotPath.compile(PATH, converter);
+    }
+
+    @Benchmark
+    public Object get() {
+        return DotDot.get(PATH, doc, converter);
+    }
+
+    static Converter<Object> converter(String type) {
+        Converter<?> converter;
+        if ("String".equals(type)) {
+            converter = StringConverter.INSTANCE;
+        } else if ("Int".equals(type)) {
+            converter = IntConverter.INSTANCE;
+        } else if ("Long".equals(type)) {
+            converter = LongConverter.INSTANCE;
+        } else if ("Short".equals(type)) {
+            converter = ShortConverter.INSTANCE;
+        } else if ("Byte".equals(type)) {
+            converter = ByteConverter.INSTANCE;
+        } else if ("Float".equals(type)) {
+            converter = FloatConverter.INSTANCE;
+        } else if ("Double".equals(type)) {
+            converter = DoubleConverter.INSTANCE;
+        } else if ("Boolean".equals(type)) {
+            converter = BooleanConverter.INSTANCE;
+        } else if ("Character".equals(type)) {
+            converter = CharacterConverter.INSTANCE;
+        } else {
+            throw new IllegalArgumentException("Unknown converter: " + type);
+        }
+        return (Converter<Object>) converter;
+    }
+}
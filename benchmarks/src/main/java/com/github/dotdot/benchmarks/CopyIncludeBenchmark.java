@@ -0,0 +1,79 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.DotDot;
+import com.github.dotdot.DotPathSet;
+import com.github.dotdot.converters.StringConverter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Projection and extraction of a handful of paths out of small and large documents
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CopyIncludeBenchmark {
+
+    @Param({"HashMap", "TreeMap", "LinkedHashMap"})
+    public String mapType;
+
+    @Param({"10", "10000"})
+    public int keys;
+
+    @Param({"1", "8"})
+    public int depth;
+
+    @Param({"5", "30"})
+    public int includes;
+
+    private Map<String, Object> doc;
+    private List<String> paths;
+    private Set<String> pathSet;
+    private DotPathSet<String> compiled;
+    private Object[] values;
+
+    @Setup
+    public void setup() {
+        doc = Documents.build(mapType, keys, depth);
+        paths = new ArrayList<String>(includes);
+        for (int i = 0; i < includes; i++) {
+            paths.add(Documents.leafPath((int) ((long) i * keys / includes), depth));
+        }
+        pathSet = new HashSet<String>(paths);
+        compiled = DotPathSet.compile(paths, StringConverter.INSTANCE);
+        values = new Object[includes];
+    }
+
+    @Benchmark
+    public Map<String, Object> copyInclude() {
+        return DotDot.copyInclude(doc, paths);
+    }
+
+    @Benchmark
+    public Object[] getEachPath() {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = DotDot.get(paths.get(i), doc);
+        }
+        return values;
+    }
+
+    @Benchmark
+    public Object[] extractPathSet() {
+        compiled.extract(doc, values);
+        return values;
+    }
+
+    @Benchmark
+    public boolean ensureHaveValue() {
+        return DotDot.ensureHaveValue(pathSet, doc, StringConverter.INSTANCE);
+    }
+}
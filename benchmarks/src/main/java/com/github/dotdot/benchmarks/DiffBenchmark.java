@@ -0,0 +1,74 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.DotDot;
+import com.github.dotdot.MergePolicy;
+import com.github.dotdot.PatchOperation;
+import com.github.dotdot.converters.StringConverter;
+import com.github.dotdot.persistent.PersistentMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shipping a new version of a document with a few changed leaves. The versions are PersistentMaps,
+ * so they share their unchanged subtrees like versions built by copy on write usually do.
+ * diff and applyPatch (forth and back, so the receiver stays the same) are compared with
+ * merging the whole new version into the receiver's copy.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DiffBenchmark {
+
+    @Param({"10000"})
+    public int keys;
+
+    @Param({"4"})
+    public int depth;
+
+    @Param({"1", "10", "100"})
+    public int changes;
+
+    private Map<String, Object> oldVersion;
+    private Map<String, Object> newVersion;
+    private Map<String, Object> receiver;
+    private List<PatchOperation<String>> forward;
+    private List<PatchOperation<String>> backward;
+
+    @Setup
+    public void setup() {
+        Map<String, Object> doc = Documents.build("HashMap", keys, depth);
+        PersistentMap<String, Object> version = PersistentMap.of(doc);
+        oldVersion = version;
+        for (int i = 0; i < changes; i++) {
+            version = version.putIn(Documents.leafPath(i * (keys / changes), depth), "changed", StringConverter.INSTANCE);
+        }
+        newVersion = version;
+
+        receiver = Documents.build("HashMap", keys, depth);
+        forward = DotDot.diff(oldVersion, newVersion);
+        backward = DotDot.diff(newVersion, oldVersion);
+    }
+
+    @Benchmark
+    public List<PatchOperation<String>> diff() {
+        return DotDot.diff(oldVersion, newVersion);
+    }
+
+    @Benchmark
+    public Map<String, Object> applyPatch() {
+        DotDot.applyPatch(forward, receiver);
+        DotDot.applyPatch(backward, receiver);
+        return receiver;
+    }
+
+    @Benchmark
+    public Map<String, Object> mergeWholeVersion() {
+        return DotDot.mergeNestedMaps(receiver, newVersion, MergePolicy.LAST_WINS, true);
+    }
+}
@@ -0,0 +1,73 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.CompactMap;
+import com.github.dotdot.DotDot;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Builds the nested documents used by the benchmarks
+ */
+public final class Documents {
+
+    private Documents() {
+    }
+
+    public static Map<String, Object> newMap(String mapType) {
+        if ("HashMap".equals(mapType)) {
+            return new HashMap<String, Object>();
+        }
+        if ("TreeMap".equals(mapType)) {
+            return new TreeMap<String, Object>();
+        }
+        if ("LinkedHashMap".equals(mapType)) {
+            return new LinkedHashMap<String, Object>();
+        }
+        if ("CompactMap".equals(mapType)) {
+            return new CompactMap<String, Object>();
+        }
+        throw new IllegalArgumentException("Unknown map type: " + mapType);
+    }
+
+    /**
+     * Path of the leaf number `index` in a document built by {@link #build(String, int, int)}.
+     * Every level above the leaves has a fan-out of 10.
+     */
+    public static String leafPath(int index, int depth) {
+        StringBuilder sb = new StringBuilder();
+        int rest = index;
+        for (int level = 0; level < depth - 1; level++) {
+            sb.append("level").append(level).append('_').append(rest % 10).append('.');
+            rest /= 10;
+        }
+        sb.append("leaf").append(index);
+        return sb.toString();
+    }
+
+    /**
+     * Creates a document with `leaves` leaf values, all of them `depth` levels deep
+     */
+    public static Map<String, Object> build(String mapType, int leaves, int depth) {
+        Map<String, Object> doc = newMap(mapType);
+        for (int i = 0; i < leaves; i++) {
+            DotDot.put(leafPath(i, depth), leafValue(i), doc);
+        }
+        return doc;
+    }
+
+    public static Object leafValue(int index) {
+        switch (index % 4) {
+            case 0:
+                return index;
+            case 1:
+                return "value" + index;
+            case 2:
+                return (double) index;
+            default:
+                return (long) index;
+        }
+    }
+}
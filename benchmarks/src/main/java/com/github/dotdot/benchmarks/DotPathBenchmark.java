@@ -0,0 +1,95 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.DotDot;
+import com.github.dotdot.DotPath;
+import com.github.dotdot.converters.Converter;
+import com.github.dotdot.converters.StringConverter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares string paths parsed on every call (the pre-DotPath implementation),
+ * string paths resolved through the DotPath cache and precompiled paths.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DotPathBenchmark {
+
+    @Param({"a", "a.b.c", "a.b.c.d.e.f.g.h"})
+    public String path;
+
+    private Map<String, Object> doc;
+    private DotPath<String> compiled;
+
+    @Setup
+    public void setup() {
+        doc = new HashMap<String, Object>();
+        DotDot.put(path, 42, doc);
+        compiled = DotPath.compile(path, StringConverter.INSTANCE);
+    }
+
+    @Benchmark
+    public Object legacyStringPath() {
+        return legacyGet(path, doc, new StringConverter());
+    }
+
+    @Benchmark
+    public Object cachedStringPath() {
+        return DotDot.get(path, doc);
+    }
+
+    @Benchmark
+    public Object compiledPath() {
+        return DotDot.get(compiled, doc);
+    }
+
+    @Benchmark
+    public Object legacyGetInt() {
+        Number number = (Number) legacyGet(path, doc, new StringConverter());
+        return number != null ? number.intValue() : null;
+    }
+
+    @Benchmark
+    public Object compiledGetInt() {
+        return DotDot.getInt(compiled, doc);
+    }
+
+    /**
+     * The implementation of DotDot.get before paths were compiled, kept as the baseline
+     */
+    static <K,V> V legacyGet(String path, Map<K,V> map, Converter<K> converter) {
+        if (map == null) {
+            return null;
+        }
+
+        String[] keys = path.split("\\.");
+        Map<K,V> subMap = map;
+
+        for (int i = 0; i < keys.length; i++) {
+            V value = subMap.get(converter.convert(keys[i]));
+
+            if (i == keys.length-1) {
+                return value;
+            }
+
+            if (value == null) {
+                return null;
+            }
+
+            if (value instanceof Map){
+                subMap = (Map<K,V>)value;
+            } else {
+                throw new IllegalStateException("Cannot move deeper");
+            }
+        }
+
+        return null;
+    }
+}
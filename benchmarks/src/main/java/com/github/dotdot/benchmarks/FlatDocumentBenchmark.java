@@ -0,0 +1,64 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.DotDot;
+import com.github.dotdot.FlatDocument;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups on a nested HashMap compared with the same document flattened into a FlatDocument
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FlatDocumentBenchmark {
+
+    @Param({"10", "10000"})
+    public int keys;
+
+    @Param({"1", "4", "8"})
+    public int depth;
+
+    private Map<String, Object> nested;
+    private FlatDocument flat;
+    private String hitPath;
+    private String missPath;
+
+    @Setup
+    public void setup() {
+        nested = Documents.build("HashMap", keys, depth);
+        flat = FlatDocument.of(nested);
+        hitPath = Documents.leafPath(keys / 2, depth);
+        missPath = Documents.leafPath(keys + 1, depth);
+    }
+
+    @Benchmark
+    public Object nestedHit() {
+        return DotDot.get(hitPath, nested);
+    }
+
+    @Benchmark
+    public Object flatHit() {
+        return DotDot.get(hitPath, flat);
+    }
+
+    @Benchmark
+    public Object nestedMiss() {
+        return DotDot.get(missPath, nested);
+    }
+
+    @Benchmark
+    public Object flatMiss() {
+        return DotDot.get(missPath, flat);
+    }
+
+    @Benchmark
+    public FlatDocument build() {
+        return FlatDocument.of(nested);
+    }
+}
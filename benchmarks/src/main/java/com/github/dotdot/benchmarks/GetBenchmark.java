@@ -0,0 +1,54 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.DotDot;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups of present and missing paths on shallow and deep, small and large documents
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GetBenchmark {
+
+    @Param({"HashMap", "TreeMap", "LinkedHashMap", "CompactMap"})
+    public String mapType;
+
+    @Param({"10", "10000"})
+    public int keys;
+
+    @Param({"1", "8"})
+    public int depth;
+
+    private Map<String, Object> doc;
+    private String hitPath;
+    private String missPath;
+
+    @Setup
+    public void setup() {
+        doc = Documents.build(mapType, keys, depth);
+        hitPath = Documents.leafPath(keys / 2, depth);
+        missPath = Documents.leafPath(keys + 1, depth);
+    }
+
+    @Benchmark
+    public Object getHit() {
+        return DotDot.get(hitPath, doc);
+    }
+
+    @Benchmark
+    public Object getMiss() {
+        return DotDot.get(missPath, doc);
+    }
+
+    @Benchmark
+    public boolean ensureHaveValue() {
+        return DotDot.ensureHaveValue(hitPath, doc);
+    }
+}
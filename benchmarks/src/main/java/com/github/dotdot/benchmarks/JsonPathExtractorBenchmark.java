@@ -0,0 +1,72 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.DotDot;
+import com.github.dotdot.JsonPathExtractor;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading five fields of a large JSON response: parsing it into a Map with Gson and calling
+ * DotDot.get, like the README does, compared with extracting the fields from the bytes.
+ * The fields are spread over the document, one of them is near its end.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonPathExtractorBenchmark {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Param({"1000", "10000"})
+    public int keys;
+
+    private byte[] json;
+    private List<String> paths;
+    private JsonPathExtractor extractor;
+    private Gson gson;
+
+    @Setup
+    public void setup() {
+        gson = new Gson();
+        Map<String, Object> doc = Documents.build("LinkedHashMap", keys, 4);
+        json = gson.toJson(doc).getBytes(UTF_8);
+        paths = Arrays.asList(
+                Documents.leafPath(0, 4),
+                Documents.leafPath(keys / 4, 4),
+                Documents.leafPath(keys / 2, 4),
+                Documents.leafPath(keys - 2, 4),
+                Documents.leafPath(keys + 1, 4));
+        extractor = JsonPathExtractor.compile(paths);
+    }
+
+    @Benchmark
+    public Object[] gsonThenGet() {
+        Map<String, Object> doc = gson.fromJson(new String(json, UTF_8), Map.class);
+        Object[] values = new Object[paths.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = DotDot.get(paths.get(i), doc);
+        }
+        return values;
+    }
+
+    @Benchmark
+    public Object[] extractBytes() {
+        return extractor.extract(json);
+    }
+
+    @Benchmark
+    public Object[] extractStream() throws IOException {
+        return extractor.extract(new ByteArrayInputStream(json));
+    }
+}
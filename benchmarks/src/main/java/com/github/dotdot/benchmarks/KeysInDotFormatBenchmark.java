@@ -0,0 +1,65 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.DotDot;
+import com.github.dotdot.LeafVisitor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flattening documents into their leaf paths
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeysInDotFormatBenchmark {
+
+    @Param({"HashMap", "TreeMap", "LinkedHashMap"})
+    public String mapType;
+
+    @Param({"10", "10000"})
+    public int keys;
+
+    @Param({"1", "8"})
+    public int depth;
+
+    private Map<String, Object> doc;
+
+    @Setup
+    public void setup() {
+        doc = Documents.build(mapType, keys, depth);
+    }
+
+    @Benchmark
+    public Set<String> getKeysInDotFormat() {
+        return DotDot.getKeysInDotFormat(doc);
+    }
+
+    @Benchmark
+    public long streamKeysInDotFormat() {
+        return DotDot.streamKeysInDotFormat(doc).count();
+    }
+
+    @Benchmark
+    public Object streamFirstKey() {
+        return DotDot.streamKeysInDotFormat(doc).findFirst().orElse(null);
+    }
+
+    @Benchmark
+    public int walkLeaves() {
+        final int[] depth = new int[1];
+        DotDot.walkLeaves(doc, new LeafVisitor<String>() {
+            public boolean visit(List<String> path, Object value) {
+                depth[0] += path.size();
+                return true;
+            }
+        });
+        return depth[0];
+    }
+}
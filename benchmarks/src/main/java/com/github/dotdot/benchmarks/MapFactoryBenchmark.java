@@ -0,0 +1,49 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.MapFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creating a new level for a map, with reflection and a HashMap fallback (the pre-MapFactory
+ * implementation) and with MapFactory. An unmodifiable map has no no-arg constructor,
+ * so reflection goes through the exception path every time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MapFactoryBenchmark {
+
+    @Param({"HashMap", "TreeMap", "LinkedHashMap", "Unmodifiable"})
+    public String mapType;
+
+    private Map<String, Object> map;
+
+    @Setup
+    public void setup() {
+        map = "Unmodifiable".equals(mapType)
+                ? Collections.unmodifiableMap(new HashMap<String, Object>())
+                : Documents.newMap(mapType);
+    }
+
+    @Benchmark
+    public Map<String, Object> legacyNewInstance() {
+        try {
+            return map.getClass().newInstance();
+        } catch (Exception e) {
+            return new HashMap<String, Object>();
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> sameAs() {
+        return MapFactory.sameAs(map).create(0);
+    }
+}
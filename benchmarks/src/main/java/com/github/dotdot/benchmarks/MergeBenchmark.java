@@ -0,0 +1,51 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.DotDot;
+import com.github.dotdot.MergePolicy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merging two documents that share half of their leaves
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MergeBenchmark {
+
+    @Param({"HashMap", "TreeMap", "LinkedHashMap"})
+    public String mapType;
+
+    @Param({"10", "10000"})
+    public int keys;
+
+    @Param({"1", "8"})
+    public int depth;
+
+    private Map<String, Object> left;
+    private Map<String, Object> right;
+
+    @Setup
+    public void setup() {
+        left = Documents.build(mapType, keys, depth);
+        right = Documents.newMap(mapType);
+        for (int i = keys / 2; i < keys + keys / 2; i++) {
+            DotDot.put(Documents.leafPath(i, depth), i, right);
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> mergeNestedMaps() {
+        return DotDot.mergeNestedMaps(left, right);
+    }
+
+    @Benchmark
+    public Map<String, Object> mergeSharingSubtrees() {
+        return DotDot.mergeNestedMaps(left, right, MergePolicy.LAST_WINS, true);
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.DotDot;
+import com.github.dotdot.metrics.InMemoryMetrics;
+import com.github.dotdot.metrics.JfrMetrics;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cost of metrics on get and put: none installed, the in-memory reporter,
+ * and JFR events without a recording that enables them
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+
+    @Param({"none", "inMemory", "jfr"})
+    public String metrics;
+
+    private Map<String, Object> doc;
+    private String path;
+
+    @Setup
+    public void setup() {
+        if ("inMemory".equals(metrics)) {
+            DotDot.setMetrics(new InMemoryMetrics());
+        } else if ("jfr".equals(metrics)) {
+            DotDot.setMetrics(new JfrMetrics());
+        }
+        doc = Documents.build("HashMap", 1000, 4);
+        path = Documents.leafPath(500, 4);
+    }
+
+    @TearDown
+    public void tearDown() {
+        DotDot.setMetrics(null);
+    }
+
+    @Benchmark
+    public Object get() {
+        return DotDot.get(path, doc);
+    }
+
+    @Benchmark
+    public void put() {
+        DotDot.put(path, 1, doc);
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.DotDot;
+import com.github.dotdot.converters.Converter;
+import com.github.dotdot.converters.IntConverter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups of many different numeric paths like "3.17.42" on a map with Integer keys.
+ * IntConverter parses the keys in place, the plain converter compiles every path
+ * through the DotPath cache, which is larger than the cache can hold.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NumericKeyBenchmark {
+
+    private static final int PATHS = 1 << 14;
+
+    private Map<Integer, Object> doc;
+    private String[] paths;
+    private Converter<Integer> plainConverter;
+    private int next;
+
+    @Setup
+    public void setup() {
+        doc = new HashMap<Integer, Object>();
+        for (int i = 0; i < 100; i++) {
+            Map<Integer, Object> level1 = new HashMap<Integer, Object>();
+            for (int j = 0; j < 100; j++) {
+                Map<Integer, Object> level2 = new HashMap<Integer, Object>();
+                for (int k = 0; k < 10; k++) {
+                    level2.put(k * 10, i + j + k);
+                }
+                level1.put(j, level2);
+            }
+            doc.put(i, level1);
+        }
+
+        Random random = new Random(42);
+        paths = new String[PATHS];
+        for (int i = 0; i < PATHS; i++) {
+            paths[i] = random.nextInt(100) + "." + random.nextInt(100) + "." + random.nextInt(10) * 10;
+        }
+
+        // the same conversion without the in place parsing
+        plainConverter = new Converter<Integer>() {
+            public Integer convert(String text) {
+                return Integer.valueOf(text);
+            }
+        };
+    }
+
+    @Benchmark
+    public Object intKeyConverter() {
+        return DotDot.get(paths[next++ & (PATHS - 1)], doc, IntConverter.INSTANCE);
+    }
+
+    @Benchmark
+    public Object cachedPaths() {
+        return DotDot.get(paths[next++ & (PATHS - 1)], doc, plainConverter);
+    }
+}
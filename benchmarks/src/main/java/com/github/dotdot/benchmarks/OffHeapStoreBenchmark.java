@@ -0,0 +1,100 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.DotDot;
+import com.github.dotdot.offheap.OffHeapStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading two fields of one of many small documents by its id: documents kept as nested
+ * HashMaps on the heap compared with an OffHeapStore, with its hot documents on the heap
+ * and with none, and the time to reopen the store.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OffHeapStoreBenchmark {
+
+    private static final int HOT_IDS = 256;
+
+    @Param({"100000"})
+    public int documents;
+
+    private Map<String, Map<String, Object>> heap;
+    private Path file;
+    private OffHeapStore hot;
+    private OffHeapStore cold;
+    private String[] ids;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        heap = new HashMap<String, Map<String, Object>>();
+        file = Files.createTempFile("documents", ".dds");
+        OffHeapStore.Writer writer = OffHeapStore.create(file);
+        try {
+            for (int i = 0; i < documents; i++) {
+                Map<String, Object> document = Documents.build("HashMap", 20, 3);
+                DotDot.put("id", i, document);
+                heap.put("doc-" + i, document);
+                writer.put("doc-" + i, document);
+            }
+        } finally {
+            writer.close();
+        }
+        hot = OffHeapStore.open(file);
+        cold = OffHeapStore.open(file, 0);
+
+        ids = new String[HOT_IDS];
+        for (int i = 0; i < HOT_IDS; i++) {
+            ids[i] = "doc-" + (i * 7919 % documents);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private String nextId() {
+        String id = ids[next];
+        next = next == HOT_IDS - 1 ? 0 : next + 1;
+        return id;
+    }
+
+    @Benchmark
+    public Object heap() {
+        Map<String, Object> document = heap.get(nextId());
+        DotDot.get(Documents.leafPath(3, 3), document);
+        return DotDot.get("id", document);
+    }
+
+    @Benchmark
+    public Object offHeapHot() {
+        String id = nextId();
+        hot.get(id, Documents.leafPath(3, 3));
+        return hot.get(id, "id");
+    }
+
+    @Benchmark
+    public Object offHeapCold() {
+        String id = nextId();
+        cold.get(id, Documents.leafPath(3, 3));
+        return cold.get(id, "id");
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    public OffHeapStore reopen() throws IOException {
+        return OffHeapStore.open(file);
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.DotDot;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Reading into a list of items: one element by its index, and the price of every item
+ * with a `*` path through forEachMatch and streamMatches, compared with a loop over the list by hand.
+ * LinkedList shows the cost of an index into a list without random access.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PathIndexBenchmark {
+
+    @Param({"ArrayList", "LinkedList"})
+    public String listType;
+
+    @Param({"10", "1000"})
+    public int items;
+
+    private Map<String, Object> doc;
+    private String indexPath;
+
+    @Setup
+    public void setup() {
+        List<Object> list = "LinkedList".equals(listType) ? new LinkedList<Object>() : new ArrayList<Object>();
+        for (int i = 0; i < items; i++) {
+            Map<String, Object> item = new HashMap<String, Object>();
+            item.put("price", (long) i);
+            item.put("name", "item" + i);
+            list.add(item);
+        }
+        doc = new HashMap<String, Object>();
+        DotDot.put("order.items", list, doc);
+        indexPath = "order.items." + (items / 2) + ".price";
+    }
+
+    @Benchmark
+    public Object getByIndex() {
+        return DotDot.get(indexPath, doc);
+    }
+
+    @Benchmark
+    public long forEachMatch() {
+        final long[] sum = new long[1];
+        DotDot.forEachMatch("order.items.*.price", doc, new Consumer<Object>() {
+            public void accept(Object price) {
+                sum[0] += (Long) price;
+            }
+        });
+        return sum[0];
+    }
+
+    @Benchmark
+    public long streamMatches() {
+        long sum = 0;
+        Iterator<Object> prices = DotDot.streamMatches("order.items.*.price", doc).iterator();
+        while (prices.hasNext()) {
+            sum += (Long) prices.next();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long loopByHand() {
+        long sum = 0;
+        for (Object item : (List<Object>) DotDot.get("order.items", doc)) {
+            sum += (Long) ((Map<String, Object>) item).get("price");
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.DotDot;
+import com.github.dotdot.MergePolicy;
+import com.github.dotdot.converters.StringConverter;
+import com.github.dotdot.persistent.PersistentMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishing a changed version of a shared document: a deep copy of a HashMap document
+ * followed by a put, compared with putIn on a PersistentMap that copies only the path.
+ * Reads are measured too, since PersistentMap trades some lookup speed for cheap versions.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersistentMapBenchmark {
+
+    @Param({"100", "10000"})
+    public int keys;
+
+    @Param({"4"})
+    public int depth;
+
+    private Map<String, Object> mutable;
+    private PersistentMap<String, Object> persistent;
+    private String path;
+
+    @Setup
+    public void setup() {
+        mutable = Documents.build("HashMap", keys, depth);
+        persistent = PersistentMap.of(mutable);
+        path = Documents.leafPath(keys / 2, depth);
+    }
+
+    @Benchmark
+    public Map<String, Object> copyThenPut() {
+        Map<String, Object> copy = DotDot.mergeNestedMaps(new HashMap<String, Object>(), mutable, MergePolicy.LAST_WINS);
+        DotDot.put(path, 42, copy);
+        return copy;
+    }
+
+    @Benchmark
+    public Map<String, Object> persistentPutIn() {
+        return persistent.putIn(path, 42, StringConverter.INSTANCE);
+    }
+
+    @Benchmark
+    public Object hashMapGet() {
+        return DotDot.get(path, mutable);
+    }
+
+    @Benchmark
+    public Object persistentGet() {
+        return DotDot.get(path, persistent);
+    }
+}
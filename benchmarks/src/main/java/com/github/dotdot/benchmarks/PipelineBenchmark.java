@@ -0,0 +1,113 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.DotDot;
+import com.github.dotdot.MergePolicy;
+import com.github.dotdot.Projection;
+import com.github.dotdot.ValidationPlan;
+import com.github.dotdot.pipeline.DotPipeline;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Validating, projecting and enriching a stream of small documents from memory into a counting sink:
+ * a plain loop over the documents compared with a DotPipeline of one and of four workers,
+ * with batches of one and of 64 documents. Throughput is per document, and the sample time
+ * per document shows the latency distribution. The loop does not use the parameters.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PipelineBenchmark {
+
+    private static final int DOCUMENTS = 10000;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    @Param({"1", "64"})
+    public int batchSize;
+
+    private List<Map<String, Object>> documents;
+    private ValidationPlan<String> plan;
+    private Projection<String> projection;
+    private Map<String, Object> customer;
+    private Function<Map<String, Object>, Map<String, Object>> lookup;
+    private final LongAdder sunk = new LongAdder();
+    private Consumer<Map<String, Object>> sink;
+    private ExecutorService executor;
+
+    @Setup
+    public void setup() {
+        documents = new ArrayList<Map<String, Object>>(DOCUMENTS);
+        for (int i = 0; i < DOCUMENTS; i++) {
+            Map<String, Object> document = new HashMap<String, Object>();
+            DotDot.put("id", i, document);
+            DotDot.put("type", "order", document);
+            DotDot.put("customer.id", "c" + i % 100, document);
+            DotDot.put("customer.password", "secret", document);
+            DotDot.put("order.amount", i, document);
+            DotDot.put("order.currency", "EUR", document);
+            documents.add(document);
+        }
+        plan = ValidationPlan.builder().required("customer.id").mustEqual("type", "order").mustBe("order.amount", Number.class).build();
+        projection = Projection.builder().exclude("customer.password").build();
+        customer = new HashMap<String, Object>();
+        DotDot.put("customer.segment", "retail", customer);
+        lookup = new Function<Map<String, Object>, Map<String, Object>>() {
+            public Map<String, Object> apply(Map<String, Object> document) {
+                return customer;
+            }
+        };
+        sink = new Consumer<Map<String, Object>>() {
+            public void accept(Map<String, Object> document) {
+                sunk.increment();
+            }
+        };
+        executor = Executors.newFixedThreadPool(parallelism);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DOCUMENTS)
+    public long loop() {
+        for (Map<String, Object> document : documents) {
+            if (!plan.isValid(document)) {
+                continue;
+            }
+            Map<String, Object> projected = projection.apply(document);
+            sink.accept(DotDot.mergeNestedMaps(projected, lookup.apply(projected), MergePolicy.LAST_WINS, true));
+        }
+        return sunk.sum();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DOCUMENTS)
+    public long pipeline() throws Exception {
+        return DotPipeline.source(documents)
+                .validate(plan)
+                .project(projection)
+                .enrich(lookup)
+                .executor(executor)
+                .parallelism(parallelism)
+                .batchSize(batchSize)
+                .sink(sink)
+                .get();
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.DotDot;
+import com.github.dotdot.Projection;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stripping three fields from a large document: listing every other path with
+ * getKeysInDotFormat and copying them with copyInclude, compared with a compiled Projection
+ * that shares the untouched subtrees. Also includes every leaf under level1_0 of each branch,
+ * once with a `*` pattern and once with copyInclude of all their paths.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProjectionBenchmark {
+
+    @Param({"2000"})
+    public int keys;
+
+    private Map<String, Object> doc;
+    private List<String> excludes;
+    private Projection<String> exclude;
+    private Projection<String> copyExclude;
+    private List<String> branchLeaves;
+    private Projection<String> wildcard;
+
+    @Setup
+    public void setup() {
+        doc = Documents.build("HashMap", keys, 3);
+        excludes = Arrays.asList(Documents.leafPath(1, 3), Documents.leafPath(keys / 2, 3), Documents.leafPath(keys - 1, 3));
+        exclude = build(Projection.builder(), excludes).build();
+        copyExclude = build(Projection.builder().shareSubtrees(false), excludes).build();
+
+        branchLeaves = new ArrayList<String>();
+        for (int i = 0; i < keys; i++) {
+            if (i / 10 % 10 == 0) {
+                branchLeaves.add(Documents.leafPath(i, 3));
+            }
+        }
+        wildcard = Projection.builder().include("*.level1_0.*").build();
+    }
+
+    private static Projection.Builder<String> build(Projection.Builder<String> builder, List<String> excludes) {
+        for (String path : excludes) {
+            builder.exclude(path);
+        }
+        return builder;
+    }
+
+    @Benchmark
+    public Map<String, Object> keysThenCopyInclude() {
+        Set<String> paths = DotDot.getKeysInDotFormat(doc);
+        paths.removeAll(excludes);
+        return DotDot.copyInclude(doc, new ArrayList<String>(paths));
+    }
+
+    @Benchmark
+    public Map<String, Object> projectionShared() {
+        return exclude.apply(doc);
+    }
+
+    @Benchmark
+    public Map<String, Object> projectionCopied() {
+        return copyExclude.apply(doc);
+    }
+
+    @Benchmark
+    public Map<String, Object> includeWildcard() {
+        return wildcard.apply(doc);
+    }
+
+    @Benchmark
+    public Map<String, Object> includeEachPath() {
+        return DotDot.copyInclude(doc, branchLeaves);
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.DotDot;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building documents from scratch and overwriting existing leaves
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PutBenchmark {
+
+    @Param({"HashMap", "TreeMap", "LinkedHashMap"})
+    public String mapType;
+
+    @Param({"1", "4", "12"})
+    public int depth;
+
+    private String[] paths;
+    private Map<String, Object> existing;
+
+    @Setup
+    public void setup() {
+        paths = new String[16];
+        for (int i = 0; i < paths.length; i++) {
+            paths[i] = Documents.leafPath(i, depth);
+        }
+        existing = Documents.build(mapType, paths.length, depth);
+    }
+
+    @Benchmark
+    public Map<String, Object> buildDocument() {
+        Map<String, Object> doc = Documents.newMap(mapType);
+        for (int i = 0; i < paths.length; i++) {
+            DotDot.put(paths[i], i, doc);
+        }
+        return doc;
+    }
+
+    @Benchmark
+    public Map<String, Object> overwriteLeaves() {
+        for (int i = 0; i < paths.length; i++) {
+            DotDot.put(paths[i], i, existing);
+        }
+        return existing;
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.DotDot;
+import com.github.dotdot.DotPath;
+import com.github.dotdot.converters.StringConverter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boxed typed getters against their primitive counterparts, on a hit and on a miss.
+ * The values are outside of the Integer/Long caches, so every box is a new object.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TypedGetterBenchmark {
+
+    private Map<String, Object> doc;
+    private DotPath<String> longPath;
+
+    @Setup
+    public void setup() {
+        doc = new HashMap<String, Object>();
+        DotDot.put("metrics.cpu.int", 100000, doc);
+        DotDot.put("metrics.cpu.long", 100000L, doc);
+        DotDot.put("metrics.cpu.double", 0.75, doc);
+        longPath = DotPath.compile("metrics.cpu.long", StringConverter.INSTANCE);
+    }
+
+    @Benchmark
+    public Integer boxedIntHit() {
+        return DotDot.getInt("metrics.cpu.int", doc, 0);
+    }
+
+    @Benchmark
+    public int primitiveIntHit() {
+        return DotDot.getIntOrDefault("metrics.cpu.int", doc, 0);
+    }
+
+    @Benchmark
+    public Integer boxedIntMiss() {
+        return DotDot.getInt("metrics.cpu.missing", doc, 100000);
+    }
+
+    @Benchmark
+    public int primitiveIntMiss() {
+        return DotDot.getIntOrDefault("metrics.cpu.missing", doc, 100000);
+    }
+
+    @Benchmark
+    public Long boxedLongCompiled() {
+        return DotDot.getLong(longPath, doc, 0L);
+    }
+
+    @Benchmark
+    public long primitiveLongCompiled() {
+        return DotDot.getLongOrDefault(longPath, doc, 0L);
+    }
+
+    @Benchmark
+    public Double boxedDoubleHit() {
+        return DotDot.getDouble("metrics.cpu.double", doc, 0.0);
+    }
+
+    @Benchmark
+    public double primitiveDoubleHit() {
+        return DotDot.getDoubleOrDefault("metrics.cpu.double", doc, 0.0);
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.DotDot;
+import com.github.dotdot.NoValueException;
+import com.github.dotdot.NotEqualException;
+import com.github.dotdot.ValidationPlan;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validating a valid payload with 20 checks under a few shared prefixes:
+ * chained mustHaveValue and mustEqual calls compared with one ValidationPlan
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    private static final int CHECKS = 20;
+
+    private Map<String, Object> payload;
+    private String[] paths;
+    private Object[] expected;
+    private ValidationPlan<String> plan;
+
+    @Setup
+    public void setup() {
+        payload = new HashMap<String, Object>();
+        paths = new String[CHECKS];
+        expected = new Object[CHECKS];
+        ValidationPlan.Builder<String> builder = ValidationPlan.builder();
+        for (int i = 0; i < CHECKS; i++) {
+            paths[i] = "request.section" + (i % 4) + ".field" + i;
+            expected[i] = "value" + i;
+            DotDot.put(paths[i], expected[i], payload);
+            if (i % 2 == 0) {
+                builder.required(paths[i]);
+            } else {
+                builder.mustEqual(paths[i], expected[i]);
+            }
+        }
+        plan = builder.build();
+    }
+
+    @Benchmark
+    public void chained() throws NoValueException, NotEqualException {
+        for (int i = 0; i < CHECKS; i++) {
+            if (i % 2 == 0) {
+                DotDot.mustHaveValue(paths[i], payload);
+            } else {
+                DotDot.mustEqual(paths[i], expected[i], payload);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean plan() {
+        return plan.isValid(payload);
+    }
+}
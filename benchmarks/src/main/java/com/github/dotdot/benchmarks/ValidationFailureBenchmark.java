@@ -0,0 +1,79 @@
+package com.github.dotdot.benchmarks;
+
+import com.github.dotdot.CheckResult;
+import com.github.dotdot.DotDot;
+import com.github.dotdot.NoValueException;
+import com.github.dotdot.NotEqualException;
+import com.github.dotdot.ValidationPlan;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejecting a payload: mustHaveValue and mustEqual throwing, a ValidationPlan with and without
+ * lightweight exceptions, and checkValue and checkEqual that return the result. The exception's message is not read.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationFailureBenchmark {
+
+    @Param({"false", "true"})
+    public boolean lightweight;
+
+    private Map<String, Object> payload;
+    private Object expected;
+    private ValidationPlan<String> plan;
+
+    @Setup
+    public void setup() {
+        payload = new HashMap<String, Object>();
+        DotDot.put("request.user.type", "guest", payload);
+        expected = "admin";
+        plan = ValidationPlan.builder()
+                .lightweightExceptions(lightweight)
+                .required("request.user.id")
+                .build();
+    }
+
+    @Benchmark
+    public Exception mustHaveValue() {
+        try {
+            DotDot.mustHaveValue("request.user.id", payload);
+            return null;
+        } catch (NoValueException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Exception mustEqual() {
+        try {
+            DotDot.mustEqual("request.user.type", expected, payload);
+            return null;
+        } catch (NotEqualException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public List<Exception> plan() {
+        return plan.validate(payload);
+    }
+
+    @Benchmark
+    public CheckResult checkValue() {
+        return DotDot.checkValue("request.user.id", payload);
+    }
+
+    @Benchmark
+    public CheckResult checkEqual() {
+        return DotDot.checkEqual("request.user.type", expected, payload);
+    }
+}
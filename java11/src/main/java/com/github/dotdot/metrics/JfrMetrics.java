@@ -0,0 +1,55 @@
+package com.github.dotdot.metrics;
+
+import com.github.dotdot.DotDotMetrics;
+import jdk.jfr.*;
+
+/**
+ * Emits one Java Flight Recorder event per record, named `com.github.dotdot.Operation`.
+ * Events are only built while a recording has them enabled, so an idle JfrMetrics
+ * costs one check per operation. Needs Java 11, so it is in the java11 module.
+ * <pre>
+ *     DotDot.setMetrics(new JfrMetrics());
+ *     // java -XX:StartFlightRecording=filename=dotdot.jfr ...
+ * </pre>
+ */
+public final class JfrMetrics implements DotDotMetrics {
+
+    private static final EventType TYPE = EventType.getEventType(OperationEvent.class);
+
+    public void record(Operation operation, String path, int depth, long nanos, Outcome outcome) {
+        if (!TYPE.isEnabled()) {
+            return;
+        }
+
+        OperationEvent event = new OperationEvent();
+        event.operation = operation.name();
+        event.path = path;
+        event.depth = depth;
+        event.latency = nanos;
+        event.outcome = outcome.name();
+        event.commit();
+    }
+
+    @Name("com.github.dotdot.Operation")
+    @Label("DotDot Operation")
+    @Category("DotDot")
+    @Description("A get, put, copyInclude, merge or validation of a nested map")
+    @StackTrace(false)
+    static final class OperationEvent extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Path")
+        String path;
+
+        @Label("Depth")
+        int depth;
+
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+
+        @Label("Outcome")
+        String outcome;
+    }
+}
@@ -0,0 +1,377 @@
+package com.github.dotdot.pipeline;
+
+import com.github.dotdot.DotDot;
+import com.github.dotdot.MergePolicy;
+import com.github.dotdot.Projection;
+import com.github.dotdot.ValidationPlan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs the documents of a {@link Flow.Publisher} through DotDot operations and hands them to a sink.
+ * <pre>
+ *     CompletableFuture&lt;Long&gt; done = DotPipeline.source(messages)
+ *             .validate(plan)
+ *             .project(publicView)
+ *             .enrich(doc -&gt; customers.get(DotDot.getString("customer.id", doc)))
+ *             .parallelism(4)
+ *             .sink(out::send);
+ * </pre>
+ * The stages of a pipeline run one after the other on the same thread, a document is not handed over
+ * between stages. At most {@link #bufferSize(int) bufferSize} documents are requested from the source
+ * that have not reached the sink yet, so a slow sink slows the source down instead of filling the heap.
+ * Workers take up to {@link #batchSize(int) batchSize} waiting documents at a time and request as many
+ * new ones after the batch, and up to {@link #parallelism(int) parallelism} workers run on the executor.
+ * With more than one worker the sink is called concurrently and documents can reach it out of order.
+ * On Java 21 and later pass an executor of virtual threads, like {@code Executors.newVirtualThreadPerTaskExecutor()},
+ * so blocking stages and sinks do not hold platform threads.
+ * A pipeline is configured by one thread, and every call of {@link #sink(Consumer)} runs it once
+ * with the configuration of that moment.
+ * @param <K> the key type
+ */
+public final class DotPipeline<K> {
+
+    private final Flow.Publisher<? extends Map<K, Object>> source;
+    private final List<Stage<K>> stages = new ArrayList<Stage<K>>();
+    private Executor executor = ForkJoinPool.commonPool();
+    private int parallelism = 1;
+    private int bufferSize = Flow.defaultBufferSize();
+    private int batchSize = 16;
+    private BiConsumer<? super Map<K, Object>, ? super Exception> rejected = new BiConsumer<Map<K, Object>, Exception>() {
+        public void accept(Map<K, Object> document, Exception failure) {
+        }
+    };
+
+    private DotPipeline(Flow.Publisher<? extends Map<K, Object>> source) {
+        this.source = source;
+    }
+
+    public static <K> DotPipeline<K> source(Flow.Publisher<? extends Map<K, Object>> source) {
+        return new DotPipeline<K>(source);
+    }
+
+    /**
+     * Reads the documents from memory, every run iterates them again
+     */
+    public static <K> DotPipeline<K> source(Iterable<? extends Map<K, Object>> documents) {
+        return new DotPipeline<K>(new IterablePublisher<Map<K, Object>>(documents));
+    }
+
+    /**
+     * Drops the documents that fail the plan and passes them to the {@link #onRejected(BiConsumer) rejection handler}
+     * with the first failure, the other failures are suppressed exceptions of it
+     */
+    public DotPipeline<K> validate(final ValidationPlan<K> plan) {
+        stages.add(new Stage<K>() {
+            public Map<K, Object> apply(Map<K, Object> document, Run<K> run) {
+                if (plan.isValid(document)) {
+                    return document;
+                }
+
+                List<Exception> failures = plan.validate(document);
+                Exception first = failures.get(0);
+                for (int i = 1; i < failures.size(); i++) {
+                    first.addSuppressed(failures.get(i));
+                }
+                run.reject(document, first);
+                return null;
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Replaces every document with its projection, see {@link Projection#apply(Map)}
+     */
+    public DotPipeline<K> project(final Projection<K> projection) {
+        stages.add(new Stage<K>() {
+            public Map<K, Object> apply(Map<K, Object> document, Run<K> run) {
+                return projection.apply(document);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Merges what the lookup returns for a document into it, the lookup's values win.
+     * Nothing is merged when the lookup returns null. See {@link DotDot#mergeNestedMaps(Map, Map, MergePolicy, boolean)},
+     * the subtrees of both maps are shared with the result.
+     */
+    public DotPipeline<K> enrich(final Function<? super Map<K, Object>, ? extends Map<K, Object>> lookup) {
+        stages.add(new Stage<K>() {
+            public Map<K, Object> apply(Map<K, Object> document, Run<K> run) {
+                Map<K, Object> extra = lookup.apply(document);
+                if (extra == null) {
+                    return document;
+                }
+                return DotDot.mergeNestedMaps(document, extra, MergePolicy.LAST_WINS, true);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Replaces every document with what the function returns, null drops the document
+     */
+    public DotPipeline<K> map(final Function<? super Map<K, Object>, ? extends Map<K, Object>> function) {
+        stages.add(new Stage<K>() {
+            public Map<K, Object> apply(Map<K, Object> document, Run<K> run) {
+                return function.apply(document);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Receives the documents that {@link #validate(ValidationPlan)} drops, it is called like the sink
+     */
+    public DotPipeline<K> onRejected(BiConsumer<? super Map<K, Object>, ? super Exception> handler) {
+        if (handler == null) {
+            throw new IllegalArgumentException("handler must not be null");
+        }
+        this.rejected = handler;
+        return this;
+    }
+
+    /**
+     * @param executor runs the workers, the common ForkJoinPool by default
+     */
+    public DotPipeline<K> executor(Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor must not be null");
+        }
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * @param parallelism maximum number of workers, 1 by default which keeps the order of the source
+     */
+    public DotPipeline<K> parallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * @param bufferSize maximum number of documents requested from the source that did not reach the sink yet,
+     *                   {@link Flow#defaultBufferSize()} by default
+     */
+    public DotPipeline<K> bufferSize(int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+        }
+        this.bufferSize = bufferSize;
+        return this;
+    }
+
+    /**
+     * @param batchSize maximum number of documents a worker takes at a time, 16 by default
+     */
+    public DotPipeline<K> batchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Subscribes to the source and runs every document through the stages into the sink
+     * @return completes with the number of documents that reached the sink once the source completes,
+     * or exceptionally if the source fails or a stage or the sink throws. Cancelling it cancels the subscription.
+     */
+    public CompletableFuture<Long> sink(Consumer<? super Map<K, Object>> sink) {
+        Run<K> run = new Run<K>(new ArrayList<Stage<K>>(stages), sink, rejected, executor,
+                parallelism, Math.max(bufferSize, batchSize), batchSize);
+        source.subscribe(run);
+        return run.result;
+    }
+
+    private interface Stage<K> {
+        /**
+         * @return the document for the next stage, null to drop it
+         */
+        Map<K, Object> apply(Map<K, Object> document, Run<K> run);
+    }
+
+    /**
+     * One run of the pipeline, the subscriber of the source
+     */
+    private static final class Run<K> implements Flow.Subscriber<Map<K, Object>> {
+        final CompletableFuture<Long> result = new CompletableFuture<Long>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                Flow.Subscription subscription = Run.this.subscription;
+                if (subscription != null) {
+                    subscription.cancel();
+                }
+                queue.clear();
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+
+        private final List<Stage<K>> stages;
+        private final Consumer<? super Map<K, Object>> sink;
+        private final BiConsumer<? super Map<K, Object>, ? super Exception> rejected;
+        private final Executor executor;
+        private final int parallelism;
+        private final int bufferSize;
+        private final int batchSize;
+
+        private final ConcurrentLinkedQueue<Map<K, Object>> queue = new ConcurrentLinkedQueue<Map<K, Object>>();
+        private final AtomicInteger workers = new AtomicInteger();
+        private final AtomicLong delivered = new AtomicLong();
+        private final AtomicBoolean subscribed = new AtomicBoolean();
+        private volatile Flow.Subscription subscription;
+        private volatile boolean completed;
+        private volatile Throwable failure;
+
+        private final Runnable worker = new Runnable() {
+            public void run() {
+                drain();
+            }
+        };
+
+        Run(List<Stage<K>> stages, Consumer<? super Map<K, Object>> sink,
+            BiConsumer<? super Map<K, Object>, ? super Exception> rejected, Executor executor,
+            int parallelism, int bufferSize, int batchSize) {
+            this.stages = stages;
+            this.sink = sink;
+            this.rejected = rejected;
+            this.executor = executor;
+            this.parallelism = parallelism;
+            this.bufferSize = bufferSize;
+            this.batchSize = batchSize;
+        }
+
+        public void onSubscribe(Flow.Subscription subscription) {
+            if (!subscribed.compareAndSet(false, true)) {
+                subscription.cancel();
+                return;
+            }
+            this.subscription = subscription;
+            subscription.request(bufferSize);
+        }
+
+        public void onNext(Map<K, Object> document) {
+            if (result.isDone()) {
+                return;
+            }
+            queue.offer(document);
+            schedule();
+        }
+
+        public void onError(Throwable error) {
+            failure = error;
+            completed = true;
+            finishIfDrained();
+        }
+
+        public void onComplete() {
+            completed = true;
+            finishIfDrained();
+        }
+
+        /**
+         * Starts a worker if there are waiting documents and fewer workers than the parallelism
+         */
+        private void schedule() {
+            while (!queue.isEmpty()) {
+                int running = workers.get();
+                if (running >= parallelism) {
+                    return;
+                }
+                if (workers.compareAndSet(running, running + 1)) {
+                    try {
+                        executor.execute(worker);
+                    } catch (RejectedExecutionException e) {
+                        workers.decrementAndGet();
+                        fail(e);
+                    }
+                    return;
+                }
+            }
+        }
+
+        private void drain() {
+            List<Map<K, Object>> batch = new ArrayList<Map<K, Object>>(batchSize);
+            while (true) {
+                Map<K, Object> document;
+                while (batch.size() < batchSize && (document = queue.poll()) != null) {
+                    batch.add(document);
+                }
+
+                if (batch.isEmpty() || result.isDone()) {
+                    workers.decrementAndGet();
+                    // a document may have arrived after the queue was found empty
+                    if (!queue.isEmpty() && !result.isDone()) {
+                        schedule();
+                    }
+                    finishIfDrained();
+                    return;
+                }
+
+                // anything thrown here, an Error or a failing request included, must still end the worker
+                try {
+                    for (Map<K, Object> next : batch) {
+                        process(next);
+                    }
+
+                    int size = batch.size();
+                    batch.clear();
+                    subscription.request(size);
+                } catch (Throwable t) {
+                    workers.decrementAndGet();
+                    fail(t);
+                    return;
+                }
+            }
+        }
+
+        private void process(Map<K, Object> document) {
+            for (Stage<K> stage : stages) {
+                document = stage.apply(document, this);
+                if (document == null) {
+                    return;
+                }
+            }
+            sink.accept(document);
+            delivered.incrementAndGet();
+        }
+
+        void reject(Map<K, Object> document, Exception failure) {
+            rejected.accept(document, failure);
+        }
+
+        private void fail(Throwable error) {
+            if (result.completeExceptionally(error)) {
+                subscription.cancel();
+                queue.clear();
+            }
+        }
+
+        private void finishIfDrained() {
+            if (!completed || workers.get() != 0 || !queue.isEmpty()) {
+                return;
+            }
+            Throwable error = failure;
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(delivered.get());
+            }
+        }
+    }
+}
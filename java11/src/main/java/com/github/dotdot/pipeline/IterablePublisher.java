@@ -0,0 +1,112 @@
+package com.github.dotdot.pipeline;
+
+import java.util.Iterator;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the elements of an Iterable as they are requested, on the thread that requests them.
+ * Every subscriber gets its own iterator.
+ * @param <T> the element type
+ */
+final class IterablePublisher<T> implements Flow.Publisher<T> {
+
+    private final Iterable<? extends T> elements;
+
+    IterablePublisher(Iterable<? extends T> elements) {
+        this.elements = elements;
+    }
+
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        subscriber.onSubscribe(new IteratorSubscription<T>(elements.iterator(), subscriber));
+    }
+
+    private static final class IteratorSubscription<T> implements Flow.Subscription {
+        private final Iterator<? extends T> iterator;
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        // number of requests that are not emitted yet, only the thread that moves it from 0 emits
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile boolean cancelled;
+        // a bad request, signalled by the emitting thread like every other signal
+        private volatile Throwable error;
+
+        IteratorSubscription(Iterator<? extends T> iterator, Flow.Subscriber<? super T> subscriber) {
+            this.iterator = iterator;
+            this.subscriber = subscriber;
+        }
+
+        public void request(long n) {
+            if (n <= 0) {
+                if (error == null) {
+                    error = new IllegalArgumentException("The request must be positive: " + n);
+                }
+            } else {
+                addDemand(n);
+            }
+
+            if (pending.getAndIncrement() == 0) {
+                emit();
+            }
+        }
+
+        private void addDemand(long n) {
+            long current;
+            do {
+                current = demand.get();
+                if (current == Long.MAX_VALUE) {
+                    break;
+                }
+            } while (!demand.compareAndSet(current, current + n < 0 ? Long.MAX_VALUE : current + n));
+        }
+
+        private void emit() {
+            int missed = 1;
+            while (true) {
+                if (cancelled) {
+                    return;
+                }
+                Throwable failure = error;
+                if (failure != null) {
+                    cancelled = true;
+                    subscriber.onError(failure);
+                    return;
+                }
+
+                long requested = demand.get();
+                long emitted = 0;
+                try {
+                    while (emitted < requested && !cancelled && iterator.hasNext()) {
+                        subscriber.onNext(iterator.next());
+                        emitted++;
+                    }
+                    if (!cancelled && !iterator.hasNext()) {
+                        cancelled = true;
+                        subscriber.onComplete();
+                        return;
+                    }
+                } catch (RuntimeException e) {
+                    cancelled = true;
+                    subscriber.onError(e);
+                    return;
+                }
+                if (cancelled) {
+                    return;
+                }
+
+                if (emitted > 0 && requested != Long.MAX_VALUE) {
+                    demand.addAndGet(-emitted);
+                }
+                missed = pending.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
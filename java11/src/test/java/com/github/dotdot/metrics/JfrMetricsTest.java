@@ -0,0 +1,51 @@
+package com.github.dotdot.metrics;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static com.github.dotdot.DotDot.*;
+
+public class JfrMetricsTest {
+
+    @After
+    public void uninstall() {
+        setMetrics(null);
+    }
+
+    @Test
+    public void emitsEvents() throws Exception {
+        Map<String, Object> map = new HashMap<String, Object>();
+        put("a.b", 1, map);
+        setMetrics(new JfrMetrics());
+
+        File file = File.createTempFile("dotdot", ".jfr");
+        try {
+            Recording recording = new Recording();
+            recording.enable("com.github.dotdot.Operation");
+            recording.start();
+            get("a.b", map);
+            get("a.c", map);
+            recording.stop();
+            recording.dump(file.toPath());
+            recording.close();
+
+            List<String> events = new ArrayList<String>();
+            for (RecordedEvent event : RecordingFile.readAllEvents(file.toPath())) {
+                if (event.getEventType().getName().equals("com.github.dotdot.Operation")) {
+                    events.add(event.getString("operation") + " " + event.getString("path") + " "
+                            + event.getInt("depth") + " " + event.getString("outcome"));
+                }
+            }
+            assertEquals(Arrays.asList("GET a.b 2 HIT", "GET a.c 2 MISS"), events);
+        } finally {
+            file.delete();
+        }
+    }
+}
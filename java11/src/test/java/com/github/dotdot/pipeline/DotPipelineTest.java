@@ -0,0 +1,252 @@
+package com.github.dotdot.pipeline;
+
+import com.github.dotdot.NoValueException;
+import com.github.dotdot.Projection;
+import com.github.dotdot.ValidationPlan;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+import static com.github.dotdot.DotDot.*;
+
+public class DotPipelineTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static List<Map<String, Object>> documents(int count) {
+        List<Map<String, Object>> documents = new ArrayList<Map<String, Object>>();
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> map = new HashMap<String, Object>();
+            put("id", i, map);
+            put("customer.id", "c" + i % 3, map);
+            put("customer.password", "secret", map);
+            // every tenth document has no amount
+            if (i % 10 != 0) {
+                put("order.amount", i * 10, map);
+            }
+            documents.add(map);
+        }
+        return documents;
+    }
+
+    @Test
+    public void runsTheStagesInOrder() throws Exception {
+        ValidationPlan<String> plan = ValidationPlan.builder().required("order.amount").build();
+        Projection<String> projection = Projection.builder().exclude("customer.password").build();
+        final List<Map<String, Object>> out = new ArrayList<Map<String, Object>>();
+        final List<Object> rejected = new ArrayList<Object>();
+
+        long delivered = DotPipeline.source(documents(100))
+                .validate(plan)
+                .project(projection)
+                .enrich(new Function<Map<String, Object>, Map<String, Object>>() {
+                    public Map<String, Object> apply(Map<String, Object> document) {
+                        Map<String, Object> extra = new HashMap<String, Object>();
+                        put("customer.name", "name of " + get("customer.id", document), extra);
+                        return extra;
+                    }
+                })
+                .onRejected(new BiConsumer<Map<String, Object>, Exception>() {
+                    public void accept(Map<String, Object> document, Exception failure) {
+                        assertTrue(failure instanceof NoValueException);
+                        rejected.add(get("id", document));
+                    }
+                })
+                .executor(executor)
+                .sink(new Consumer<Map<String, Object>>() {
+                    public void accept(Map<String, Object> document) {
+                        out.add(document);
+                    }
+                })
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals(90, delivered);
+        assertEquals(90, out.size());
+        assertEquals(Arrays.<Object>asList(0, 10, 20, 30, 40, 50, 60, 70, 80, 90), rejected);
+
+        // one worker keeps the order of the source
+        assertEquals(1, get("id", out.get(0)));
+        assertEquals(99, get("id", out.get(89)));
+        Map<String, Object> expected = new HashMap<String, Object>();
+        put("id", 1, expected);
+        put("customer.id", "c1", expected);
+        put("customer.name", "name of c1", expected);
+        put("order.amount", 10, expected);
+        assertEquals(expected, out.get(0));
+    }
+
+    @Test
+    public void runsInParallel() throws Exception {
+        final Set<Object> ids = ConcurrentHashMap.newKeySet();
+        long delivered = DotPipeline.source(documents(10000))
+                .map(new Function<Map<String, Object>, Map<String, Object>>() {
+                    public Map<String, Object> apply(Map<String, Object> document) {
+                        return (Integer) get("id", document) % 2 == 0 ? document : null;
+                    }
+                })
+                .executor(executor)
+                .parallelism(4)
+                .batchSize(64)
+                .sink(new Consumer<Map<String, Object>>() {
+                    public void accept(Map<String, Object> document) {
+                        assertTrue(ids.add(get("id", document)));
+                    }
+                })
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals(5000, delivered);
+        assertEquals(5000, ids.size());
+    }
+
+    @Test
+    public void requestsNoMoreThanTheBuffer() throws Exception {
+        final AtomicLong emitted = new AtomicLong();
+        final List<Map<String, Object>> documents = documents(1000);
+        Iterable<Map<String, Object>> source = new Iterable<Map<String, Object>>() {
+            public Iterator<Map<String, Object>> iterator() {
+                final Iterator<Map<String, Object>> iterator = documents.iterator();
+                return new Iterator<Map<String, Object>>() {
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    public Map<String, Object> next() {
+                        emitted.incrementAndGet();
+                        return iterator.next();
+                    }
+                };
+            }
+        };
+
+        final AtomicLong sunk = new AtomicLong();
+        final AtomicLong maxInFlight = new AtomicLong();
+        DotPipeline.source(source)
+                .executor(executor)
+                .bufferSize(32)
+                .batchSize(8)
+                .sink(new Consumer<Map<String, Object>>() {
+                    public void accept(Map<String, Object> document) {
+                        long inFlight = emitted.get() - sunk.getAndIncrement();
+                        maxInFlight.set(Math.max(maxInFlight.get(), inFlight));
+                    }
+                })
+                .get(10, TimeUnit.SECONDS);
+
+        assertEquals(1000, sunk.get());
+        assertTrue("in flight: " + maxInFlight.get(), maxInFlight.get() <= 32);
+    }
+
+    @Test
+    public void failsWhenAStageThrows() throws Exception {
+        final AtomicInteger sunk = new AtomicInteger();
+        CompletableFuture<Long> result = DotPipeline.source(documents(1000))
+                .map(new Function<Map<String, Object>, Map<String, Object>>() {
+                    public Map<String, Object> apply(Map<String, Object> document) {
+                        if ((Integer) get("id", document) == 50) {
+                            throw new IllegalStateException("broken document");
+                        }
+                        return document;
+                    }
+                })
+                .executor(executor)
+                .sink(new Consumer<Map<String, Object>>() {
+                    public void accept(Map<String, Object> document) {
+                        sunk.incrementAndGet();
+                    }
+                });
+
+        try {
+            result.get(10, TimeUnit.SECONDS);
+            fail("expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertEquals("broken document", e.getCause().getMessage());
+        }
+        assertEquals(50, sunk.get());
+    }
+
+    @Test
+    public void failsWhenTheSinkThrowsAnError() throws Exception {
+        CompletableFuture<Long> result = DotPipeline.source(documents(1000))
+                .executor(executor)
+                .parallelism(2)
+                .sink(new Consumer<Map<String, Object>>() {
+                    public void accept(Map<String, Object> document) {
+                        if ((Integer) get("id", document) == 50) {
+                            throw new AssertionError("broken sink");
+                        }
+                    }
+                });
+
+        try {
+            result.get(10, TimeUnit.SECONDS);
+            fail("expected ExecutionException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof AssertionError);
+            assertEquals("broken sink", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void signalsABadRequestAsAnError() throws Exception {
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        final AtomicInteger received = new AtomicInteger();
+        new IterablePublisher<Map<String, Object>>(documents(10)).subscribe(new Flow.Subscriber<Map<String, Object>>() {
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(2);
+                subscription.request(0);
+                subscription.request(2);
+            }
+
+            public void onNext(Map<String, Object> document) {
+                received.incrementAndGet();
+            }
+
+            public void onError(Throwable throwable) {
+                error.set(throwable);
+            }
+
+            public void onComplete() {
+                fail("a bad request must not complete");
+            }
+        });
+
+        assertTrue(error.get() instanceof IllegalArgumentException);
+        assertEquals(2, received.get());
+    }
+
+    @Test
+    public void readsAnyFlowPublisher() throws Exception {
+        SubmissionPublisher<Map<String, Object>> publisher = new SubmissionPublisher<Map<String, Object>>(executor, 16);
+        final Queue<Map<String, Object>> out = new ConcurrentLinkedQueue<Map<String, Object>>();
+        CompletableFuture<Long> result = DotPipeline.source(publisher)
+                .executor(executor)
+                .parallelism(2)
+                .sink(new Consumer<Map<String, Object>>() {
+                    public void accept(Map<String, Object> document) {
+                        out.add(document);
+                    }
+                });
+
+        for (Map<String, Object> document : documents(500)) {
+            publisher.submit(document);
+        }
+        publisher.close();
+
+        assertEquals(Long.valueOf(500), result.get(10, TimeUnit.SECONDS));
+        assertEquals(500, out.size());
+    }
+}
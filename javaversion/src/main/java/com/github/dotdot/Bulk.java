@@ -0,0 +1,205 @@
+package com.github.dotdot;
+
+import com.github.dotdot.converters.Converter;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Runs DotDot operations over a batch of documents, split into chunks that run
+ * on an executor. Paths are compiled once for the whole batch and results are
+ * always returned in the order of the input documents.
+ * <pre>
+ *     List&lt;Object[]&gt; values = DotDot.bulk(hits).executor(pool).extract(Arrays.asList("user.id", "user.name"));
+ * </pre>
+ * By default it runs on {@link ForkJoinPool#commonPool()}. Any ExecutorService can be used,
+ * for example a dedicated ForkJoinPool or, on Java 21, a virtual thread per task executor.
+ * The documents must not be changed while an operation runs.
+ * @param <K> the key type
+ */
+public final class Bulk<K> {
+
+    private final List<Map<K, Object>> documents;
+    private final Converter<K> converter;
+    private ExecutorService executor = ForkJoinPool.commonPool();
+    private int chunkSize;
+    private MapFactory mapFactory;
+
+    Bulk(List<Map<K, Object>> documents, Converter<K> converter) {
+        this.documents = documents;
+        this.converter = converter;
+    }
+
+    /**
+     * Sets the executor that runs the chunks
+     */
+    public Bulk<K> executor(ExecutorService executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor must not be null");
+        }
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Sets the number of documents per task. By default the batch is split
+     * into about four chunks per available processor.
+     */
+    public Bulk<K> chunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Sets the factory of the maps that copyInclude and merge create.
+     * By default they are created by {@link MapFactory#sameAs(Map)} of each document.
+     */
+    public Bulk<K> mapFactory(MapFactory mapFactory) {
+        this.mapFactory = mapFactory;
+        return this;
+    }
+
+    /**
+     * Returns the values of the paths for every document, in the iteration order of `paths`,
+     * see {@link DotPathSet#extract(Map)}
+     */
+    public List<Object[]> extract(Collection<String> paths) {
+        final DotPathSet<K> compiled = DotPathSet.cached(paths, converter);
+        return map(new Function<Map<K, Object>, Object[]>() {
+            public Object[] apply(Map<K, Object> document) {
+                return compiled.extract(document);
+            }
+        });
+    }
+
+    /**
+     * Returns a copy of every document that only contains the includes,
+     * see {@link DotDot#copyInclude(Map, List, Converter)}
+     */
+    public List<Map<K, Object>> copyInclude(List<String> includes) {
+        final DotPathSet<K> compiled = DotPathSet.cached(includes, converter);
+        return map(new Function<Map<K, Object>, Map<K, Object>>() {
+            public Map<K, Object> apply(Map<K, Object> document) {
+                return mapFactory != null
+                        ? compiled.copyInclude(document, mapFactory)
+                        : compiled.copyInclude(document);
+            }
+        });
+    }
+
+    /**
+     * Checks that all paths have some value in every document
+     * @return one result per document
+     */
+    public boolean[] validate(Collection<String> paths) {
+        final DotPathSet<K> compiled = DotPathSet.cached(paths, converter);
+        List<Boolean> valid = map(new Function<Map<K, Object>, Boolean>() {
+            public Boolean apply(Map<K, Object> document) {
+                return compiled.allHaveValue(document);
+            }
+        });
+
+        boolean[] result = new boolean[valid.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = valid.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Merges the overlay into every document, the values of the overlay win
+     * @see DotDot#mergeNestedMaps(Map, Map, MergePolicy)
+     */
+    public List<Map<K, Object>> merge(Map<K, Object> overlay) {
+        return merge(overlay, MergePolicy.LAST_WINS);
+    }
+
+    /**
+     * Merges the overlay into every document
+     * @see DotDot#mergeNestedMaps(Map, Map, MergePolicy)
+     */
+    public List<Map<K, Object>> merge(final Map<K, Object> overlay, final MergePolicy policy) {
+        return map(new Function<Map<K, Object>, Map<K, Object>>() {
+            public Map<K, Object> apply(Map<K, Object> document) {
+                return mapFactory != null
+                        ? DotDot.mergeNestedMaps(document, overlay, policy, false, mapFactory)
+                        : DotDot.mergeNestedMaps(document, overlay, policy);
+            }
+        });
+    }
+
+    /**
+     * Applies the function to every document
+     * @return the results, in the order of the documents
+     * @throws RuntimeException the first failure of the function, if any
+     */
+    public <R> List<R> map(final Function<Map<K, Object>, R> function) {
+        final int size = documents.size();
+        final Object[] results = new Object[size];
+        int chunk = chunkSize > 0 ? chunkSize : defaultChunkSize(size);
+
+        if (size <= chunk) {
+            apply(function, 0, size, results);
+            return (List<R>) Arrays.asList(results);
+        }
+
+        // failures are kept as they are, executors like ForkJoinPool would wrap them again
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(size / chunk + 1);
+        for (int start = 0; start < size; start += chunk) {
+            final int from = start;
+            final int to = Math.min(size, start + chunk);
+            tasks.add(new Callable<Void>() {
+                public Void call() {
+                    if (failure.get() != null) {
+                        return null;
+                    }
+                    try {
+                        apply(function, from, to, results);
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                    return null;
+                }
+            });
+        }
+
+        try {
+            executor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while processing the batch", e);
+        }
+
+        Throwable cause = failure.get();
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        if (cause != null) {
+            throw new IllegalStateException(cause);
+        }
+
+        return (List<R>) Arrays.asList(results);
+    }
+
+    private <R> void apply(Function<Map<K, Object>, R> function, int from, int to, Object[] results) {
+        List<Map<K, Object>> chunk = documents.subList(from, to);
+        int i = from;
+        for (Map<K, Object> document : chunk) {
+            results[i++] = function.apply(document);
+        }
+    }
+
+    private static int defaultChunkSize(int size) {
+        int chunks = Runtime.getRuntime().availableProcessors() * 4;
+        return Math.max(64, (size + chunks - 1) / chunks);
+    }
+}
@@ -0,0 +1,232 @@
+package com.github.dotdot;
+
+import com.github.dotdot.converters.StringConverter;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A read through cache of path results over a document that does not change, or changes
+ * rarely and is then {@link #reload(Map) reloaded}. The first lookup of a path walks the
+ * document, later lookups of the same path are a single hash probe. Misses are cached too.
+ * <pre>
+ *     CachedDocument config = CachedDocument.of(configMap);
+ *     int timeout = DotDot.getInt("gateway.upstream.timeout", config);
+ * </pre>
+ * The cache is bounded by an estimated weight of its entries, see {@link #weigh(String, Object)}.
+ * When it is full the CLOCK policy evicts a path that was not read since the clock hand last passed it.
+ * Paths that fail with {@link IllegalStateException} are not cached.
+ * It is a read only Map itself, with the keys and values of the document.
+ * Instances are thread safe as long as the document is not changed while they are read.
+ */
+public final class CachedDocument extends AbstractMap<String, Object> implements IndexedDocument {
+
+    /**
+     * Default bound of the estimated weight of the cached results, about one megabyte
+     */
+    public static final long DEFAULT_MAX_WEIGHT = 1 << 20;
+
+    private static final Object NULL = new Object();
+
+    private final long maxWeight;
+    private volatile Generation generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private CachedDocument(Map<String, Object> document, long maxWeight) {
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException("maxWeight must be positive: " + maxWeight);
+        }
+        this.maxWeight = maxWeight;
+        this.generation = new Generation(document);
+    }
+
+    public static CachedDocument of(Map<String, Object> document) {
+        return new CachedDocument(document, DEFAULT_MAX_WEIGHT);
+    }
+
+    /**
+     * @param maxWeight bound of the estimated weight of the cached results
+     */
+    public static CachedDocument of(Map<String, Object> document, long maxWeight) {
+        return new CachedDocument(document, maxWeight);
+    }
+
+    public Object resolve(String path) {
+        Generation current = generation;
+        Entry entry = current.results.get(path);
+        if (entry != null) {
+            // a plain read first, so hot paths do not write to shared memory on every hit
+            if (!entry.referenced) {
+                entry.referenced = true;
+            }
+            hits.increment();
+            return entry.value == NULL ? null : entry.value;
+        }
+
+        misses.increment();
+        Object value = DotDot.find(DotPath.cached(path, StringConverter.INSTANCE), current.document);
+        current.admit(new Entry(path, value == null ? NULL : value, weigh(path, value)));
+        return value;
+    }
+
+    /**
+     * Drops every cached result, for when the document was changed in place
+     */
+    public void invalidate() {
+        generation = new Generation(generation.document);
+    }
+
+    /**
+     * Replaces the document and drops every cached result. Lookups that are running
+     * keep reading the old document and do not cache their results in the new one.
+     */
+    public void reload(Map<String, Object> document) {
+        generation = new Generation(document);
+    }
+
+    /**
+     * @return the document the results come from
+     */
+    public Map<String, Object> document() {
+        return Collections.unmodifiableMap(generation.document);
+    }
+
+    /**
+     * @return number of lookups answered by the cache
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of lookups that walked the document
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of results dropped to keep the cache within its weight
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return number of cached results
+     */
+    public int cachedCount() {
+        return generation.results.size();
+    }
+
+    /**
+     * @return estimated weight of the cached results
+     */
+    public long weight() {
+        return generation.weight;
+    }
+
+    public long maxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Estimates the memory held by a cached result: the entry and its path, and the value
+     * if it is a string or the number of slots if it is a map, a collection or an array.
+     * Other values are shared with the document, so only the reference is counted.
+     */
+    static int weigh(String path, Object value) {
+        int weight = 64 + 2 * path.length();
+        if (value instanceof CharSequence) {
+            weight += 2 * ((CharSequence) value).length();
+        } else if (value instanceof Map) {
+            weight += 16 * ((Map<?, ?>) value).size();
+        } else if (value instanceof Collection) {
+            weight += 8 * ((Collection<?>) value).size();
+        } else if (Elements.isIndexed(value)) {
+            weight += 8 * Elements.size(value);
+        }
+        return weight;
+    }
+
+    @Override
+    public Object get(Object key) {
+        return generation.document.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return generation.document.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return generation.document.size();
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return document().entrySet();
+    }
+
+    /**
+     * One cached result
+     */
+    private static final class Entry {
+        final String path;
+        final Object value;
+        final int weight;
+        // set by reads, cleared by the clock hand
+        volatile boolean referenced;
+
+        Entry(String path, Object value, int weight) {
+            this.path = path;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * The results of one version of the document. Reads only touch the hash map,
+     * admissions and evictions go through the clock under the lock of the generation.
+     */
+    private final class Generation {
+        final Map<String, Object> document;
+        final ConcurrentHashMap<String, Entry> results = new ConcurrentHashMap<String, Entry>();
+        // the entries in clock order, the hand is the head
+        private final ArrayDeque<Entry> clock = new ArrayDeque<Entry>();
+        volatile long weight;
+
+        Generation(Map<String, Object> document) {
+            this.document = document;
+        }
+
+        synchronized void admit(Entry entry) {
+            if (entry.weight > maxWeight || results.containsKey(entry.path)) {
+                return;
+            }
+
+            long total = weight + entry.weight;
+            while (total > maxWeight) {
+                Entry candidate = clock.poll();
+                if (candidate.referenced) {
+                    // second chance
+                    candidate.referenced = false;
+                    clock.add(candidate);
+                } else {
+                    results.remove(candidate.path);
+                    total -= candidate.weight;
+                    evictions.increment();
+                }
+            }
+
+            results.put(entry.path, entry);
+            clock.add(entry);
+            weight = total;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.dotdot;
+
+/**
+ * Result of the non-throwing validators {@link DotDot#checkValue(DotPath, java.util.Map)}
+ * and {@link DotDot#checkEqual(DotPath, Object, java.util.Map)}
+ */
+public enum CheckResult {
+    /** the path has a value, or the expected value */
+    OK,
+    /** the path has no value, where mustHaveValue or mustEqual would throw */
+    MISSING,
+    /** the path has a value that is not the expected one, where mustEqual would throw */
+    NOT_EQUAL;
+
+    public boolean isOk() {
+        return this == OK;
+    }
+}
@@ -0,0 +1,314 @@
+package com.github.dotdot;
+
+import java.util.*;
+
+/**
+ * A Map for the small levels of nested documents. Up to eight entries are kept in one array
+ * of alternating keys and values and are found by a linear scan, which takes less memory than
+ * the table and the entry objects of a HashMap and is as fast for so few keys. A ninth key moves
+ * the entries into a HashMap that the map delegates to from then on.
+ * <pre>
+ *     Map&lt;String, Object&gt; doc = new CompactMap&lt;String, Object&gt;();
+ *     DotDot.put("user.address.city", "Berlin", doc, CompactMap.factory());
+ * </pre>
+ * Maps of a {@link #factory(KeyPool) factory} intern their keys, so documents built by the same
+ * factory share their key instances. Like HashMap, null keys and values are allowed.
+ * While the map is small it iterates in insertion order. Not thread safe.
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class CompactMap<K, V> extends AbstractMap<K, V> {
+
+    /**
+     * Number of entries kept in the array, more move the entries into a HashMap
+     */
+    public static final int MAX_COMPACT_SIZE = 8;
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private static final MapFactory SHARED_FACTORY = factory(KeyPool.shared());
+
+    // keys at even indexes, their values after them
+    private Object[] table;
+    private int size;
+    private HashMap<K, V> large;
+    private final KeyPool pool;
+
+    public CompactMap() {
+        this(0, null);
+    }
+
+    /**
+     * @param expectedSize number of keys the map is expected to get
+     */
+    public CompactMap(int expectedSize) {
+        this(expectedSize, null);
+    }
+
+    /**
+     * @param expectedSize number of keys the map is expected to get
+     * @param pool pool that the keys are interned in, or null
+     */
+    public CompactMap(int expectedSize, KeyPool pool) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize must not be negative: " + expectedSize);
+        }
+        this.pool = pool;
+        if (expectedSize > MAX_COMPACT_SIZE) {
+            this.table = EMPTY;
+            this.large = new HashMap<K, V>(MapFactories.capacity(expectedSize));
+        } else {
+            this.table = expectedSize == 0 ? EMPTY : new Object[2 * expectedSize];
+        }
+    }
+
+    /**
+     * @return a factory of CompactMaps that intern their keys in the {@link KeyPool#shared() shared pool}
+     */
+    public static MapFactory factory() {
+        return SHARED_FACTORY;
+    }
+
+    /**
+     * @return a factory of CompactMaps that intern their keys in the pool, null for none
+     */
+    public static MapFactory factory(final KeyPool pool) {
+        return new MapFactory() {
+            public <K> Map<K, Object> create(int expectedSize) {
+                return new CompactMap<K, Object>(expectedSize, pool);
+            }
+        };
+    }
+
+    /**
+     * @return the pool the keys are interned in, or null
+     */
+    KeyPool pool() {
+        return pool;
+    }
+
+    /**
+     * @return the index of the key in the table, -1 if it is not there
+     */
+    private int indexOf(Object key) {
+        Object[] table = this.table;
+        int end = 2 * size;
+        // interned keys are usually the same instance, so a pass by reference comes first
+        for (int i = 0; i < end; i += 2) {
+            if (table[i] == key) {
+                return i;
+            }
+        }
+        if (key != null) {
+            for (int i = 0; i < end; i += 2) {
+                if (key.equals(table[i])) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public V get(Object key) {
+        if (large != null) {
+            return large.get(key);
+        }
+        int i = indexOf(key);
+        return i < 0 ? null : (V) table[i + 1];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (large != null) {
+            return large.containsKey(key);
+        }
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        if (large != null) {
+            return large.put(intern(key), value);
+        }
+
+        int i = indexOf(key);
+        if (i >= 0) {
+            V old = (V) table[i + 1];
+            table[i + 1] = value;
+            return old;
+        }
+
+        if (size == MAX_COMPACT_SIZE) {
+            upgrade();
+            return large.put(intern(key), value);
+        }
+        if (2 * size == table.length) {
+            table = Arrays.copyOf(table, Math.max(4, Math.min(2 * table.length, 2 * MAX_COMPACT_SIZE)));
+        }
+        table[2 * size] = intern(key);
+        table[2 * size + 1] = value;
+        size++;
+        return null;
+    }
+
+    private K intern(K key) {
+        return pool == null ? key : pool.intern(key);
+    }
+
+    private void upgrade() {
+        HashMap<K, V> map = new HashMap<K, V>(MapFactories.capacity(2 * MAX_COMPACT_SIZE));
+        for (int i = 0; i < 2 * size; i += 2) {
+            map.put((K) table[i], (V) table[i + 1]);
+        }
+        large = map;
+        table = EMPTY;
+        size = 0;
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (large != null) {
+            return large.remove(key);
+        }
+
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        V old = (V) table[i + 1];
+        removeAt(i);
+        return old;
+    }
+
+    private void removeAt(int i) {
+        int end = 2 * size;
+        System.arraycopy(table, i + 2, table, i, end - i - 2);
+        table[end - 2] = null;
+        table[end - 1] = null;
+        size--;
+    }
+
+    @Override
+    public int size() {
+        return large != null ? large.size() : size;
+    }
+
+    @Override
+    public void clear() {
+        large = null;
+        table = EMPTY;
+        size = 0;
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<Map.Entry<K, V>>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                if (large != null) {
+                    return large.entrySet().iterator();
+                }
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return CompactMap.this.size();
+            }
+
+            @Override
+            public void clear() {
+                CompactMap.this.clear();
+            }
+        };
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        // index of the next entry in the table
+        private int next;
+        private int last = -1;
+
+        public boolean hasNext() {
+            return next < 2 * size;
+        }
+
+        public Map.Entry<K, V> next() {
+            if (large != null) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= 2 * size) {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next += 2;
+            return new TableEntry(last);
+        }
+
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            removeAt(last);
+            next = last;
+            last = -1;
+        }
+    }
+
+    /**
+     * An entry that reads and writes through to the table
+     */
+    private final class TableEntry implements Map.Entry<K, V> {
+        private final K key;
+        private final int index;
+
+        TableEntry(int index) {
+            this.key = (K) table[index];
+            this.index = index;
+        }
+
+        public K getKey() {
+            return key;
+        }
+
+        public V getValue() {
+            return current() ? (V) table[index + 1] : get(key);
+        }
+
+        public V setValue(V value) {
+            if (current()) {
+                V old = (V) table[index + 1];
+                table[index + 1] = value;
+                return old;
+            }
+            return put(key, value);
+        }
+
+        // whether the entry is still at its index
+        private boolean current() {
+            return large == null && index < 2 * size && table[index] == key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+            V value = getValue();
+            return (key == null ? other.getKey() == null : key.equals(other.getKey()))
+                    && (value == null ? other.getValue() == null : value.equals(other.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            V value = getValue();
+            return (key == null ? 0 : key.hashCode()) ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+}
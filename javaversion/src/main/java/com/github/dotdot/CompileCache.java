@@ -0,0 +1,165 @@
+package com.github.dotdot;
+
+import com.github.dotdot.converters.Converter;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Bounded cache of compiled paths, one per converter.
+ * Converters inside `com.github.dotdot.converters` are stateless, so all of their
+ * instances share one cache. Any other converter gets a cache of its own, at most
+ * {@link #MAX_CONVERTERS} of them are kept, so a new converter instance per call does not grow it without bound.
+ * When a cache is full it evicts like the CLOCK algorithm: a hand moves around the
+ * entries, entries that have been read since the hand last passed them get a second
+ * chance, so hot paths stay while one-off paths are dropped.
+ * @param <S> the source that gets compiled
+ * @param <T> the compiled type
+ */
+final class CompileCache<S, T> {
+
+    /**
+     * Maximum number of converters that have a cache, the caches of converters
+     * that are not used any more are dropped like one-off paths
+     */
+    static final int MAX_CONVERTERS = 64;
+
+    private static final ClassValue<Boolean> STATELESS = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return type.getPackage() == Converter.class.getPackage();
+        }
+    };
+
+    private final ConcurrentMap<Object, Segment<S, T>> caches = new ConcurrentHashMap<Object, Segment<S, T>>();
+    private Iterator<Segment<S, T>> hand;
+
+    /**
+     * @return the cached value or null
+     */
+    T get(S source, Converter<?> converter) {
+        Segment<S, T> segment = caches.get(owner(converter));
+        if (segment == null) {
+            return null;
+        }
+        if (!segment.referenced) {
+            segment.referenced = true;
+        }
+
+        Entry<T> entry = segment.entries.get(source);
+        if (entry == null) {
+            return null;
+        }
+
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        return entry.value;
+    }
+
+    /**
+     * Adds the compiled value, evicting one entry if there are already `capacity` of them
+     */
+    void put(S source, Converter<?> converter, T compiled, int capacity) {
+        Object owner = owner(converter);
+        Segment<S, T> segment = caches.get(owner);
+        if (segment == null) {
+            if (caches.size() >= MAX_CONVERTERS) {
+                evictSegment();
+            }
+            segment = new Segment<S, T>();
+            Segment<S, T> existing = caches.putIfAbsent(owner, segment);
+            if (existing != null) {
+                segment = existing;
+            }
+        }
+
+        if (segment.entries.size() >= capacity) {
+            segment.evict();
+        }
+        segment.entries.put(source, new Entry<T>(compiled));
+    }
+
+    void clear() {
+        caches.clear();
+    }
+
+    /**
+     * @return number of converters that have a cache
+     */
+    int converterCount() {
+        return caches.size();
+    }
+
+    /**
+     * Drops the cache of one converter like {@link Segment#evict()} drops an entry
+     */
+    private synchronized void evictSegment() {
+        int steps = 2 * caches.size() + 1;
+        while (steps-- > 0) {
+            if (hand == null || !hand.hasNext()) {
+                hand = caches.values().iterator();
+                if (!hand.hasNext()) {
+                    return;
+                }
+            }
+
+            Segment<S, T> segment = hand.next();
+            if (segment.referenced) {
+                segment.referenced = false;
+            } else {
+                hand.remove();
+                return;
+            }
+        }
+    }
+
+    private static Object owner(Converter<?> converter) {
+        Class<?> type = converter.getClass();
+        if (STATELESS.get(type)) {
+            return type;
+        }
+        return converter;
+    }
+
+    private static final class Segment<S, T> {
+        final ConcurrentMap<S, Entry<T>> entries = new ConcurrentHashMap<S, Entry<T>>();
+        private Iterator<Entry<T>> hand;
+        volatile boolean referenced;
+
+        /**
+         * Moves the hand until it finds an entry that has not been read since the hand
+         * last passed it and removes that entry. Read entries lose their mark and are kept.
+         */
+        synchronized void evict() {
+            // two full turns are enough, the first one clears every mark
+            int steps = 2 * entries.size() + 1;
+            while (steps-- > 0) {
+                if (hand == null || !hand.hasNext()) {
+                    hand = entries.values().iterator();
+                    if (!hand.hasNext()) {
+                        return;
+                    }
+                }
+
+                Entry<T> entry = hand.next();
+                if (entry.referenced) {
+                    entry.referenced = false;
+                } else {
+                    hand.remove();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class Entry<T> {
+        final T value;
+        volatile boolean referenced;
+
+        Entry(T value) {
+            this.value = value;
+        }
+    }
+}
@@ -1,12 +1,41 @@
 package com.github.dotdot;
 
 import com.github.dotdot.converters.Converter;
+import com.github.dotdot.converters.IntConverter;
+import com.github.dotdot.converters.IntKeyConverter;
+import com.github.dotdot.converters.LongConverter;
+import com.github.dotdot.converters.LongKeyConverter;
 import com.github.dotdot.converters.StringConverter;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class DotDot {
 
+    private static volatile DotDotMetrics metrics = DotDotMetrics.NOOP;
+
+    /**
+     * Installs the metrics that get, put, copyInclude, mergeNestedMaps and the must* validators report to.
+     * @param metrics the metrics, null to stop measuring
+     */
+    public static void setMetrics(DotDotMetrics metrics) {
+        DotDot.metrics = metrics == null ? DotDotMetrics.NOOP : metrics;
+    }
+
+    public static DotDotMetrics getMetrics() {
+        return metrics;
+    }
+
+    private static void record(DotDotMetrics metrics, DotDotMetrics.Operation operation, String path, int depth,
+                               long start, DotDotMetrics.Outcome outcome) {
+        metrics.record(operation, path, depth, System.nanoTime() - start, outcome);
+    }
+
     /**
      * Returns the value of last key
      * Keys should separated by dot in the format of keyLevel1.keyLevel2.keyLevelK
@@ -20,37 +49,160 @@ public class DotDot {
      * @throws IllegalStateException if your path is nested but your map value is not a Map
      */
     public static <K,V> V get(String path, Map<K,V> map, Converter<K> converter) {
+        DotDotMetrics metrics = DotDot.metrics;
+        if (metrics == DotDotMetrics.NOOP) {
+            return find(path, map, converter);
+        }
+
+        long start = System.nanoTime();
+        try {
+            V value = find(path, map, converter);
+            record(metrics, DotDotMetrics.Operation.GET, path, PathTokenizer.count(path), start,
+                    value == null ? DotDotMetrics.Outcome.MISS : DotDotMetrics.Outcome.HIT);
+            return value;
+        } catch (IllegalStateException e) {
+            record(metrics, DotDotMetrics.Operation.GET, path, PathTokenizer.count(path), start, DotDotMetrics.Outcome.FAILED);
+            throw e;
+        }
+    }
+
+    private static <K,V> V find(String path, Map<K,V> map, Converter<K> converter) {
         if (map == null) {
             return null;
         }
 
-        String[] keys = path.split("\\.");
-        Map<K,V> subMap = map;
+        if (map instanceof IndexedDocument && converter.getClass() == StringConverter.class) {
+            return (V) ((IndexedDocument) map).resolve(path);
+        }
+
+        // numeric paths are rarely repeated, so they are parsed in place instead of being cached.
+        // Only the exact classes, a subclass may override convert(String)
+        if (converter.getClass() == IntConverter.class) {
+            return walk(path, (Map<Object,V>) map, (IntKeyConverter) converter, null);
+        }
+        if (converter.getClass() == LongConverter.class) {
+            return walk(path, (Map<Object,V>) map, null, (LongKeyConverter) converter);
+        }
+
+        return find(DotPath.cached(path, converter), map);
+    }
+
+    /**
+     * Returns the value of last key of the compiled path, otherwise return null.
+     * @param path compiled path
+     * @param map your key/value map
+     * @param <K> the key type
+     * @param <V> the value type
+     * @throws IllegalStateException if your path is nested but your map value is not a Map
+     */
+    public static <K,V> V get(DotPath<K> path, Map<K,V> map) {
+        DotDotMetrics metrics = DotDot.metrics;
+        if (metrics == DotDotMetrics.NOOP) {
+            return find(path, map);
+        }
+
+        long start = System.nanoTime();
+        try {
+            V value = find(path, map);
+            record(metrics, DotDotMetrics.Operation.GET, path.path(), path.size(), start,
+                    value == null ? DotDotMetrics.Outcome.MISS : DotDotMetrics.Outcome.HIT);
+            return value;
+        } catch (IllegalStateException e) {
+            record(metrics, DotDotMetrics.Operation.GET, path.path(), path.size(), start, DotDotMetrics.Outcome.FAILED);
+            throw e;
+        }
+    }
+
+    /**
+     * {@link #get(DotPath, Map)} without metrics, for lookups that are part of another operation
+     */
+    static <K,V> V find(DotPath<K> path, Map<K,V> map) {
+        if (map instanceof IndexedDocument && path.isPlain()) {
+            return (V) ((IndexedDocument) map).resolve(path.path());
+        }
 
-        for (int i = 0; i < keys.length; i++) {
-            V value = subMap.get(converter.convert(keys[i]));
+        return walk(path, map);
+    }
+
+    /**
+     * Walks the map level by level, even if it is an {@link IndexedDocument}.
+     * Numeric segments index into lists and arrays on the way.
+     */
+    static <K,V> V walk(DotPath<K> path, Map<K,V> map) {
+        if (map == null) {
+            return null;
+        }
+        int last = path.size() - 1;
+        Object level = map;
+
+        for (int i = 0; i <= last; i++) {
+            Object value = level instanceof Map
+                    ? ((Map<K,?>) level).get(path.key(i))
+                    : Elements.get(level, path.index(i));
 
             // if this is the last key
             // just return the value of it
-            if (i == keys.length-1) {
-                return value;
+            if (i == last) {
+                return (V) value;
             }
 
             if (value == null) {
                 return null;
             }
 
-            if (value instanceof Map){
-                subMap = (Map<K,V>)value;
+            if (value instanceof Map || (path.index(i+1) >= 0 && Elements.isIndexed(value))) {
+                level = value;
             } else {
-                String remainingKey = join(keys, i+1);
-                throw new IllegalStateException("Cannot move deeper for these keys: " + remainingKey);
+                throw new IllegalStateException("Cannot move deeper for these keys: " + path.remaining(i+1));
             }
         }
 
         return null;
     }
 
+    /**
+     * Walks the map with the keys parsed straight from the path by one of the converters,
+     * the keys are indexes too when the walk meets a list or an array
+     */
+    private static <V> V walk(String path, Map<Object,V> map, IntKeyConverter ints, LongKeyConverter longs) {
+        PathTokenizer tokens = new PathTokenizer(path);
+        Object level = map;
+
+        while (tokens.next()) {
+            Object value;
+            if (ints != null) {
+                int key = ints.convertToInt(path, tokens.start(), tokens.end());
+                value = level instanceof Map ? ((Map<Object,?>) level).get(key) : index(level, key, tokens);
+            } else {
+                long key = longs.convertToLong(path, tokens.start(), tokens.end());
+                value = level instanceof Map ? ((Map<Object,?>) level).get(key) : index(level, key, tokens);
+            }
+
+            if (tokens.isLast()) {
+                return (V) value;
+            }
+
+            if (value == null) {
+                return null;
+            }
+
+            if (value instanceof Map || Elements.isIndexed(value)) {
+                level = value;
+            } else {
+                throw new IllegalStateException("Cannot move deeper for these keys: " + tokens.remaining());
+            }
+        }
+
+        return null;
+    }
+
+    private static Object index(Object list, long index, PathTokenizer tokens) {
+        if (index < 0 || index > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Cannot move deeper for these keys: " + tokens.path().subSequence(tokens.start(), tokens.path().length()));
+        }
+        return Elements.get(list, (int) index);
+    }
+
     /**
      * Ensures that the given path has some value
      * @param path nested keys that separated by dot(.)
@@ -69,6 +221,14 @@ public class DotDot {
         }
     }
 
+    /**
+     * Ensures that the given compiled path has some value
+     * @throws IllegalStateException if your path is nested but your map's value is not a Map
+     */
+    public static <K,V> boolean ensureHaveValue(DotPath<K> path, Map<K,V> map) {
+        return get(path, map) != null;
+    }
+
     /**
      * Ensures that all the given path has some value
      * @param paths a set of path
@@ -79,8 +239,24 @@ public class DotDot {
      * @throws IllegalStateException if your path is nested but your map's value is not a Map
      */
     public static <K,V> boolean ensureHaveValue(Set<String> paths, Map<K,V> map, Converter<K> converter) {
-        for(String path: paths) {
-            if (!ensureHaveValue(path, map, converter)) {
+        return DotPathSet.cached(paths, converter).allHaveValue(map);
+    }
+
+    /**
+     * Ensures that all paths of the set have some value, in one walk of the map
+     * @throws IllegalStateException if your path is nested but your map's value is not a Map
+     */
+    public static <K,V> boolean ensureHaveValue(DotPathSet<K> paths, Map<K,V> map) {
+        return paths.allHaveValue(map);
+    }
+
+    /**
+     * Ensures that all the given compiled paths have some value
+     * @throws IllegalStateException if your path is nested but your map's value is not a Map
+     */
+    public static <K,V> boolean ensureHaveValue(Collection<DotPath<K>> paths, Map<K,V> map) {
+        for(DotPath<K> path: paths) {
+            if (!ensureHaveValue(path, map)) {
                 return false;
             }
         }
@@ -88,6 +264,49 @@ public class DotDot {
         return true;
     }
 
+    /**
+     * Like {@link #mustHaveValue(DotPath, Map)} but returns the result instead of throwing,
+     * for hot paths where a missing value is common
+     * @return OK or MISSING
+     * @throws IllegalStateException if your path is nested but your map's value is not a Map
+     */
+    public static <K,V> CheckResult checkValue(DotPath<K> path, Map<K,V> map) {
+        return get(path, map) != null ? CheckResult.OK : CheckResult.MISSING;
+    }
+
+    public static <K,V> CheckResult checkValue(String path, Map<K,V> map, Converter<K> converter) {
+        return get(path, map, converter) != null ? CheckResult.OK : CheckResult.MISSING;
+    }
+
+    public static <V> CheckResult checkValue(String path, Map<String,V> map) {
+        return checkValue(path, map, StringConverter.INSTANCE);
+    }
+
+    /**
+     * Like {@link #mustEqual(DotPath, Object, Map)} but returns the result instead of throwing,
+     * for hot paths where a mismatch is common
+     * @return OK, MISSING or NOT_EQUAL
+     * @throws IllegalStateException if your path is nested but your map's value is not a Map
+     */
+    public static <K,V> CheckResult checkEqual(DotPath<K> path, V expected, Map<K,V> map) {
+        return compare(get(path, map), expected);
+    }
+
+    public static <K,V> CheckResult checkEqual(String path, V expected, Map<K,V> map, Converter<K> converter) {
+        return compare(get(path, map, converter), expected);
+    }
+
+    public static <V> CheckResult checkEqual(String path, V expected, Map<String,V> map) {
+        return checkEqual(path, expected, map, StringConverter.INSTANCE);
+    }
+
+    private static CheckResult compare(Object value, Object expected) {
+        if (value == null) {
+            return expected == null ? CheckResult.OK : CheckResult.MISSING;
+        }
+        return value.equals(expected) ? CheckResult.OK : CheckResult.NOT_EQUAL;
+    }
+
     /**
      * mustHaveValue is like `ensureHaveValue` method but it will throw exception if
      * the given path has not value
@@ -100,9 +319,27 @@ public class DotDot {
      * @throws NoValueException If the given path has not value
      */
     public static <K,V> void mustHaveValue(String path, Map<K,V> map, Converter<K> converter) throws NoValueException {
-        V value = get(path, map, converter);
-        if (value == null) {
-            throw new NoValueException(path + " value is missing");
+        mustHaveValue(DotPath.cached(path, converter), map);
+    }
+
+    /**
+     * @see #mustHaveValue(String, Map, Converter)
+     */
+    public static <K,V> void mustHaveValue(DotPath<K> path, Map<K,V> map) throws NoValueException {
+        DotDotMetrics metrics = DotDot.metrics;
+        long start = metrics == DotDotMetrics.NOOP ? 0 : System.nanoTime();
+        DotDotMetrics.Outcome outcome = DotDotMetrics.Outcome.FAILED;
+        try {
+            V value = find(path, map);
+            if (value == null) {
+                outcome = DotDotMetrics.Outcome.NO_VALUE;
+                throw NoValueException.missing(path, false);
+            }
+            outcome = DotDotMetrics.Outcome.HIT;
+        } finally {
+            if (metrics != DotDotMetrics.NOOP) {
+                record(metrics, DotDotMetrics.Operation.MUST_HAVE_VALUE, path.path(), path.size(), start, outcome);
+            }
         }
     }
 
@@ -118,24 +355,45 @@ public class DotDot {
      * @throws NotEqualException If the values mismatch
      */
     public static <K,V> void mustEqual(String path, V expected, Map<K,V> map, Converter<K> converter) throws NotEqualException {
-        V value = get(path, map, converter);
+        mustEqual(DotPath.cached(path, converter), expected, map);
+    }
 
-        if (value == null && expected == null) {
-            // match
-            return;
-        }
+    /**
+     * @see #mustEqual(String, Object, Map, Converter)
+     */
+    public static <K,V> void mustEqual(DotPath<K> path, V expected, Map<K,V> map) throws NotEqualException {
+        DotDotMetrics metrics = DotDot.metrics;
+        long start = metrics == DotDotMetrics.NOOP ? 0 : System.nanoTime();
+        DotDotMetrics.Outcome outcome = DotDotMetrics.Outcome.FAILED;
+        try {
+            V value = find(path, map);
 
-        if (value == null) {
-            throw new NotEqualException(String.format("Value of '%s' is missing", path));
-        }
+            if (value == null && expected == null) {
+                // match
+                outcome = DotDotMetrics.Outcome.HIT;
+                return;
+            }
 
-        if (!value.equals(expected)) {
-            throw new NotEqualException(String.format("Provided value is %s=%s but expected %s=%s", path, value, path, expected));
+            if (value == null) {
+                outcome = DotDotMetrics.Outcome.NOT_EQUAL;
+                throw NotEqualException.missing(path, false);
+            }
+
+            if (!value.equals(expected)) {
+                outcome = DotDotMetrics.Outcome.NOT_EQUAL;
+                throw NotEqualException.different(path, value, expected, false);
+            }
+            outcome = DotDotMetrics.Outcome.HIT;
+        } finally {
+            if (metrics != DotDotMetrics.NOOP) {
+                record(metrics, DotDotMetrics.Operation.MUST_EQUAL, path.path(), path.size(), start, outcome);
+            }
         }
     }
 
     /**
-     * Create a new Map that only contains keys inside `includes` list
+     * Create a new Map that only contains keys inside `includes` list.
+     * Paths that share a prefix are copied together in one walk of the map.
      */
     public static <K> Map<K, Object> copyInclude(Map<K, Object> map,
                                                  List<String> includes,
@@ -143,69 +401,146 @@ public class DotDot {
         if (map == null)
             return null;
 
-        Map<K, Object> result = null;
-        try {
-            result = map.getClass().newInstance();
-        } catch (Exception e) {
-            result = new HashMap<K, Object>(includes.size());
-        }
+        return copyInclude(map, DotPathSet.cached(includes, converter));
+    }
 
-        for(String path: includes) {
-            put(path, get(path, map, converter), result, converter);
+    /**
+     * Create a new Map that only contains the given compiled paths
+     */
+    @SafeVarargs
+    public static <K> Map<K, Object> copyInclude(Map<K, Object> map, DotPath<K>... includes) {
+        if (map == null)
+            return null;
+
+        return copyInclude(map, DotPathSet.of(Arrays.asList(includes)));
+    }
+
+    /**
+     * Create a new Map that only contains the paths of the set
+     */
+    public static <K> Map<K, Object> copyInclude(Map<K, Object> map, DotPathSet<K> includes) {
+        if (map == null)
+            return null;
+
+        return copyInclude(map, includes, MapFactory.sameAs(map));
+    }
+
+    /**
+     * Create a new Map that only contains the paths of the set, the maps are created by the factory
+     */
+    public static <K> Map<K, Object> copyInclude(Map<K, Object> map, DotPathSet<K> includes, MapFactory factory) {
+        DotDotMetrics metrics = DotDot.metrics;
+        if (metrics == DotDotMetrics.NOOP) {
+            return includes.copyInclude(map, factory);
         }
 
-        return result;
+        long start = System.nanoTime();
+        try {
+            Map<K, Object> copy = includes.copyInclude(map, factory);
+            record(metrics, DotDotMetrics.Operation.COPY_INCLUDE, null, 0, start, DotDotMetrics.Outcome.DONE);
+            return copy;
+        } catch (IllegalStateException e) {
+            record(metrics, DotDotMetrics.Operation.COPY_INCLUDE, null, 0, start, DotDotMetrics.Outcome.FAILED);
+            throw e;
+        }
     }
 
     public static Map<String, Object> copyInclude(Map<String, Object> map, List<String> includes) {
-        return copyInclude(map, includes, new StringConverter());
+        return copyInclude(map, includes, StringConverter.INSTANCE);
+    }
+
+    /**
+     * Create a new Map without the keys inside `excludes` list, which can contain `*` and `**` segments.
+     * Subtrees that no path reaches are shared with `map`, see {@link Projection}.
+     * Compile a Projection once instead when the same paths are excluded over and over.
+     */
+    public static Map<String, Object> copyExclude(Map<String, Object> map, List<String> excludes) {
+        if (map == null)
+            return null;
+
+        Projection.Builder<String> builder = Projection.builder();
+        for (String exclude : excludes) {
+            builder.exclude(exclude);
+        }
+        return builder.build().apply(map);
     }
 
     public static <K> void put(String path, Object value, Map<K,Object> map, Converter<K> converter) {
-        String[] keys = path.split("\\.");
+        put(DotPath.cached(path, converter), value, map);
+    }
+
+    /**
+     * Puts the value at the given compiled path, creating the missing levels on the way down.
+     * New levels are created by {@link MapFactory#sameAs(Map)} of `map`.
+     * The tree is walked once from the root to the parent of the last key.
+     * @throws IllegalStateException if your path is nested but your map's value is not a Map
+     */
+    public static <K> void put(DotPath<K> path, Object value, Map<K,Object> map) {
+        put(path, value, map, null);
+    }
 
-        if (keys.length == 1) {
-            map.put(converter.convert(keys[0]), value);
+    /**
+     * Like {@link #put(DotPath, Object, Map)}, new levels are created by the factory
+     */
+    public static <K> void put(DotPath<K> path, Object value, Map<K,Object> map, MapFactory factory) {
+        DotDotMetrics metrics = DotDot.metrics;
+        if (metrics == DotDotMetrics.NOOP) {
+            store(path, value, map, factory);
             return;
         }
 
-        Map<K, Object>[] maps = new Map[keys.length];
-        int size = maps.length;
-        String prevKey = "";
-
-        for (int i = 0; i < size; i++) {
+        long start = System.nanoTime();
+        try {
+            store(path, value, map, factory);
+            record(metrics, DotDotMetrics.Operation.PUT, path.path(), path.size(), start, DotDotMetrics.Outcome.DONE);
+        } catch (IllegalStateException e) {
+            record(metrics, DotDotMetrics.Operation.PUT, path.path(), path.size(), start, DotDotMetrics.Outcome.FAILED);
+            throw e;
+        }
+    }
 
-            if (i == 0) {
-                maps[i] = map;
-                continue;
-            }
+    private static <K> void store(DotPath<K> path, Object value, Map<K,Object> map, MapFactory factory) {
+        int last = path.size() - 1;
+        Map<K, Object> subMap = map;
+        boolean created = false;
 
-            if (prevKey.equals(""))
-                prevKey += keys[i-1];
-            else
-                prevKey += "." + keys[i-1];
+        for (int i = 0; i < last; i++) {
+            K key = path.key(i);
 
-            Object mapValue = get(prevKey, map, converter);
-            K key = converter.convert(keys[i - 1]);
+            // below a level that has just been created there is nothing to look up
+            Object mapValue = created ? null : subMap.get(key);
             if (mapValue == null) {
-                try {
-                    maps[i] = map.getClass().newInstance();
-                } catch (Exception e) {
-                    maps[i] = new HashMap<K, Object>();
+                if (factory == null) {
+                    factory = MapFactory.sameAs(map);
                 }
+                Map<K, Object> newMap = factory.create(0);
 
-                maps[i - 1].put(key, maps[i]);
+                subMap.put(key, newMap);
+                subMap = newMap;
+                created = true;
+            } else if (mapValue instanceof Map) {
+                subMap = (Map<K, Object>) mapValue;
             } else {
-                maps[i] = (Map)mapValue;
+                throw new IllegalStateException("Cannot move deeper for these keys: " + path.remaining(i+1));
             }
         }
 
-        maps[size-1].put(converter.convert(keys[size-1]), value);
+        subMap.put(path.key(last), value);
+    }
+
+    public static <K> void putIfNotNull(DotPath<K> path, Object value, Map<K,Object> map) {
+        if (value != null) {
+            put(path, value, map);
+        }
     }
 
     public static <K> void putAsArrayOfKeyValue(String path, Map<String, Object> value, Map<K,Object> map, Converter<K> converter) {
+        putAsArrayOfKeyValue(DotPath.cached(path, converter), value, map);
+    }
+
+    public static <K> void putAsArrayOfKeyValue(DotPath<K> path, Map<String, Object> value, Map<K,Object> map) {
         if (value == null) {
-            put(path, null, map, converter);
+            put(path, null, map);
             return;
         }
 
@@ -219,11 +554,14 @@ public class DotDot {
             ++counter;
         }
 
-        put(path, arrValue, map, converter);
+        put(path, arrValue, map);
     }
 
     public static void put(String path, Object value, Map<String,Object> map) {
-        put(path, value, map, new StringConverter());
+        put(path, value, map, StringConverter.INSTANCE);
+    }
+    public static void put(String path, Object value, Map<String,Object> map, MapFactory factory) {
+        put(DotPath.cached(path, StringConverter.INSTANCE), value, map, factory);
     }
     public static void putIfNotNull(String path, Object value, Map<String,Object> map) {
         if (value != null) {
@@ -231,220 +569,721 @@ public class DotDot {
         }
     }
     public static void putAsArrayOfKeyValue(String path, Map<String, Object> value, Map<String, Object> map) {
-        putAsArrayOfKeyValue(path, value, map, new StringConverter());
+        putAsArrayOfKeyValue(path, value, map, StringConverter.INSTANCE);
+    }
+
+    /**
+     * Removes the last key of the path from its parent map
+     * @return the removed value, null if the path had none
+     * @throws IllegalStateException if your path is nested but your map's value is not a Map
+     */
+    public static <K> Object remove(DotPath<K> path, Map<K,Object> map) {
+        int last = path.size() - 1;
+        Map<K, Object> subMap = map;
+
+        for (int i = 0; i < last; i++) {
+            Object value = subMap.get(path.key(i));
+            if (value == null) {
+                return null;
+            }
+            if (!(value instanceof Map)) {
+                throw new IllegalStateException("Cannot move deeper for these keys: " + path.remaining(i+1));
+            }
+            subMap = (Map<K, Object>) value;
+        }
+
+        return subMap.remove(path.key(last));
+    }
+
+    public static <K> Object remove(String path, Map<K,Object> map, Converter<K> converter) {
+        return remove(DotPath.cached(path, converter), map);
+    }
+
+    public static Object remove(String path, Map<String,Object> map) {
+        return remove(DotPath.cached(path, StringConverter.INSTANCE), map);
+    }
+
+    /**
+     * Compares two versions of a nested map and returns the changes that turn the old one into the new one.
+     * Both maps are walked once, nested maps that are the same instance in both are skipped
+     * without looking inside, so diffing versions that share their unchanged subtrees costs
+     * about as much as the changes. Values that are not maps are compared with equals.
+     * @param oldMap the old version, null is an empty map
+     * @param newMap the new version, null is an empty map
+     * @param <K> the key type
+     * @return SET for changed or new values, REMOVE for removed keys and REPLACE_SUBTREE
+     * for nested maps that are new or replace a value that was not a map
+     */
+    public static <K> List<PatchOperation<K>> diff(Map<K, Object> oldMap, Map<K, Object> newMap) {
+        return new MapDiffer<K>().diff(
+                oldMap == null ? Collections.<K, Object>emptyMap() : oldMap,
+                newMap == null ? Collections.<K, Object>emptyMap() : newMap);
+    }
+
+    /**
+     * Applies the changes of {@link #diff(Map, Map)} to the map in place.
+     * New levels and the copies of replaced subtrees are created by {@link MapFactory#sameAs(Map)} of `map`.
+     * @throws IllegalStateException if a path is nested but your map's value is not a Map
+     */
+    public static <K> void applyPatch(List<PatchOperation<K>> patch, Map<K, Object> map) {
+        applyPatch(patch, map, MapFactory.sameAs(map));
+    }
+
+    /**
+     * Like {@link #applyPatch(List, Map)}, new levels and the copies of replaced subtrees are created by the factory
+     */
+    public static <K> void applyPatch(List<PatchOperation<K>> patch, Map<K, Object> map, MapFactory factory) {
+        MapMerger copier = null;
+
+        for (PatchOperation<K> operation : patch) {
+            switch (operation.type()) {
+                case SET:
+                    put(operation.path(), operation.value(), map, factory);
+                    break;
+                case REMOVE:
+                    remove(operation.path(), map);
+                    break;
+                case REPLACE_SUBTREE:
+                    // the map must not share the subtree with the patch, later patches would change both
+                    if (copier == null) {
+                        copier = new MapMerger(factory, MergePolicy.LAST_WINS, false);
+                    }
+                    put(operation.path(), copier.detach(operation.value()), map, factory);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Puts the value at the given path of a tree of ConcurrentMaps, creating the missing levels with
+     * `computeIfAbsent`, so threads that write below the same missing level never lose each other's writes.
+     * New levels are instances of the same class as `map`, or ConcurrentHashMap if it cannot be instantiated.
+     * ConcurrentMaps do not accept null values, so a null value removes the last key.
+     * @throws IllegalStateException if your path is nested but your map's value is not a ConcurrentMap
+     */
+    public static <K> void putConcurrent(DotPath<K> path, Object value, ConcurrentMap<K,Object> map) {
+        putConcurrent(path, value, map, null);
+    }
+
+    /**
+     * Like {@link #putConcurrent(DotPath, Object, ConcurrentMap)}, new levels are created by the factory,
+     * which must create ConcurrentMaps
+     */
+    public static <K> void putConcurrent(DotPath<K> path, Object value, ConcurrentMap<K,Object> map, MapFactory factory) {
+        ConcurrentMap<K,Object> parent = concurrentParent(path, map, factory);
+        if (value == null) {
+            parent.remove(path.key(path.size() - 1));
+        } else {
+            parent.put(path.key(path.size() - 1), value);
+        }
+    }
+
+    public static <K> void putConcurrent(String path, Object value, ConcurrentMap<K,Object> map, Converter<K> converter) {
+        putConcurrent(DotPath.cached(path, converter), value, map);
+    }
+
+    public static void putConcurrent(String path, Object value, ConcurrentMap<String,Object> map) {
+        putConcurrent(path, value, map, StringConverter.INSTANCE);
+    }
+
+    /**
+     * Atomically replaces the value at the given path with the result of the function,
+     * see {@link ConcurrentMap#compute(Object, BiFunction)}. Missing levels are created like
+     * {@link #putConcurrent(DotPath, Object, ConcurrentMap)} does.
+     * The function gets the last key and the current value or null, returning null removes the key.
+     * @return the new value
+     * @throws IllegalStateException if your path is nested but your map's value is not a ConcurrentMap
+     */
+    public static <K> Object computeAtPath(DotPath<K> path, ConcurrentMap<K,Object> map,
+                                           BiFunction<? super K, Object, Object> function) {
+        return concurrentParent(path, map, null).compute(path.key(path.size() - 1), function);
+    }
+
+    public static <K> Object computeAtPath(String path, ConcurrentMap<K,Object> map, Converter<K> converter,
+                                           BiFunction<? super K, Object, Object> function) {
+        return computeAtPath(DotPath.cached(path, converter), map, function);
+    }
+
+    public static Object computeAtPath(String path, ConcurrentMap<String,Object> map,
+                                       BiFunction<? super String, Object, Object> function) {
+        return computeAtPath(path, map, StringConverter.INSTANCE, function);
+    }
+
+    /**
+     * Atomically puts the value at the given path, or combines it with the current value,
+     * see {@link ConcurrentMap#merge(Object, Object, BiFunction)}. Missing levels are created like
+     * {@link #putConcurrent(DotPath, Object, ConcurrentMap)} does.
+     * @return the new value
+     * @throws IllegalStateException if your path is nested but your map's value is not a ConcurrentMap
+     */
+    public static <K> Object mergeAtPath(DotPath<K> path, Object value, ConcurrentMap<K,Object> map,
+                                         BiFunction<Object, Object, Object> function) {
+        return concurrentParent(path, map, null).merge(path.key(path.size() - 1), value, function);
+    }
+
+    public static <K> Object mergeAtPath(String path, Object value, ConcurrentMap<K,Object> map, Converter<K> converter,
+                                         BiFunction<Object, Object, Object> function) {
+        return mergeAtPath(DotPath.cached(path, converter), value, map, function);
+    }
+
+    public static Object mergeAtPath(String path, Object value, ConcurrentMap<String,Object> map,
+                                     BiFunction<Object, Object, Object> function) {
+        return mergeAtPath(path, value, map, StringConverter.INSTANCE, function);
+    }
+
+    /**
+     * Atomically adds the delta to the number at the given path, a missing value counts as zero
+     * @return the new value
+     * @throws IllegalStateException if your path is nested but your map's value is not a ConcurrentMap
+     */
+    public static <K> long incrementAtPath(DotPath<K> path, long delta, ConcurrentMap<K,Object> map) {
+        return ((Number) mergeAtPath(path, delta, map, SUM)).longValue();
+    }
+
+    public static <K> long incrementAtPath(String path, long delta, ConcurrentMap<K,Object> map, Converter<K> converter) {
+        return incrementAtPath(DotPath.cached(path, converter), delta, map);
+    }
+
+    public static long incrementAtPath(String path, long delta, ConcurrentMap<String,Object> map) {
+        return incrementAtPath(path, delta, map, StringConverter.INSTANCE);
+    }
+
+    private static final BiFunction<Object, Object, Object> SUM = new BiFunction<Object, Object, Object>() {
+        public Object apply(Object existing, Object delta) {
+            return ((Number) existing).longValue() + ((Number) delta).longValue();
+        }
+    };
+
+    /**
+     * Walks down to the parent of the last key, creating the missing levels atomically
+     */
+    private static <K> ConcurrentMap<K,Object> concurrentParent(final DotPath<K> path, ConcurrentMap<K,Object> map, MapFactory factory) {
+        int last = path.size() - 1;
+        ConcurrentMap<K,Object> subMap = map;
+
+        for (int i = 0; i < last; i++) {
+            K key = path.key(i);
+
+            Object mapValue = subMap.get(key);
+            if (mapValue == null) {
+                final MapFactory levels = factory != null ? factory : MapFactory.sameAs(map);
+                final int depth = i;
+                // only one of the racing threads creates the level, the others get it.
+                // A level that is not a ConcurrentMap is refused before it is inserted
+                mapValue = subMap.computeIfAbsent(key, new Function<K,Object>() {
+                    public Object apply(K key) {
+                        Map<?,?> level = levels.create(0);
+                        if (!(level instanceof ConcurrentMap)) {
+                            throw new IllegalStateException("Cannot update concurrently below a map that is not a ConcurrentMap: " + path.remaining(depth+1));
+                        }
+                        return level;
+                    }
+                });
+            }
+
+            if (mapValue instanceof ConcurrentMap) {
+                subMap = (ConcurrentMap<K,Object>) mapValue;
+            } else if (mapValue instanceof Map) {
+                throw new IllegalStateException("Cannot update concurrently below a map that is not a ConcurrentMap: " + path.remaining(i+1));
+            } else {
+                throw new IllegalStateException("Cannot move deeper for these keys: " + path.remaining(i+1));
+            }
+        }
+
+        return subMap;
     }
 
     public static <V> boolean ensureHaveValue(String path, Map<String,V> map) {
-        return ensureHaveValue(path, map, new StringConverter());
+        return ensureHaveValue(path, map, StringConverter.INSTANCE);
     }
 
     public static <V> void mustHaveValue(String path, Map<String,V> map) throws NoValueException {
-        mustHaveValue(path, map, new StringConverter());
+        mustHaveValue(path, map, StringConverter.INSTANCE);
     }
 
     public static <V> void mustEqual(String path, V expected, Map<String,V> map) throws NotEqualException {
-        mustEqual(path, expected, map, new StringConverter());
+        mustEqual(path, expected, map, StringConverter.INSTANCE);
     }
 
     public static <V> String getString(String path, Map<String,V> map) {
-        return (String) get(path, map, new StringConverter());
+        return (String) get(path, map, StringConverter.INSTANCE);
     }
     public static <V> String getString(String path, Map<String,V> map, String defaultValue) {
-        String original = (String)get(path, map, new StringConverter());
+        String original = (String)get(path, map, StringConverter.INSTANCE);
         return original != null ? original : defaultValue;
     }
     public static <K,V> String getString(String path, Map<K,V> map, Converter<K> converter) {
         return (String) get(path, map, converter);
     }
+    public static <K,V> String getString(DotPath<K> path, Map<K,V> map) {
+        return (String) get(path, map);
+    }
+    public static <K,V> String getString(DotPath<K> path, Map<K,V> map, String defaultValue) {
+        String original = (String) get(path, map);
+        return original != null ? original : defaultValue;
+    }
 
     public static <V> Character getChar(String path, Map<String,V> map) {
-        return (Character) get(path, map, new StringConverter());
+        return (Character) get(path, map, StringConverter.INSTANCE);
     }
     public static <V> Character getChar(String path, Map<String,V> map, Character defaultValue) {
-        Character original = (Character) get(path, map, new StringConverter());
+        Character original = (Character) get(path, map, StringConverter.INSTANCE);
         return original != null ? original : defaultValue;
     }
     public static <K,V> Character getChar(String path, Map<K,V> map, Converter<K> converter) {
         return (Character) get(path, map, converter);
     }
+    public static <K,V> Character getChar(DotPath<K> path, Map<K,V> map) {
+        return (Character) get(path, map);
+    }
+    public static <K,V> Character getChar(DotPath<K> path, Map<K,V> map, Character defaultValue) {
+        Character original = (Character) get(path, map);
+        return original != null ? original : defaultValue;
+    }
 
     public static <V> Byte getByte(String path, Map<String,V> map) {
-        return getByte(path, map, new StringConverter());
+        return getByte(path, map, StringConverter.INSTANCE);
     }
     public static <V> Byte getByte(String path, Map<String,V> map, Byte defaultValue) {
-        Number original = (Number) get(path, map, new StringConverter());
+        Number original = (Number) get(path, map, StringConverter.INSTANCE);
         return original != null ? original.byteValue() : defaultValue;
     }
     public static <K,V> Byte getByte(String path, Map<K,V> map, Converter<K> converter) {
-        Number number = (Byte) get(path, map, converter);
+        Number number = (Number) get(path, map, converter);
+        return number != null ? number.byteValue() : null;
+    }
+    public static <K,V> Byte getByte(DotPath<K> path, Map<K,V> map) {
+        Number number = (Number) get(path, map);
         return number != null ? number.byteValue() : null;
     }
+    public static <K,V> Byte getByte(DotPath<K> path, Map<K,V> map, Byte defaultValue) {
+        Number original = (Number) get(path, map);
+        return original != null ? original.byteValue() : defaultValue;
+    }
 
     public static <V> Short getShort(String path, Map<String,V> map) {
-        return getShort(path, map, new StringConverter());
+        return getShort(path, map, StringConverter.INSTANCE);
     }
     public static <V> Short getShort(String path, Map<String,V> map, Short defaultValue) {
-        Number original = (Number) get(path, map, new StringConverter());
+        Number original = (Number) get(path, map, StringConverter.INSTANCE);
         return original != null ? original.shortValue() : defaultValue;
     }
     public static <K,V> Short getShort(String path, Map<K,V> map, Converter<K> converter) {
         Number number = (Number) get(path, map, converter);
         return number != null ? number.shortValue() : null;
     }
+    public static <K,V> Short getShort(DotPath<K> path, Map<K,V> map) {
+        Number number = (Number) get(path, map);
+        return number != null ? number.shortValue() : null;
+    }
+    public static <K,V> Short getShort(DotPath<K> path, Map<K,V> map, Short defaultValue) {
+        Number original = (Number) get(path, map);
+        return original != null ? original.shortValue() : defaultValue;
+    }
 
     public static <V> Integer getInt(String path, Map<String,V> map) {
-        return getInt(path, map, new StringConverter());
+        return getInt(path, map, StringConverter.INSTANCE);
     }
     public static <V> Integer getInt(String path, Map<String,V> map, Integer defaultValue) {
-        Number original = (Number) get(path, map, new StringConverter());
+        Number original = (Number) get(path, map, StringConverter.INSTANCE);
         return original != null ? original.intValue() : defaultValue;
     }
     public static <K,V> Integer getInt(String path, Map<K,V> map, Converter<K> converter) {
         Number number = (Number) get(path, map, converter);
         return number != null ? number.intValue() : null;
     }
+    public static <K,V> Integer getInt(DotPath<K> path, Map<K,V> map) {
+        Number number = (Number) get(path, map);
+        return number != null ? number.intValue() : null;
+    }
+    public static <K,V> Integer getInt(DotPath<K> path, Map<K,V> map, Integer defaultValue) {
+        Number original = (Number) get(path, map);
+        return original != null ? original.intValue() : defaultValue;
+    }
 
     public static <V> Long getLong(String path, Map<String,V> map) {
-        return getLong(path, map, new StringConverter());
+        return getLong(path, map, StringConverter.INSTANCE);
     }
     public static <V> Long getLong(String path, Map<String,V> map, Long defaultValue) {
-        Number original = (Number) get(path, map, new StringConverter());
+        Number original = (Number) get(path, map, StringConverter.INSTANCE);
         return original != null ? original.longValue() : defaultValue;
     }
     public static <K,V> Long getLong(String path, Map<K,V> map, Converter<K> converter) {
         Number number = (Number) get(path, map, converter);
         return number != null ? number.longValue() : null;
     }
+    public static <K,V> Long getLong(DotPath<K> path, Map<K,V> map) {
+        Number number = (Number) get(path, map);
+        return number != null ? number.longValue() : null;
+    }
+    public static <K,V> Long getLong(DotPath<K> path, Map<K,V> map, Long defaultValue) {
+        Number original = (Number) get(path, map);
+        return original != null ? original.longValue() : defaultValue;
+    }
 
     public static <V> Float getFloat(String path, Map<String,V> map) {
-        return getFloat(path, map, new StringConverter());
+        return getFloat(path, map, StringConverter.INSTANCE);
     }
     public static <V> Float getFloat(String path, Map<String,V> map, Float defaultValue) {
-        Number original = (Number) get(path, map, new StringConverter());
+        Number original = (Number) get(path, map, StringConverter.INSTANCE);
         return original != null ? original.floatValue() : defaultValue;
     }
     public static <K,V> Float getFloat(String path, Map<K,V> map, Converter<K> converter) {
         Number number = (Number) get(path, map, converter);
         return number != null ? number.floatValue() : null;
     }
+    public static <K,V> Float getFloat(DotPath<K> path, Map<K,V> map) {
+        Number number = (Number) get(path, map);
+        return number != null ? number.floatValue() : null;
+    }
+    public static <K,V> Float getFloat(DotPath<K> path, Map<K,V> map, Float defaultValue) {
+        Number original = (Number) get(path, map);
+        return original != null ? original.floatValue() : defaultValue;
+    }
 
     public static <V> Double getDouble(String path, Map<String,V> map) {
-        return getDouble(path, map, new StringConverter());
+        return getDouble(path, map, StringConverter.INSTANCE);
     }
     public static <V> Double getDouble(String path, Map<String,V> map, Double defaultValue) {
-        Number original = (Number) get(path, map, new StringConverter());
+        Number original = (Number) get(path, map, StringConverter.INSTANCE);
         return original != null ? original.doubleValue() : defaultValue;
     }
     public static <K,V> Double getDouble(String path, Map<K,V> map, Converter<K> converter) {
         Number number = (Number) get(path, map, converter);
         return number != null ? number.doubleValue() : null;
     }
+    public static <K,V> Double getDouble(DotPath<K> path, Map<K,V> map) {
+        Number number = (Number) get(path, map);
+        return number != null ? number.doubleValue() : null;
+    }
+    public static <K,V> Double getDouble(DotPath<K> path, Map<K,V> map, Double defaultValue) {
+        Number original = (Number) get(path, map);
+        return original != null ? original.doubleValue() : defaultValue;
+    }
+
+    /**
+     * Like getInt with a default value, but returns a primitive, so nothing is boxed on a hit or a miss
+     * @throws ClassCastException if the value is not a Number
+     */
+    public static <V> int getIntOrDefault(String path, Map<String,V> map, int defaultValue) {
+        return getIntOrDefault(path, map, StringConverter.INSTANCE, defaultValue);
+    }
+    public static <K,V> int getIntOrDefault(String path, Map<K,V> map, Converter<K> converter, int defaultValue) {
+        if (map == null) {
+            return defaultValue;
+        }
+        return getIntOrDefault(DotPath.cached(path, converter), map, defaultValue);
+    }
+    public static <K,V> int getIntOrDefault(DotPath<K> path, Map<K,V> map, int defaultValue) {
+        Number number = (Number) get(path, map);
+        return number != null ? number.intValue() : defaultValue;
+    }
+
+    /**
+     * Returns the value as OptionalInt, which is empty if the path has no value.
+     * The empty result is a shared instance, only a hit creates an object.
+     * @throws ClassCastException if the value is not a Number
+     */
+    public static <V> OptionalInt findInt(String path, Map<String,V> map) {
+        return findInt(path, map, StringConverter.INSTANCE);
+    }
+    public static <K,V> OptionalInt findInt(String path, Map<K,V> map, Converter<K> converter) {
+        if (map == null) {
+            return OptionalInt.empty();
+        }
+        return findInt(DotPath.cached(path, converter), map);
+    }
+    public static <K,V> OptionalInt findInt(DotPath<K> path, Map<K,V> map) {
+        Number number = (Number) get(path, map);
+        return number != null ? OptionalInt.of(number.intValue()) : OptionalInt.empty();
+    }
+
+    /**
+     * Like getLong with a default value, but returns a primitive, so nothing is boxed on a hit or a miss
+     * @throws ClassCastException if the value is not a Number
+     */
+    public static <V> long getLongOrDefault(String path, Map<String,V> map, long defaultValue) {
+        return getLongOrDefault(path, map, StringConverter.INSTANCE, defaultValue);
+    }
+    public static <K,V> long getLongOrDefault(String path, Map<K,V> map, Converter<K> converter, long defaultValue) {
+        if (map == null) {
+            return defaultValue;
+        }
+        return getLongOrDefault(DotPath.cached(path, converter), map, defaultValue);
+    }
+    public static <K,V> long getLongOrDefault(DotPath<K> path, Map<K,V> map, long defaultValue) {
+        Number number = (Number) get(path, map);
+        return number != null ? number.longValue() : defaultValue;
+    }
+
+    /**
+     * Returns the value as OptionalLong, which is empty if the path has no value.
+     * The empty result is a shared instance, only a hit creates an object.
+     * @throws ClassCastException if the value is not a Number
+     */
+    public static <V> OptionalLong findLong(String path, Map<String,V> map) {
+        return findLong(path, map, StringConverter.INSTANCE);
+    }
+    public static <K,V> OptionalLong findLong(String path, Map<K,V> map, Converter<K> converter) {
+        if (map == null) {
+            return OptionalLong.empty();
+        }
+        return findLong(DotPath.cached(path, converter), map);
+    }
+    public static <K,V> OptionalLong findLong(DotPath<K> path, Map<K,V> map) {
+        Number number = (Number) get(path, map);
+        return number != null ? OptionalLong.of(number.longValue()) : OptionalLong.empty();
+    }
+
+    /**
+     * Like getDouble with a default value, but returns a primitive, so nothing is boxed on a hit or a miss
+     * @throws ClassCastException if the value is not a Number
+     */
+    public static <V> double getDoubleOrDefault(String path, Map<String,V> map, double defaultValue) {
+        return getDoubleOrDefault(path, map, StringConverter.INSTANCE, defaultValue);
+    }
+    public static <K,V> double getDoubleOrDefault(String path, Map<K,V> map, Converter<K> converter, double defaultValue) {
+        if (map == null) {
+            return defaultValue;
+        }
+        return getDoubleOrDefault(DotPath.cached(path, converter), map, defaultValue);
+    }
+    public static <K,V> double getDoubleOrDefault(DotPath<K> path, Map<K,V> map, double defaultValue) {
+        Number number = (Number) get(path, map);
+        return number != null ? number.doubleValue() : defaultValue;
+    }
+
+    /**
+     * Returns the value as OptionalDouble, which is empty if the path has no value.
+     * The empty result is a shared instance, only a hit creates an object.
+     * @throws ClassCastException if the value is not a Number
+     */
+    public static <V> OptionalDouble findDouble(String path, Map<String,V> map) {
+        return findDouble(path, map, StringConverter.INSTANCE);
+    }
+    public static <K,V> OptionalDouble findDouble(String path, Map<K,V> map, Converter<K> converter) {
+        if (map == null) {
+            return OptionalDouble.empty();
+        }
+        return findDouble(DotPath.cached(path, converter), map);
+    }
+    public static <K,V> OptionalDouble findDouble(DotPath<K> path, Map<K,V> map) {
+        Number number = (Number) get(path, map);
+        return number != null ? OptionalDouble.of(number.doubleValue()) : OptionalDouble.empty();
+    }
 
     public static <V> Boolean getBoolean(String path, Map<String,V> map) {
-        return (Boolean) get(path, map, new StringConverter());
+        return (Boolean) get(path, map, StringConverter.INSTANCE);
     }
     public static <V> Boolean getBoolean(String path, Map<String,V> map, Boolean defaultValue) {
-        Boolean original = (Boolean) get(path, map, new StringConverter());
+        Boolean original = (Boolean) get(path, map, StringConverter.INSTANCE);
         return original != null ? original : defaultValue;
     }
     public static <K,V> Boolean getBoolean(String path, Map<K,V> map, Converter<K> converter) {
         return (Boolean) get(path, map, converter);
     }
+    public static <K,V> Boolean getBoolean(DotPath<K> path, Map<K,V> map) {
+        return (Boolean) get(path, map);
+    }
+    public static <K,V> Boolean getBoolean(DotPath<K> path, Map<K,V> map, Boolean defaultValue) {
+        Boolean original = (Boolean) get(path, map);
+        return original != null ? original : defaultValue;
+    }
 
     public static <V> Map<String,V> getMap(String path, Map<String,V> map) {
-        return (Map<String, V>) get(path, map, new StringConverter());
+        return (Map<String, V>) get(path, map, StringConverter.INSTANCE);
     }
     public static <K,V> Map<K,V> getMap(String path, Map<K,V> map, Converter<K> converter) {
         return (Map<K, V>) get(path, map, converter);
     }
+    public static <K,V> Map<K,V> getMap(DotPath<K> path, Map<K,V> map) {
+        return (Map<K, V>) get(path, map);
+    }
 
     public static <V> V get(String path, Map<String,V> map) {
-        return get(path, map, new StringConverter());
+        return get(path, map, StringConverter.INSTANCE);
     }
 
-    private static Set<String> getDotKey(Map<String, Object> map, String parent) {
-        Set<String> result = new HashSet<String>();
-        Set<Map.Entry<String, Object>> entries = map.entrySet();
-
-        for (Map.Entry<String, Object> entry: entries) {
-            if (entry.getValue() instanceof Map) {
-                result.addAll(getDotKey((Map)entry.getValue(), parent + "." + entry.getKey()));
-            } else {
-                result.add(parent + "." + entry.getKey());
-            }
-        }
+    /**
+     * Starts a bulk operation over a batch of documents, see {@link Bulk}
+     */
+    public static Bulk<String> bulk(List<Map<String, Object>> documents) {
+        return new Bulk<String>(documents, StringConverter.INSTANCE);
+    }
 
-        return result;
+    /**
+     * Starts a bulk operation over a batch of documents, see {@link Bulk}
+     * @param converter converter for converting string representation of the paths to your key type
+     */
+    public static <K> Bulk<K> bulk(List<Map<K, Object>> documents, Converter<K> converter) {
+        return new Bulk<K>(documents, converter);
     }
 
+    /**
+     * Returns the dot path of every leaf of the map. Empty nested maps have no leaves.
+     * @see #streamKeysInDotFormat(Map) to scan the paths without collecting them
+     */
     public static Set<String> getKeysInDotFormat(Map<String, Object> map) {
-        Set<String> result = new HashSet<String>();
+        final Set<String> result = new HashSet<String>();
         if (map == null || map.size() == 0) {
             return result;
         }
 
-        Set<Map.Entry<String, Object>> entries = map.entrySet();
-
-        for (Map.Entry<String, Object> entry: entries) {
-            if (entry.getValue() instanceof Map) {
-                result.addAll(getDotKey((Map)entry.getValue(), entry.getKey()));
-            } else {
-                result.add(entry.getKey());
+        new LeafWalker.DotKeySpliterator(map).forEachRemaining(new Consumer<String>() {
+            public void accept(String key) {
+                result.add(key);
             }
-        }
+        });
 
         return result;
     }
 
-    public static Map<String, Object> mergeNestedMaps(Map<String, Object> map1, Map<String, Object> map2) {
-        if (map1 == null) {
-            return map2;
+    /**
+     * Lazy alternative to {@link #getKeysInDotFormat(Map)}. Paths are produced one by one while
+     * the stream is consumed, so short-circuiting operations like findFirst or anyMatch stop
+     * walking the map. A parallel stream splits the work between the top level keys.
+     * The map must not be changed while the stream is consumed.
+     */
+    public static Stream<String> streamKeysInDotFormat(Map<?, ?> map) {
+        if (map == null) {
+            return Stream.empty();
         }
 
-        if (map2 == null) {
-            return map1;
+        return StreamSupport.stream(new LeafWalker.DotKeySpliterator(map), false);
+    }
+
+    /**
+     * Calls the action for every value that matches the path. A `*` segment matches every value of a map
+     * and every element of a list or an array, e.g. `items.*.price`. Numeric segments index
+     * into lists and arrays like {@link #get(DotPath, Map)} does.
+     * Branches that do not fit the path and null values are skipped, nothing is collected on the way.
+     * @param path nested keys that separated by dot(.), `*` matches any key or index
+     * @param map your key/value map
+     * @param action receives every matched value
+     */
+    public static void forEachMatch(String path, Map<String,?> map, Consumer<Object> action) {
+        forEachMatch(DotPath.cached(path, StringConverter.INSTANCE), map, action);
+    }
+
+    public static <K> void forEachMatch(String path, Map<K,?> map, Converter<K> converter, Consumer<Object> action) {
+        forEachMatch(pattern(path, converter), map, action);
+    }
+
+    public static <K> void forEachMatch(DotPath<K> path, Map<K,?> map, Consumer<Object> action) {
+        if (map != null) {
+            MatchWalker.forEach(path, map, 0, action);
         }
+    }
 
-        Map<String, Object> newMap = null;
-        try {
-            newMap = map1.getClass().newInstance();
-        } catch (Exception e) {
-            newMap = new HashMap<String, Object>();
+    /**
+     * Lazy alternative to {@link #forEachMatch(String, Map, Consumer)}. Matches are found one by one
+     * while the stream is consumed, so short-circuiting operations stop walking the map.
+     * The map must not be changed while the stream is consumed.
+     */
+    public static Stream<Object> streamMatches(String path, Map<String,?> map) {
+        return streamMatches(DotPath.cached(path, StringConverter.INSTANCE), map);
+    }
+
+    public static <K> Stream<Object> streamMatches(String path, Map<K,?> map, Converter<K> converter) {
+        return streamMatches(pattern(path, converter), map);
+    }
+
+    public static <K> Stream<Object> streamMatches(DotPath<K> path, Map<K,?> map) {
+        if (map == null) {
+            return Stream.empty();
         }
 
-        Set<String> keys1 = getKeysInDotFormat(map1);
-        for(String key: keys1) {
-            put(key, get(key, map1), newMap);
+        return StreamSupport.stream(new MatchWalker.MatchSpliterator<K>(path, map), false);
+    }
+
+    private static <K> DotPath<K> pattern(String path, Converter<K> converter) {
+        // only the StringConverter is sure to accept `*` as a key
+        if (converter.getClass() == StringConverter.class) {
+            return DotPath.cached(path, converter);
         }
+        return DotPath.compilePattern(path, converter);
+    }
 
-        Set<String> keys2 = getKeysInDotFormat(map2);
-        for(String key: keys2) {
-            put(key, get(key, map2), newMap);
+    /**
+     * Calls the visitor for every leaf of the map, depth first, without building dot paths.
+     * Empty nested maps have no leaves.
+     * @param map your key/value map
+     * @param visitor receives the keys of each leaf and its value, returns false to stop walking
+     * @param <K> the key type
+     * @return false if the visitor stopped the walk, otherwise true
+     */
+    public static <K> boolean walkLeaves(Map<K, ?> map, LeafVisitor<K> visitor) {
+        if (map == null) {
+            return true;
         }
 
-        return newMap;
+        return LeafWalker.walk(map, visitor);
     }
 
     /**
-     * Concat the items of string array together
-     * @param arr the array
-     * @param start The beginning index, inclusive.
-     * @param end The ending index, exclusive.
-     * @param separator separator
-     * @return
+     * Merges two nested maps into a new one, values of map2 win.
+     * The inputs are not changed and the result shares no nested map with them.
      */
-    private static String join(String[] arr, int start, int end, String separator) {
-        StringBuilder sb = new StringBuilder();
+    public static Map<String, Object> mergeNestedMaps(Map<String, Object> map1, Map<String, Object> map2) {
+        return mergeNestedMaps(map1, map2, MergePolicy.LAST_WINS, false);
+    }
 
-        for (int i = start; i < end; i++) {
-            sb.append(arr[i]);
-            sb.append(".");
+    /**
+     * Merges two nested maps into a new one. Nested maps that both inputs have are merged
+     * recursively, any other key that both inputs have is resolved by the policy.
+     * @param map1 the first map, new levels are created by {@link MapFactory#sameAs(Map)} of it
+     * @param map2 the second map
+     * @param policy decides the value of keys that both maps have
+     * @param <K> the key type
+     */
+    public static <K> Map<K, Object> mergeNestedMaps(Map<K, Object> map1, Map<K, Object> map2, MergePolicy policy) {
+        return mergeNestedMaps(map1, map2, policy, false);
+    }
+
+    /**
+     * Merges two nested maps into a new one.
+     * @param map1 the first map, new levels are created by {@link MapFactory#sameAs(Map)} of it
+     * @param map2 the second map
+     * @param policy decides the value of keys that both maps have
+     * @param shareSubtrees if true, nested maps that only one input has (or both have as the same instance)
+     *                      are put into the result as they are instead of being copied.
+     *                      This is much cheaper but changing them later changes both maps.
+     * @param <K> the key type
+     */
+    public static <K> Map<K, Object> mergeNestedMaps(Map<K, Object> map1, Map<K, Object> map2,
+                                                     MergePolicy policy, boolean shareSubtrees) {
+        if (map1 == null) {
+            return map2;
+        }
+
+        if (map2 == null) {
+            return map1;
         }
 
-        return sb.substring(0,sb.length()-1);
+        return mergeNestedMaps(map1, map2, policy, shareSubtrees, MapFactory.sameAs(map1));
     }
 
-    private static String join(String[] arr, int start) {
-        return join(arr, start, arr.length, ".");
+    /**
+     * Like {@link #mergeNestedMaps(Map, Map, MergePolicy, boolean)}, the result and its new levels are created by the factory
+     */
+    public static <K> Map<K, Object> mergeNestedMaps(Map<K, Object> map1, Map<K, Object> map2,
+                                                     MergePolicy policy, boolean shareSubtrees, MapFactory factory) {
+        if (map1 == null) {
+            return map2;
+        }
+
+        if (map2 == null) {
+            return map1;
+        }
+
+        DotDotMetrics metrics = DotDot.metrics;
+        if (metrics == DotDotMetrics.NOOP) {
+            return new MapMerger(factory, policy, shareSubtrees).merge(map1, map2);
+        }
+
+        long start = System.nanoTime();
+        Map<K, Object> merged = new MapMerger(factory, policy, shareSubtrees).merge(map1, map2);
+        record(metrics, DotDotMetrics.Operation.MERGE, null, 0, start, DotDotMetrics.Outcome.DONE);
+        return merged;
     }
 }
@@ -0,0 +1,53 @@
+package com.github.dotdot;
+
+/**
+ * Receives one record per DotDot operation, see {@link DotDot#setMetrics(DotDotMetrics)}.
+ * Implementations are called on the thread of the operation, so they must be thread safe and cheap.
+ * Nothing is measured while {@link #NOOP} is installed, which is the default.
+ * The java11 module has JfrMetrics, which emits Flight Recorder events.
+ * @see com.github.dotdot.metrics.InMemoryMetrics
+ */
+public interface DotDotMetrics {
+
+    /**
+     * The operations that are recorded
+     */
+    enum Operation {
+        GET, PUT, COPY_INCLUDE, MERGE, MUST_HAVE_VALUE, MUST_EQUAL
+    }
+
+    /**
+     * How an operation ended
+     */
+    enum Outcome {
+        /** a get found a value, or a validation passed */
+        HIT,
+        /** a get found no value */
+        MISS,
+        /** a put, copyInclude or merge finished */
+        DONE,
+        /** the operation threw {@link IllegalStateException} */
+        FAILED,
+        /** mustHaveValue threw {@link NoValueException} */
+        NO_VALUE,
+        /** mustEqual threw {@link NotEqualException} */
+        NOT_EQUAL
+    }
+
+    /**
+     * @param operation the operation
+     * @param path the dot path, or null for copyInclude and merge which have no single path
+     * @param depth number of keys of the path, 0 when there is no path
+     * @param nanos time the operation took
+     * @param outcome how the operation ended
+     */
+    void record(Operation operation, String path, int depth, long nanos, Outcome outcome);
+
+    /**
+     * Records nothing
+     */
+    DotDotMetrics NOOP = new DotDotMetrics() {
+        public void record(Operation operation, String path, int depth, long nanos, Outcome outcome) {
+        }
+    };
+}
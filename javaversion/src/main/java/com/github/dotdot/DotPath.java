@@ -0,0 +1,283 @@
+package com.github.dotdot;
+
+import com.github.dotdot.converters.Converter;
+
+import java.util.List;
+
+/**
+ * A dot separated path that has been parsed once and holds its keys
+ * already converted to the key type of the map.
+ * Compile a path once and reuse it instead of passing the same string
+ * to {@link DotDot} over and over.
+ * <pre>
+ *     DotPath&lt;String&gt; path = DotPath.compile("a.b.c", StringConverter.INSTANCE);
+ *     int c = DotDot.getInt(path, doc);
+ * </pre>
+ * Instances are immutable and can be shared between threads.
+ * @param <K> the key type
+ */
+public final class DotPath<K> {
+
+    /**
+     * Maximum number of compiled paths kept per converter by {@link #cached(String, Converter)}
+     */
+    public static final int DEFAULT_CACHE_CAPACITY = 1024;
+
+    private static final CompileCache<String, DotPath<?>> CACHE = new CompileCache<String, DotPath<?>>();
+
+    private static volatile int cacheCapacity = DEFAULT_CACHE_CAPACITY;
+
+    private final String path;
+    private final String[] segments;
+    private final K[] keys;
+    // whether every key is its segment, as the StringConverter does
+    private final boolean plain;
+    // the segments as list or array indexes, -1 if they are not one
+    private final int[] indexes;
+
+    private DotPath(String path, String[] segments, K[] keys) {
+        this.path = path;
+        this.segments = segments;
+        this.keys = keys;
+
+        boolean plain = true;
+        for (int i = 0; i < keys.length && plain; i++) {
+            plain = keys[i] == segments[i];
+        }
+        this.plain = plain;
+
+        this.indexes = new int[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            indexes[i] = parseIndex(segments[i]);
+        }
+    }
+
+    /**
+     * @return the segment as a non-negative int, or -1
+     */
+    private static int parseIndex(String segment) {
+        int length = segment.length();
+        // nine digits always fit in an int
+        if (length == 0 || length > 9) {
+            return -1;
+        }
+
+        int index = 0;
+        for (int i = 0; i < length; i++) {
+            char c = segment.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+
+    /**
+     * Parses the path and converts every key with the given converter
+     * @param path nested keys that separated by dot(.)
+     * @param converter converter for converting string representation of the path to your key type
+     * @param <K> the key type
+     */
+    public static <K> DotPath<K> compile(String path, Converter<K> converter) {
+        String[] segments = split(path);
+        K[] keys = (K[]) new Object[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            keys[i] = converter.convert(segments[i]);
+        }
+
+        return new DotPath<K>(path, segments, keys);
+    }
+
+    /**
+     * Builds a path from keys that are already converted, the segments are their string forms
+     */
+    static <K> DotPath<K> fromKeys(List<K> keys) {
+        int size = keys.size();
+        String[] segments = new String[size];
+        K[] array = (K[]) new Object[size];
+        StringBuilder path = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            array[i] = keys.get(i);
+            segments[i] = String.valueOf(array[i]);
+            if (i > 0) {
+                path.append('.');
+            }
+            path.append(segments[i]);
+        }
+
+        return new DotPath<K>(path.toString(), segments, array);
+    }
+
+    /**
+     * Like {@link #compile(String, Converter)} but leaves the keys of `*` segments null,
+     * so converters that cannot convert `*` can be used with wildcard paths
+     */
+    static <K> DotPath<K> compilePattern(String path, Converter<K> converter) {
+        String[] segments = split(path);
+        K[] keys = (K[]) new Object[segments.length];
+        for (int i = 0; i < segments.length; i++) {
+            keys[i] = "*".equals(segments[i]) ? null : converter.convert(segments[i]);
+        }
+
+        return new DotPath<K>(path, segments, keys);
+    }
+
+    /**
+     * Like {@link #compile(String, Converter)} but returns a previously compiled instance
+     * if there is one. The cache is bounded, see {@link #setCacheCapacity(int)}.
+     * @param path nested keys that separated by dot(.)
+     * @param converter converter for converting string representation of the path to your key type
+     * @param <K> the key type
+     */
+    public static <K> DotPath<K> cached(String path, Converter<K> converter) {
+        int capacity = cacheCapacity;
+        if (capacity <= 0) {
+            return compile(path, converter);
+        }
+
+        DotPath<K> compiled = (DotPath<K>) CACHE.get(path, converter);
+        if (compiled == null) {
+            compiled = compile(path, converter);
+            CACHE.put(path, converter, compiled, capacity);
+        }
+
+        return compiled;
+    }
+
+    /**
+     * Sets the maximum number of compiled paths (and compiled path sets) kept per converter.
+     * Zero disables the cache. Already cached paths are dropped.
+     */
+    public static void setCacheCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative: " + capacity);
+        }
+        cacheCapacity = capacity;
+        CACHE.clear();
+        DotPathSet.clearCache();
+    }
+
+    public static int getCacheCapacity() {
+        return cacheCapacity;
+    }
+
+    /**
+     * @return number of converters that have compiled paths in the cache
+     */
+    static int cachedConverterCount() {
+        return CACHE.converterCount();
+    }
+
+    /**
+     * Splits the path the same way `path.split("\\.")` does, without the regex engine
+     */
+    static String[] split(String path) {
+        String[] segments = new String[PathTokenizer.count(path)];
+        PathTokenizer tokens = new PathTokenizer(path);
+        for (int i = 0; tokens.next(); i++) {
+            segments[i] = tokens.segment();
+        }
+        return segments;
+    }
+
+    /**
+     * @return number of keys in this path
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * @return the converted key at the given level
+     */
+    public K key(int index) {
+        return keys[index];
+    }
+
+    /**
+     * @return the string representation of the key at the given level
+     */
+    public String segment(int index) {
+        return segments[index];
+    }
+
+    /**
+     * @return the path that this instance has been compiled from
+     */
+    public String path() {
+        return path;
+    }
+
+    /**
+     * @return the segment at the given level as an index into a list or an array, -1 if it is not a number
+     */
+    int index(int level) {
+        return indexes[level];
+    }
+
+    /**
+     * @return true if the segment at the given level is the wildcard `*`
+     */
+    boolean isWildcard(int level) {
+        return "*".equals(segments[level]);
+    }
+
+    /**
+     * @return true if every key is the string segment itself
+     */
+    boolean isPlain() {
+        return plain;
+    }
+
+    /**
+     * Concat the segments from the given level to the end
+     */
+    String remaining(int start) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = start; i < segments.length; i++) {
+            if (i > start) {
+                sb.append('.');
+            }
+            sb.append(segments[i]);
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DotPath)) {
+            return false;
+        }
+
+        DotPath<?> other = (DotPath<?>) o;
+        if (keys.length != other.keys.length) {
+            return false;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            Object key = keys[i];
+            Object otherKey = other.keys[i];
+            if (key == null ? otherKey != null : !key.equals(otherKey)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (K key : keys) {
+            hash = 31 * hash + (key == null ? 0 : key.hashCode());
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return path;
+    }
+}
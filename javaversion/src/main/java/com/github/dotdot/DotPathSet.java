@@ -0,0 +1,354 @@
+package com.github.dotdot;
+
+import com.github.dotdot.converters.Converter;
+
+import java.util.*;
+
+/**
+ * A set of paths compiled into a tree of their keys, so paths that share a prefix
+ * are resolved together. Reading 30 paths under `payload.user` looks up
+ * `payload` and `user` once instead of 30 times.
+ * <pre>
+ *     DotPathSet&lt;String&gt; paths = DotPathSet.compile(Arrays.asList("user.id", "user.name"), StringConverter.INSTANCE);
+ *     Object[] values = paths.extract(doc);
+ * </pre>
+ * Values are always reported by the index of their path in the compiled collection.
+ * Instances are immutable and can be shared between threads.
+ * @param <K> the key type
+ */
+public final class DotPathSet<K> {
+
+    private static final CompileCache<Collection<String>, DotPathSet<?>> CACHE =
+            new CompileCache<Collection<String>, DotPathSet<?>>();
+
+    private final DotPath<K>[] paths;
+    private final Node<K> root;
+
+    private DotPathSet(DotPath<K>[] paths) {
+        this.paths = paths;
+        this.root = new Node<K>(null, -1, -1);
+
+        for (int i = 0; i < paths.length; i++) {
+            DotPath<K> path = paths[i];
+            Node<K> node = root;
+            for (int level = 0; level < path.size(); level++) {
+                node.lastBelow = i;
+                node = node.child(path.key(level), level, i);
+            }
+            node.addTerminal(i);
+        }
+    }
+
+    /**
+     * Compiles the paths, every path is resolved through the {@link DotPath} cache
+     * @param paths nested keys that separated by dot(.)
+     * @param converter converter for converting string representation of the path to your key type
+     * @param <K> the key type
+     */
+    public static <K> DotPathSet<K> compile(Collection<String> paths, Converter<K> converter) {
+        DotPath<K>[] compiled = new DotPath[paths.size()];
+        int i = 0;
+        for (String path : paths) {
+            compiled[i++] = DotPath.cached(path, converter);
+        }
+
+        return new DotPathSet<K>(compiled);
+    }
+
+    /**
+     * Builds a set from already compiled paths
+     */
+    public static <K> DotPathSet<K> of(Collection<DotPath<K>> paths) {
+        return new DotPathSet<K>(paths.toArray(new DotPath[paths.size()]));
+    }
+
+    /**
+     * Like {@link #compile(Collection, Converter)} but returns a previously compiled instance
+     * for the same paths in the same iteration order if there is one.
+     * Shares its capacity with {@link DotPath#cached(String, Converter)}.
+     */
+    public static <K> DotPathSet<K> cached(Collection<String> paths, Converter<K> converter) {
+        int capacity = DotPath.getCacheCapacity();
+        if (capacity <= 0) {
+            return compile(paths, converter);
+        }
+
+        // values are reported by position, so equal Sets in a different order must not share an instance
+        List<String> ordered = paths instanceof List
+                ? (List<String>) paths
+                : new ArrayList<String>(paths);
+        DotPathSet<K> compiled = (DotPathSet<K>) CACHE.get(ordered, converter);
+        if (compiled == null) {
+            compiled = compile(ordered, converter);
+            // the caller may change its list later, so the cache keeps a copy of it
+            List<String> key = ordered == paths
+                    ? new ArrayList<String>(ordered)
+                    : ordered;
+            CACHE.put(key, converter, compiled, capacity);
+        }
+
+        return compiled;
+    }
+
+    static void clearCache() {
+        CACHE.clear();
+    }
+
+    /**
+     * @return number of paths in this set
+     */
+    public int size() {
+        return paths.length;
+    }
+
+    /**
+     * @return the path with the given index
+     */
+    public DotPath<K> path(int index) {
+        return paths[index];
+    }
+
+    /**
+     * Returns the values of all paths, in the order of the paths.
+     * A path without value gets null, like {@link DotDot#get(DotPath, Map)}, and numeric keys index into lists and arrays.
+     * @throws IllegalStateException if a path is nested but the map's value is not a Map
+     */
+    public Object[] extract(Map<K, ?> map) {
+        Object[] values = new Object[paths.length];
+        extract(map, values);
+        return values;
+    }
+
+    /**
+     * Like {@link #extract(Map)} but writes the values into the given array,
+     * which must have room for {@link #size()} values. Reuse the array to avoid allocation.
+     * @throws IllegalStateException if a path is nested but the map's value is not a Map
+     */
+    public void extract(Map<K, ?> map, Object[] values) {
+        Arrays.fill(values, 0, paths.length, null);
+        if (map != null) {
+            extract(root, map, values);
+        }
+    }
+
+    private void extract(Node<K> node, Object level, Object[] values) {
+        for (Node<K> child : node.children) {
+            Object value = lookup(child, level);
+
+            for (int terminal : child.terminals) {
+                values[terminal] = value;
+            }
+
+            if (child.children.length > 0 && value != null) {
+                extract(child, descend(child, value), values);
+            }
+        }
+    }
+
+    /**
+     * Ensures that all paths have some value, in one walk of the map
+     * @throws IllegalStateException if a path is nested but the map's value is not a Map
+     */
+    public boolean allHaveValue(Map<K, ?> map) {
+        if (map == null) {
+            return paths.length == 0;
+        }
+
+        // an empty path never has a value
+        if (root.terminals.length > 0) {
+            return false;
+        }
+
+        return allHaveValue(root, map);
+    }
+
+    private boolean allHaveValue(Node<K> node, Object level) {
+        for (Node<K> child : node.children) {
+            Object value = lookup(child, level);
+
+            if (value == null) {
+                return false;
+            }
+
+            if (child.children.length > 0 && !allHaveValue(child, descend(child, value))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Creates a new Map of the same class as `map` that only contains the paths of this set.
+     * Like {@link DotDot#copyInclude(Map, List, Converter)}, a path without value is put as null.
+     * Copying does not go through lists or arrays, a path has to end at them.
+     * @throws IllegalStateException if a path is nested but the map's value is not a Map
+     */
+    public Map<K, Object> copyInclude(Map<K, Object> map) {
+        if (map == null)
+            return null;
+
+        return copyInclude(map, MapFactory.sameAs(map));
+    }
+
+    /**
+     * Like {@link #copyInclude(Map)}, the result and its levels are created by the factory
+     */
+    public Map<K, Object> copyInclude(Map<K, Object> map, MapFactory factory) {
+        if (map == null)
+            return null;
+
+        Map<K, Object> result = factory.create(root.children.length);
+        copy(root, map, result, factory);
+        return result;
+    }
+
+    /**
+     * Puts the value of every path of `source` into `target`, in one walk of `source`.
+     * Missing levels of `target` are created like {@link DotDot#put(DotPath, Object, Map)} does.
+     * @throws IllegalStateException if a path is nested but the map's value is not a Map
+     */
+    public void copyInto(Map<K, ?> source, Map<K, Object> target) {
+        copy(root, source, target, MapFactory.sameAs(target));
+    }
+
+    /**
+     * Like {@link #copyInto(Map, Map)}, missing levels of `target` are created by the factory
+     */
+    public void copyInto(Map<K, ?> source, Map<K, Object> target, MapFactory factory) {
+        copy(root, source, target, factory);
+    }
+
+    private void copy(Node<K> node, Map<K, ?> source, Map<K, Object> target, MapFactory factory) {
+        copy(node, source, target, factory, -1);
+    }
+
+    /**
+     * @param after only the paths with a higher index are copied, the earlier ones were replaced
+     *              by a missing value that a later path put above them
+     */
+    private void copy(Node<K> node, Map<K, ?> source, Map<K, Object> target, MapFactory factory, int after) {
+        for (Node<K> child : node.children) {
+            int last = child.terminals.length > 0 ? child.terminals[child.terminals.length - 1] : -1;
+            if (last < after && child.lastBelow < after) {
+                continue;
+            }
+
+            Object value = source != null ? source.get(child.key) : null;
+            int childAfter = after;
+
+            if (last > after) {
+                target.put(child.key, value);
+
+                // the whole subtree has been copied, including the longer paths
+                if (value instanceof Map || child.children.length == 0) {
+                    continue;
+                }
+                // like separate puts, a missing value replaces the levels of the paths put before it
+                if (value == null) {
+                    if (last > child.lastBelow) {
+                        continue;
+                    }
+                    childAfter = last;
+                }
+            }
+
+            if (child.children.length == 0) {
+                continue;
+            }
+
+            Map<K, ?> subSource = value != null ? asMap(child, value) : null;
+            Object existing = target.get(child.key);
+            Map<K, Object> subTarget;
+            if (existing instanceof Map) {
+                subTarget = (Map<K, Object>) existing;
+            } else {
+                subTarget = factory.create(child.children.length);
+                target.put(child.key, subTarget);
+            }
+
+            copy(child, subSource, subTarget, factory, childAfter);
+        }
+    }
+
+    /**
+     * @return the value of the node's key in a map, or of its index in a list or an array
+     */
+    private Object lookup(Node<K> node, Object level) {
+        if (level instanceof Map) {
+            return ((Map<K, ?>) level).get(node.key);
+        }
+
+        int index = paths[node.path].index(node.depth);
+        if (index < 0) {
+            throw new IllegalStateException("Cannot move deeper for these keys: " + paths[node.path].remaining(node.depth));
+        }
+        return Elements.get(level, index);
+    }
+
+    /**
+     * Reading goes through lists and arrays like {@link DotDot#get(DotPath, Map)} does,
+     * a non-numeric key below one fails on {@link #lookup(Node, Object)}
+     */
+    private Object descend(Node<K> node, Object value) {
+        if (Elements.isIndexed(value)) {
+            return value;
+        }
+        return asMap(node, value);
+    }
+
+    private Map<K, ?> asMap(Node<K> node, Object value) {
+        if (value instanceof Map) {
+            return (Map<K, ?>) value;
+        }
+
+        throw new IllegalStateException("Cannot move deeper for these keys: " + paths[node.path].remaining(node.depth + 1));
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(paths);
+    }
+
+    /**
+     * One key of one or more paths
+     */
+    static final class Node<K> {
+        private static final int[] NO_TERMINALS = new int[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        final K key;
+        final int depth;
+        // index of a path that goes through this node, for error messages
+        final int path;
+        // indexes of the paths that end at this node
+        int[] terminals = NO_TERMINALS;
+        Node<K>[] children = NO_CHILDREN;
+        // index of the last path that goes below this node, -1 if none does
+        int lastBelow = -1;
+
+        Node(K key, int depth, int path) {
+            this.key = key;
+            this.depth = depth;
+            this.path = path;
+        }
+
+        Node<K> child(K key, int depth, int path) {
+            for (Node<K> child : children) {
+                if (key == null ? child.key == null : key.equals(child.key)) {
+                    return child;
+                }
+            }
+
+            Node<K> child = new Node<K>(key, depth, path);
+            children = Arrays.copyOf(children, children.length + 1);
+            children[children.length - 1] = child;
+            return child;
+        }
+
+        void addTerminal(int index) {
+            terminals = Arrays.copyOf(terminals, terminals.length + 1);
+            terminals[terminals.length - 1] = index;
+        }
+    }
+}
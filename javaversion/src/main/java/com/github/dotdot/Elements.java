@@ -0,0 +1,103 @@
+package com.github.dotdot;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the elements of the values that a path can index into: lists, object arrays and primitive arrays
+ */
+final class Elements {
+
+    private Elements() {
+    }
+
+    /**
+     * @return true if the value is a List or an array
+     */
+    static boolean isIndexed(Object value) {
+        return value instanceof List || (value != null && value.getClass().isArray());
+    }
+
+    /**
+     * @return number of elements of a List or an array
+     */
+    static int size(Object container) {
+        if (container instanceof List) {
+            return ((List<?>) container).size();
+        }
+        if (container instanceof Object[]) {
+            return ((Object[]) container).length;
+        }
+        return java.lang.reflect.Array.getLength(container);
+    }
+
+    /**
+     * @return the element at the index of a List or an array, null if the index is out of range
+     */
+    static Object get(Object container, int index) {
+        if (container instanceof List) {
+            List<?> list = (List<?>) container;
+            // List.get is O(1) for RandomAccess lists and walks from the nearest end for the others
+            return index < list.size() ? list.get(index) : null;
+        }
+        if (container instanceof Object[]) {
+            Object[] array = (Object[]) container;
+            return index < array.length ? array[index] : null;
+        }
+        if (index >= size(container)) {
+            return null;
+        }
+        if (container instanceof int[]) {
+            return ((int[]) container)[index];
+        }
+        if (container instanceof long[]) {
+            return ((long[]) container)[index];
+        }
+        if (container instanceof double[]) {
+            return ((double[]) container)[index];
+        }
+        if (container instanceof float[]) {
+            return ((float[]) container)[index];
+        }
+        if (container instanceof short[]) {
+            return ((short[]) container)[index];
+        }
+        if (container instanceof byte[]) {
+            return ((byte[]) container)[index];
+        }
+        if (container instanceof char[]) {
+            return ((char[]) container)[index];
+        }
+        return ((boolean[]) container)[index];
+    }
+
+    /**
+     * @return the elements of a List or an array, in order
+     */
+    static Iterator<?> iterator(final Object container) {
+        if (container instanceof List) {
+            return ((List<?>) container).iterator();
+        }
+
+        return new Iterator<Object>() {
+            private final int size = size(container);
+            private int next;
+
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            public Object next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return get(container, next++);
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
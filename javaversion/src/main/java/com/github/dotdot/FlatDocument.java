@@ -0,0 +1,329 @@
+package com.github.dotdot;
+
+import com.github.dotdot.converters.StringConverter;
+
+import java.util.*;
+
+/**
+ * An immutable, read optimized copy of a nested map. The leaves are stored in arrays
+ * sorted by their dot path, next to an open addressing hash index of every path,
+ * so resolving "a.b.c" is a single lookup instead of one hash lookup per level.
+ * <pre>
+ *     FlatDocument doc = FlatDocument.of(nestedMap);
+ *     int c = DotDot.getInt("a.b.c", doc);
+ * </pre>
+ * It is a read only Map itself: its nested maps are views over the same arrays, sorted by key.
+ * Nested maps of the source become levels, any other value is a leaf (an empty
+ * map becomes an empty leaf). Keys must not contain a dot.
+ */
+public final class FlatDocument extends AbstractMap<String, Object> implements IndexedDocument {
+
+    private final String[] leafPaths;
+    private final Object[] values;
+
+    // the branches are the nested maps, branch 0 is the document itself
+    private final String[] branchPaths;
+    private final int[] branchFrom;
+    private final int[] branchTo;
+    private final int[] branchSizes;
+    private final Branch[] branches;
+
+    // slot + 1 for a leaf, -(branch + 1) for a branch, 0 for an empty bucket
+    private final int[] index;
+
+    private FlatDocument(Builder builder) {
+        int leafCount = builder.leafPaths.size();
+        Integer[] order = new Integer[leafCount];
+        for (int i = 0; i < leafCount; i++) {
+            order[i] = i;
+        }
+        final List<String> unsortedPaths = builder.leafPaths;
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                return unsortedPaths.get(a).compareTo(unsortedPaths.get(b));
+            }
+        });
+
+        leafPaths = new String[leafCount];
+        values = new Object[leafCount];
+        for (int i = 0; i < leafCount; i++) {
+            leafPaths[i] = unsortedPaths.get(order[i]);
+            values[i] = builder.values.get(order[i]);
+        }
+
+        int branchCount = builder.branchPaths.size();
+        branchPaths = builder.branchPaths.toArray(new String[branchCount]);
+        branchSizes = new int[branchCount];
+        branchFrom = new int[branchCount];
+        branchTo = new int[branchCount];
+        branches = new Branch[branchCount];
+        for (int i = 0; i < branchCount; i++) {
+            branchSizes[i] = builder.branchSizes.get(i);
+            if (i == 0) {
+                branchTo[i] = leafCount;
+            } else {
+                // every path below "a.b" starts with "a.b." and '/' is the character right after '.'
+                branchFrom[i] = lowerBound(branchPaths[i] + '.');
+                branchTo[i] = lowerBound(branchPaths[i] + '/');
+            }
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(4, (leafCount + branchCount) * 2 - 1)) << 1;
+        index = new int[capacity];
+        for (int i = 0; i < leafCount; i++) {
+            insert(leafPaths[i], i + 1);
+        }
+        for (int i = 1; i < branchCount; i++) {
+            insert(branchPaths[i], -(i + 1));
+        }
+    }
+
+    /**
+     * Copies the nested map into a new FlatDocument
+     * @throws IllegalArgumentException if a key contains a dot
+     */
+    public static FlatDocument of(Map<String, ?> map) {
+        Builder builder = new Builder();
+        builder.addBranch("", 0, map);
+        return new FlatDocument(builder);
+    }
+
+    /**
+     * Returns the value at the path with the same semantics as {@link DotDot#get(String, Map)},
+     * nested maps are returned as read only views.
+     * @throws IllegalStateException if your path is nested but your map's value is not a Map
+     */
+    public Object resolve(String path) {
+        int slot = find(path);
+        if (slot > 0) {
+            return values[slot - 1];
+        }
+        if (slot < 0) {
+            return branch(-slot - 1);
+        }
+
+        // a miss, walk the levels to report it exactly like DotDot.get does
+        return DotDot.walk(DotPath.cached(path, StringConverter.INSTANCE), (Map<String, Object>) this);
+    }
+
+    /**
+     * @return number of leaves in the whole document
+     */
+    public int leafCount() {
+        return leafPaths.length;
+    }
+
+    private int find(String path) {
+        int mask = index.length - 1;
+        int bucket = spread(path.hashCode()) & mask;
+        while (true) {
+            int slot = index[bucket];
+            if (slot == 0) {
+                return 0;
+            }
+            String candidate = slot > 0 ? leafPaths[slot - 1] : branchPaths[-slot - 1];
+            if (candidate.equals(path)) {
+                return slot;
+            }
+            bucket = (bucket + 1) & mask;
+        }
+    }
+
+    private void insert(String path, int slot) {
+        int mask = index.length - 1;
+        int bucket = spread(path.hashCode()) & mask;
+        while (index[bucket] != 0) {
+            bucket = (bucket + 1) & mask;
+        }
+        index[bucket] = slot;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private int lowerBound(String path) {
+        int low = 0;
+        int high = leafPaths.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (leafPaths[middle].compareTo(path) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private Map<String, Object> branch(int branch) {
+        if (branch == 0) {
+            return this;
+        }
+
+        Branch view = branches[branch];
+        if (view == null) {
+            // racing threads create equal views, any of them is fine
+            view = new Branch(branch);
+            branches[branch] = view;
+        }
+        return view;
+    }
+
+    private Object child(int branch, Object key) {
+        if (!(key instanceof String) || ((String) key).indexOf('.') >= 0) {
+            return null;
+        }
+
+        String path = branch == 0 ? (String) key : branchPaths[branch] + '.' + key;
+        int slot = find(path);
+        if (slot > 0) {
+            return values[slot - 1];
+        }
+        return slot < 0 ? branch(-slot - 1) : null;
+    }
+
+    private boolean hasChild(int branch, Object key) {
+        if (!(key instanceof String) || ((String) key).indexOf('.') >= 0) {
+            return false;
+        }
+
+        String path = branch == 0 ? (String) key : branchPaths[branch] + '.' + key;
+        return find(path) != 0;
+    }
+
+    private Set<Entry<String, Object>> entries(final int branch) {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new ChildIterator(branch);
+            }
+
+            @Override
+            public int size() {
+                return branchSizes[branch];
+            }
+        };
+    }
+
+    @Override
+    public Object get(Object key) {
+        return child(0, key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return hasChild(0, key);
+    }
+
+    @Override
+    public int size() {
+        return branchSizes[0];
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return entries(0);
+    }
+
+    /**
+     * Walks the sorted leaves of a branch and reports each direct child once
+     */
+    private final class ChildIterator implements Iterator<Entry<String, Object>> {
+        private final int prefixLength;
+        private final int end;
+        private int next;
+
+        ChildIterator(int branch) {
+            this.prefixLength = branch == 0 ? 0 : branchPaths[branch].length() + 1;
+            this.next = branchFrom[branch];
+            this.end = branchTo[branch];
+        }
+
+        public boolean hasNext() {
+            return next < end;
+        }
+
+        public Entry<String, Object> next() {
+            if (next >= end) {
+                throw new NoSuchElementException();
+            }
+
+            String path = leafPaths[next];
+            int dot = path.indexOf('.', prefixLength);
+            if (dot < 0) {
+                Object value = values[next++];
+                return new SimpleImmutableEntry<String, Object>(path.substring(prefixLength), value);
+            }
+
+            String branchPath = path.substring(0, dot);
+            int branch = -find(branchPath) - 1;
+            next = branchTo[branch];
+            return new SimpleImmutableEntry<String, Object>(path.substring(prefixLength, dot), branch(branch));
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("FlatDocument is read only");
+        }
+    }
+
+    /**
+     * Read only view of a nested map
+     */
+    private final class Branch extends AbstractMap<String, Object> {
+        private final int branch;
+
+        Branch(int branch) {
+            this.branch = branch;
+        }
+
+        @Override
+        public Object get(Object key) {
+            return child(branch, key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return hasChild(branch, key);
+        }
+
+        @Override
+        public int size() {
+            return branchSizes[branch];
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return entries(branch);
+        }
+    }
+
+    private static final class Builder {
+        final List<String> leafPaths = new ArrayList<String>();
+        final List<Object> values = new ArrayList<Object>();
+        final List<String> branchPaths = new ArrayList<String>();
+        final List<Integer> branchSizes = new ArrayList<Integer>();
+
+        void addBranch(String path, int depth, Map<String, ?> map) {
+            branchPaths.add(path);
+            branchSizes.add(map.size());
+
+            for (Map.Entry<String, ?> entry : map.entrySet()) {
+                String key = entry.getKey();
+                if (key == null || key.indexOf('.') >= 0) {
+                    throw new IllegalArgumentException("FlatDocument keys must not be null or contain a dot: " + key);
+                }
+
+                // an empty key is a level of its own, so the root is told apart by its depth
+                String childPath = depth == 0 ? key : path + '.' + key;
+                Object value = entry.getValue();
+                if (value instanceof Map && !((Map<?, ?>) value).isEmpty()) {
+                    addBranch(childPath, depth + 1, (Map<String, ?>) value);
+                } else {
+                    leafPaths.add(childPath);
+                    values.add(value instanceof Map ? Collections.emptyMap() : value);
+                }
+            }
+        }
+    }
+}
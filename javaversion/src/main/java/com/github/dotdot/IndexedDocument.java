@@ -0,0 +1,14 @@
+package com.github.dotdot;
+
+/**
+ * A Map that resolves a whole dot path by itself. When DotDot is given such a map with
+ * string keys, it hands over the path instead of walking the map level by level.
+ */
+public interface IndexedDocument {
+
+    /**
+     * Returns the value at the path with the same semantics as {@link DotDot#get(String, java.util.Map)}
+     * @throws IllegalStateException if your path is nested but your map's value is not a Map
+     */
+    Object resolve(String path);
+}
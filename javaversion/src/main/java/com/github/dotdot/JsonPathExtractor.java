@@ -0,0 +1,772 @@
+package com.github.dotdot;
+
+import com.github.dotdot.converters.StringConverter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.*;
+
+/**
+ * Reads the values of a few paths straight from JSON bytes, without parsing the
+ * whole document into a Map. Objects that no path goes through are skipped without
+ * allocating anything and reading stops as soon as every path has been resolved.
+ * <pre>
+ *     JsonPathExtractor extractor = JsonPathExtractor.compile(Arrays.asList("hits.total", "took"));
+ *     Object[] values = extractor.extract(responseBytes);
+ * </pre>
+ * Paths and results follow {@link DotDot#get(String, Map)}: a missing key or a null on the way
+ * gives null, numeric keys index into arrays and any other value that is not an object on the way
+ * throws {@link IllegalStateException}. Array elements that no path goes through are skipped too.
+ * Numbers are returned as Long when they are integral and fit, as Double otherwise, objects as
+ * LinkedHashMap and arrays as ArrayList. When a key appears twice in an object the first one is used.
+ * Instances are immutable and can be shared between threads.
+ */
+public final class JsonPathExtractor {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int BUFFER_SIZE = 8192;
+
+    private final DotPath<String>[] paths;
+    private final Node root;
+    private final int nodeCount;
+
+    private JsonPathExtractor(DotPath<String>[] paths) {
+        this.paths = paths;
+        this.root = new Node(null, null, -1, -1, -1, 0);
+
+        int ids = 1;
+        for (int i = 0; i < paths.length; i++) {
+            DotPath<String> path = paths[i];
+            Node node = root;
+            for (int level = 0; level < path.size(); level++) {
+                Node child = node.find(path.key(level));
+                if (child == null) {
+                    child = node.add(new Node(path.key(level), path.key(level).getBytes(UTF_8), path.index(level), level, i, ids++));
+                }
+                node = child;
+            }
+            node.addTerminal(i);
+        }
+        this.nodeCount = ids;
+        root.countTerminals();
+    }
+
+    /**
+     * Compiles the paths, nested keys that separated by dot(.)
+     */
+    public static JsonPathExtractor compile(Collection<String> paths) {
+        DotPath<String>[] compiled = new DotPath[paths.size()];
+        int i = 0;
+        for (String path : paths) {
+            compiled[i++] = DotPath.cached(path, StringConverter.INSTANCE);
+        }
+
+        return new JsonPathExtractor(compiled);
+    }
+
+    /**
+     * @return number of paths
+     */
+    public int size() {
+        return paths.length;
+    }
+
+    /**
+     * @return the path with the given index
+     */
+    public String path(int index) {
+        return paths[index].path();
+    }
+
+    /**
+     * Returns the values of all paths, in the order of the paths
+     * @param json UTF-8 encoded JSON document
+     * @throws IllegalArgumentException if the JSON is malformed or is not an object
+     * @throws IllegalStateException if a path is nested but the document's value is not an object
+     */
+    public Object[] extract(byte[] json) {
+        return extract(json, 0, json.length);
+    }
+
+    /**
+     * Like {@link #extract(byte[])} for the JSON document in json[offset, offset + length)
+     */
+    public Object[] extract(byte[] json, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > json.length) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + length + ", array length " + json.length);
+        }
+
+        Parser parser = new Parser(json, offset, offset + length, null, null);
+        try {
+            return parser.parse();
+        } catch (IOException e) {
+            // there is no stream to fail
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Like {@link #extract(byte[])} for the bytes between the position and the limit of the buffer.
+     * The position of the buffer is not changed.
+     */
+    public Object[] extract(ByteBuffer json) {
+        if (json.hasArray()) {
+            int start = json.arrayOffset() + json.position();
+            return extract(json.array(), start, json.remaining());
+        }
+
+        Parser parser = new Parser(new byte[Math.min(BUFFER_SIZE, json.remaining())], 0, 0, null, json.duplicate());
+        try {
+            return parser.parse();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Like {@link #extract(byte[])} for a stream, which is read through a small buffer.
+     * Reading stops once all paths are resolved, so the stream may not be read to its end.
+     * The stream is not closed.
+     */
+    public Object[] extract(InputStream json) throws IOException {
+        return new Parser(new byte[BUFFER_SIZE], 0, 0, json, null).parse();
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(paths);
+    }
+
+    /**
+     * One key of one or more paths
+     */
+    private static final class Node {
+        private static final int[] NO_TERMINALS = new int[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        final String key;
+        final byte[] encodedKey;
+        // the key as an array index, -1 if it is not a number
+        final int index;
+        final int depth;
+        // index of a path that goes through this node, for error messages
+        final int path;
+        final int id;
+        // indexes of the paths that end at this node
+        int[] terminals = NO_TERMINALS;
+        Node[] children = NO_CHILDREN;
+        // number of paths that end at this node or below it
+        int subtreeTerminals;
+
+        Node(String key, byte[] encodedKey, int index, int depth, int path, int id) {
+            this.key = key;
+            this.encodedKey = encodedKey;
+            this.index = index;
+            this.depth = depth;
+            this.path = path;
+            this.id = id;
+        }
+
+        Node find(String key) {
+            for (Node child : children) {
+                if (child.key.equals(key)) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        Node find(byte[] bytes, int length) {
+            for (Node child : children) {
+                byte[] candidate = child.encodedKey;
+                if (candidate.length != length) {
+                    continue;
+                }
+                int i = 0;
+                while (i < length && candidate[i] == bytes[i]) {
+                    i++;
+                }
+                if (i == length) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        Node find(int index) {
+            for (Node child : children) {
+                if (child.index == index) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        Node add(Node child) {
+            children = Arrays.copyOf(children, children.length + 1);
+            children[children.length - 1] = child;
+            return child;
+        }
+
+        void addTerminal(int index) {
+            terminals = Arrays.copyOf(terminals, terminals.length + 1);
+            terminals[terminals.length - 1] = index;
+        }
+
+        int countTerminals() {
+            subtreeTerminals = terminals.length;
+            for (Node child : children) {
+                subtreeTerminals += child.countTerminals();
+            }
+            return subtreeTerminals;
+        }
+    }
+
+    /**
+     * State of one extraction
+     */
+    private final class Parser {
+        private byte[] buf;
+        private int pos;
+        private int limit;
+        private final InputStream stream;
+        private final ByteBuffer buffer;
+        // bytes of the input before buf[0], for error messages
+        private long consumed;
+
+        private byte[] scratch = new byte[64];
+        private int scratchLength;
+
+        private final Object[] values = new Object[paths.length];
+        private final boolean[] visited = new boolean[nodeCount];
+        // paths whose value is not known yet
+        private int pending = root.subtreeTerminals;
+
+        Parser(byte[] buf, int pos, int limit, InputStream stream, ByteBuffer buffer) {
+            this.buf = buf;
+            this.pos = pos;
+            this.limit = limit;
+            this.stream = stream;
+            this.buffer = buffer;
+            this.consumed = -pos;
+        }
+
+        Object[] parse() throws IOException {
+            if (pending == 0) {
+                return values;
+            }
+
+            int c = nextToken();
+            if (c == '{') {
+                object(root);
+            } else if (c == 'n') {
+                // like DotDot.get on a null map
+                literal("ull");
+            } else {
+                throw malformed("the document is not an object");
+            }
+            return values;
+        }
+
+        private void object(Node node) throws IOException {
+            int c = nextToken();
+            if (c != '}') {
+                while (true) {
+                    if (c != '"') {
+                        throw malformed("expected a key");
+                    }
+                    readString();
+                    Node child = node.find(scratch, scratchLength);
+                    expect(':');
+
+                    c = nextToken();
+                    if (child == null || visited[child.id]) {
+                        skipValue(c);
+                    } else {
+                        visited[child.id] = true;
+                        value(child, c);
+                        if (pending == 0) {
+                            return;
+                        }
+                    }
+
+                    c = nextToken();
+                    if (c == '}') {
+                        break;
+                    }
+                    if (c != ',') {
+                        throw malformed("expected ',' or '}'");
+                    }
+                    c = nextToken();
+                }
+            }
+
+            // the keys that did not show up have no value
+            for (Node child : node.children) {
+                if (!visited[child.id]) {
+                    visited[child.id] = true;
+                    pending -= child.subtreeTerminals;
+                }
+            }
+        }
+
+        private void value(Node node, int c) throws IOException {
+            if (node.terminals.length > 0) {
+                Object value = readValue(c);
+                for (int terminal : node.terminals) {
+                    values[terminal] = value;
+                }
+                if (node.children.length > 0 && value != null) {
+                    resolve(node, descend(node, value));
+                }
+                pending -= node.subtreeTerminals;
+                return;
+            }
+
+            if (c == '{') {
+                object(node);
+            } else if (c == '[') {
+                array(node);
+            } else if (c == 'n') {
+                literal("ull");
+                pending -= node.subtreeTerminals;
+            } else {
+                throw new IllegalStateException("Cannot move deeper for these keys: " + paths[node.path].remaining(node.depth + 1));
+            }
+        }
+
+        private void array(Node node) throws IOException {
+            for (Node child : node.children) {
+                if (child.index < 0) {
+                    throw new IllegalStateException("Cannot move deeper for these keys: " + paths[child.path].remaining(child.depth));
+                }
+            }
+
+            int c = nextToken();
+            if (c != ']') {
+                int index = 0;
+                while (true) {
+                    Node child = node.find(index++);
+                    if (child == null || visited[child.id]) {
+                        skipValue(c);
+                    } else {
+                        visited[child.id] = true;
+                        value(child, c);
+                        if (pending == 0) {
+                            return;
+                        }
+                    }
+
+                    c = nextToken();
+                    if (c == ']') {
+                        break;
+                    }
+                    if (c != ',') {
+                        throw malformed("expected ',' or ']'");
+                    }
+                    c = nextToken();
+                }
+            }
+
+            // the indexes past the end have no value
+            for (Node child : node.children) {
+                if (!visited[child.id]) {
+                    visited[child.id] = true;
+                    pending -= child.subtreeTerminals;
+                }
+            }
+        }
+
+        /**
+         * Resolves the longer paths in a value that had to be read anyway
+         */
+        private void resolve(Node node, Object level) {
+            for (Node child : node.children) {
+                Object value;
+                if (level instanceof Map) {
+                    value = ((Map<?, ?>) level).get(child.key);
+                } else if (child.index >= 0) {
+                    value = Elements.get(level, child.index);
+                } else {
+                    throw new IllegalStateException("Cannot move deeper for these keys: " + paths[child.path].remaining(child.depth));
+                }
+
+                for (int terminal : child.terminals) {
+                    values[terminal] = value;
+                }
+                if (child.children.length > 0 && value != null) {
+                    resolve(child, descend(child, value));
+                }
+            }
+        }
+
+        private Object descend(Node node, Object value) {
+            if (value instanceof List) {
+                return value;
+            }
+            return asMap(node, value);
+        }
+
+        private Map<?, ?> asMap(Node node, Object value) {
+            if (value instanceof Map) {
+                return (Map<?, ?>) value;
+            }
+
+            throw new IllegalStateException("Cannot move deeper for these keys: " + paths[node.path].remaining(node.depth + 1));
+        }
+
+        private Object readValue(int c) throws IOException {
+            switch (c) {
+                case '"':
+                    readString();
+                    return new String(scratch, 0, scratchLength, UTF_8);
+                case '{': {
+                    Map<String, Object> map = new LinkedHashMap<String, Object>();
+                    c = nextToken();
+                    if (c == '}') {
+                        return map;
+                    }
+                    while (true) {
+                        if (c != '"') {
+                            throw malformed("expected a key");
+                        }
+                        readString();
+                        String key = new String(scratch, 0, scratchLength, UTF_8);
+                        expect(':');
+                        Object value = readValue(nextToken());
+                        if (!map.containsKey(key)) {
+                            map.put(key, value);
+                        }
+
+                        c = nextToken();
+                        if (c == '}') {
+                            return map;
+                        }
+                        if (c != ',') {
+                            throw malformed("expected ',' or '}'");
+                        }
+                        c = nextToken();
+                    }
+                }
+                case '[': {
+                    List<Object> list = new ArrayList<Object>();
+                    c = nextToken();
+                    if (c == ']') {
+                        return list;
+                    }
+                    while (true) {
+                        list.add(readValue(c));
+                        c = nextToken();
+                        if (c == ']') {
+                            return list;
+                        }
+                        if (c != ',') {
+                            throw malformed("expected ',' or ']'");
+                        }
+                        c = nextToken();
+                    }
+                }
+                case 't':
+                    literal("rue");
+                    return Boolean.TRUE;
+                case 'f':
+                    literal("alse");
+                    return Boolean.FALSE;
+                case 'n':
+                    literal("ull");
+                    return null;
+                default:
+                    if (c == '-' || (c >= '0' && c <= '9')) {
+                        return readNumber(c);
+                    }
+                    throw malformed("unexpected character");
+            }
+        }
+
+        private Number readNumber(int first) throws IOException {
+            scratchLength = 0;
+            append((byte) first);
+            boolean integral = true;
+            int c;
+            while ((c = peek()) >= 0 && isNumberPart(c)) {
+                pos++;
+                if (c == '.' || c == 'e' || c == 'E') {
+                    integral = false;
+                }
+                append((byte) c);
+            }
+
+            int start = first == '-' ? 1 : 0;
+            // up to 18 digits always fit in a long
+            if (integral && scratchLength > start && scratchLength - start <= 18) {
+                long value = 0;
+                for (int i = start; i < scratchLength; i++) {
+                    int digit = scratch[i] - '0';
+                    if (digit < 0 || digit > 9) {
+                        throw malformed("invalid number");
+                    }
+                    value = value * 10 + digit;
+                }
+                return start == 1 ? -value : value;
+            }
+
+            String text = new String(scratch, 0, scratchLength, UTF_8);
+            try {
+                if (integral) {
+                    return Long.parseLong(text);
+                }
+            } catch (NumberFormatException e) {
+                // too big for a long
+            }
+            try {
+                return Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                throw malformed("invalid number " + text);
+            }
+        }
+
+        private boolean isNumberPart(int c) {
+            return (c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || c == '-' || c == '+';
+        }
+
+        /**
+         * Reads the rest of a string, after its opening quote, into the scratch buffer as UTF-8
+         */
+        private void readString() throws IOException {
+            scratchLength = 0;
+            while (true) {
+                if (pos == limit && !fill()) {
+                    throw malformed("unterminated string");
+                }
+                byte b = buf[pos++];
+                if (b == '"') {
+                    return;
+                }
+                if (b != '\\') {
+                    append(b);
+                    continue;
+                }
+
+                int escaped = read();
+                switch (escaped) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        append((byte) escaped);
+                        break;
+                    case 'b':
+                        append((byte) '\b');
+                        break;
+                    case 'f':
+                        append((byte) '\f');
+                        break;
+                    case 'n':
+                        append((byte) '\n');
+                        break;
+                    case 'r':
+                        append((byte) '\r');
+                        break;
+                    case 't':
+                        append((byte) '\t');
+                        break;
+                    case 'u':
+                        appendCodePoint(readUnicodeEscape());
+                        break;
+                    default:
+                        throw malformed("invalid escape");
+                }
+            }
+        }
+
+        private int readUnicodeEscape() throws IOException {
+            int unit = readHex();
+            if (Character.isHighSurrogate((char) unit)) {
+                // the low surrogate must follow as another escape
+                if (peek() == '\\') {
+                    pos++;
+                    if (read() != 'u') {
+                        throw malformed("invalid escape");
+                    }
+                    int low = readHex();
+                    if (Character.isLowSurrogate((char) low)) {
+                        return Character.toCodePoint((char) unit, (char) low);
+                    }
+                    appendCodePoint(unit);
+                    return low;
+                }
+            }
+            return unit;
+        }
+
+        private int readHex() throws IOException {
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                int c = read();
+                int digit = Character.digit(c, 16);
+                if (c < 0 || digit < 0) {
+                    throw malformed("invalid unicode escape");
+                }
+                value = (value << 4) | digit;
+            }
+            return value;
+        }
+
+        private void appendCodePoint(int codePoint) {
+            if (codePoint < 0x80) {
+                append((byte) codePoint);
+            } else if (codePoint < 0x800) {
+                append((byte) (0xC0 | (codePoint >> 6)));
+                append((byte) (0x80 | (codePoint & 0x3F)));
+            } else if (codePoint < 0x10000) {
+                append((byte) (0xE0 | (codePoint >> 12)));
+                append((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                append((byte) (0x80 | (codePoint & 0x3F)));
+            } else {
+                append((byte) (0xF0 | (codePoint >> 18)));
+                append((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                append((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                append((byte) (0x80 | (codePoint & 0x3F)));
+            }
+        }
+
+        private void append(byte b) {
+            if (scratchLength == scratch.length) {
+                scratch = Arrays.copyOf(scratch, scratch.length * 2);
+            }
+            scratch[scratchLength++] = b;
+        }
+
+        private void skipValue(int c) throws IOException {
+            switch (c) {
+                case '"':
+                    skipString();
+                    return;
+                case '{':
+                case '[':
+                    skipContainer();
+                    return;
+                case 't':
+                    literal("rue");
+                    return;
+                case 'f':
+                    literal("alse");
+                    return;
+                case 'n':
+                    literal("ull");
+                    return;
+                default:
+                    if (c != '-' && (c < '0' || c > '9')) {
+                        throw malformed("unexpected character");
+                    }
+                    while ((c = peek()) >= 0 && isNumberPart(c)) {
+                        pos++;
+                    }
+            }
+        }
+
+        private void skipString() throws IOException {
+            while (true) {
+                if (pos == limit && !fill()) {
+                    throw malformed("unterminated string");
+                }
+                byte b = buf[pos++];
+                if (b == '"') {
+                    return;
+                }
+                if (b == '\\') {
+                    if (read() < 0) {
+                        throw malformed("unterminated string");
+                    }
+                }
+            }
+        }
+
+        /**
+         * Skips an object or an array after its opening bracket, only strings are looked into
+         */
+        private void skipContainer() throws IOException {
+            int depth = 1;
+            while (true) {
+                if (pos == limit && !fill()) {
+                    throw malformed("unterminated object or array");
+                }
+                byte b = buf[pos++];
+                if (b == '"') {
+                    skipString();
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    if (--depth == 0) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        private void literal(String rest) throws IOException {
+            for (int i = 0; i < rest.length(); i++) {
+                if (read() != rest.charAt(i)) {
+                    throw malformed("invalid literal");
+                }
+            }
+        }
+
+        private void expect(char expected) throws IOException {
+            if (nextToken() != expected) {
+                throw malformed("expected '" + expected + "'");
+            }
+        }
+
+        private int nextToken() throws IOException {
+            while (true) {
+                if (pos == limit && !fill()) {
+                    return -1;
+                }
+                byte b = buf[pos++];
+                if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                    return b & 0xFF;
+                }
+            }
+        }
+
+        private int read() throws IOException {
+            if (pos == limit && !fill()) {
+                return -1;
+            }
+            return buf[pos++] & 0xFF;
+        }
+
+        private int peek() throws IOException {
+            if (pos == limit && !fill()) {
+                return -1;
+            }
+            return buf[pos] & 0xFF;
+        }
+
+        private boolean fill() throws IOException {
+            int read;
+            if (stream != null) {
+                read = stream.read(buf, 0, buf.length);
+            } else if (buffer != null && buffer.hasRemaining()) {
+                read = Math.min(buf.length, buffer.remaining());
+                buffer.get(buf, 0, read);
+            } else {
+                read = -1;
+            }
+
+            if (read <= 0) {
+                return false;
+            }
+            consumed += limit;
+            pos = 0;
+            limit = read;
+            return true;
+        }
+
+        private IllegalArgumentException malformed(String reason) {
+            return new IllegalArgumentException("Malformed JSON at byte " + (consumed + pos) + ": " + reason);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.dotdot;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A bounded pool of map keys, so equal keys of many documents share one instance.
+ * {@link CompactMap}s intern the keys they are given through their pool.
+ * Once the pool is full new keys are returned as they are, the pool never evicts,
+ * so it should hold the field names of the documents and not their values.
+ * Instances are thread safe.
+ */
+public final class KeyPool {
+
+    /**
+     * Default maximum number of keys of a pool
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final KeyPool SHARED = new KeyPool(DEFAULT_CAPACITY);
+
+    private final ConcurrentMap<Object, Object> keys = new ConcurrentHashMap<Object, Object>();
+    private final int capacity;
+
+    private KeyPool(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @param capacity maximum number of keys
+     */
+    public static KeyPool create(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        return new KeyPool(capacity);
+    }
+
+    /**
+     * @return the pool that {@link CompactMap#factory()} uses
+     */
+    public static KeyPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * @return the pooled instance that equals the key, the key itself if it is the first one or the pool is full
+     */
+    public <K> K intern(K key) {
+        if (key == null) {
+            return null;
+        }
+
+        Object pooled = keys.get(key);
+        if (pooled != null) {
+            return (K) pooled;
+        }
+        if (keys.size() >= capacity) {
+            return key;
+        }
+
+        pooled = keys.putIfAbsent(key, key);
+        return pooled == null ? key : (K) pooled;
+    }
+
+    /**
+     * @return number of pooled keys
+     */
+    public int size() {
+        return keys.size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,18 @@
+package com.github.dotdot;
+
+import java.util.List;
+
+/**
+ * Receives the leaves of a nested map, see {@link DotDot#walkLeaves(java.util.Map, LeafVisitor)}
+ * @param <K> the key type
+ */
+public interface LeafVisitor<K> {
+
+    /**
+     * @param path keys from the root down to the leaf. The same list is reused for
+     *             every leaf and is only valid during this call, copy it to keep it.
+     * @param value the value of the leaf
+     * @return true to continue, false to stop walking
+     */
+    boolean visit(List<K> path, Object value);
+}
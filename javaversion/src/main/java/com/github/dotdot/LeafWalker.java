@@ -0,0 +1,187 @@
+package com.github.dotdot;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Walks the leaves of a nested map depth first, without recursion and without
+ * collecting them. A leaf is any value that is not a Map, empty maps have no leaves.
+ * The only state is one iterator and one key (or one prefix length) per level.
+ */
+final class LeafWalker {
+
+    private LeafWalker() {
+    }
+
+    /**
+     * @return false if the visitor stopped the walk
+     */
+    static <K> boolean walk(Map<K, ?> map, LeafVisitor<K> visitor) {
+        PathView<K> path = new PathView<K>();
+        Iterator<? extends Map.Entry<K, ?>>[] iterators = new Iterator[8];
+        iterators[0] = map.entrySet().iterator();
+        int depth = 0;
+
+        while (depth >= 0) {
+            Iterator<? extends Map.Entry<K, ?>> iterator = iterators[depth];
+            if (!iterator.hasNext()) {
+                iterators[depth--] = null;
+                continue;
+            }
+
+            Map.Entry<K, ?> entry = iterator.next();
+            Object value = entry.getValue();
+            path.setKey(depth, entry.getKey());
+
+            if (value instanceof Map) {
+                if (++depth == iterators.length) {
+                    iterators = Arrays.copyOf(iterators, depth * 2);
+                }
+                iterators[depth] = ((Map<K, ?>) value).entrySet().iterator();
+            } else if (!visitor.visit(path, value)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Read only view over the keys of the current leaf
+     */
+    private static final class PathView<K> extends AbstractList<K> implements RandomAccess {
+        private Object[] keys = new Object[8];
+        private int size;
+
+        void setKey(int index, Object key) {
+            if (index == keys.length) {
+                keys = Arrays.copyOf(keys, index * 2);
+            }
+            keys[index] = key;
+            size = index + 1;
+        }
+
+        @Override
+        public K get(int index) {
+            if (index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return (K) keys[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Lazily produces the dot path of every leaf. All levels share one StringBuilder.
+     * It splits between the remaining top level entries, so a parallel stream
+     * hands whole top level branches to different threads.
+     */
+    static final class DotKeySpliterator implements Spliterator<String> {
+        private final StringBuilder path = new StringBuilder();
+        private Iterator<? extends Map.Entry<?, ?>>[] iterators = new Iterator[8];
+        private int[] prefixLengths = new int[8];
+        private int depth = -1;
+
+        // top level entries, either still behind an iterator or, after the first split, in an array
+        private Iterator<? extends Map.Entry<?, ?>> rootIterator;
+        private Object[] roots;
+        private int rootIndex;
+        private int rootEnd;
+
+        DotKeySpliterator(Map<?, ?> map) {
+            this.rootIterator = map.entrySet().iterator();
+        }
+
+        private DotKeySpliterator(Object[] roots, int rootIndex, int rootEnd) {
+            this.roots = roots;
+            this.rootIndex = rootIndex;
+            this.rootEnd = rootEnd;
+        }
+
+        public boolean tryAdvance(Consumer<? super String> action) {
+            while (true) {
+                Map.Entry<?, ?> entry;
+                int prefixLength;
+
+                if (depth < 0) {
+                    entry = nextRoot();
+                    if (entry == null) {
+                        return false;
+                    }
+                    prefixLength = 0;
+                } else {
+                    Iterator<? extends Map.Entry<?, ?>> iterator = iterators[depth];
+                    if (!iterator.hasNext()) {
+                        iterators[depth--] = null;
+                        continue;
+                    }
+                    entry = iterator.next();
+                    prefixLength = prefixLengths[depth];
+                }
+
+                path.setLength(prefixLength);
+                path.append(entry.getKey());
+                Object value = entry.getValue();
+
+                if (value instanceof Map) {
+                    path.append('.');
+                    push(((Map<?, ?>) value).entrySet().iterator(), path.length());
+                } else {
+                    action.accept(path.toString());
+                    return true;
+                }
+            }
+        }
+
+        private void push(Iterator<? extends Map.Entry<?, ?>> iterator, int prefixLength) {
+            if (++depth == iterators.length) {
+                iterators = Arrays.copyOf(iterators, depth * 2);
+                prefixLengths = Arrays.copyOf(prefixLengths, depth * 2);
+            }
+            iterators[depth] = iterator;
+            prefixLengths[depth] = prefixLength;
+        }
+
+        private Map.Entry<?, ?> nextRoot() {
+            if (roots == null) {
+                return rootIterator.hasNext() ? rootIterator.next() : null;
+            }
+            return rootIndex < rootEnd ? (Map.Entry<?, ?>) roots[rootIndex++] : null;
+        }
+
+        public Spliterator<String> trySplit() {
+            if (roots == null) {
+                List<Object> rest = new ArrayList<Object>();
+                while (rootIterator.hasNext()) {
+                    rest.add(rootIterator.next());
+                }
+                roots = rest.toArray();
+                rootIndex = 0;
+                rootEnd = roots.length;
+                rootIterator = null;
+            }
+
+            int remaining = rootEnd - rootIndex;
+            if (remaining < 2) {
+                return null;
+            }
+
+            int middle = rootIndex + remaining / 2;
+            DotKeySpliterator prefix = new DotKeySpliterator(roots, rootIndex, middle);
+            rootIndex = middle;
+            return prefix;
+        }
+
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        public int characteristics() {
+            return NONNULL;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.github.dotdot;
+
+import java.util.*;
+
+/**
+ * Compares two nested maps in one walk of both. Nested maps that are the same instance
+ * in both are skipped without looking inside, so a new version that shares its unchanged
+ * subtrees with the old one is compared in time proportional to what changed.
+ */
+final class MapDiffer<K> {
+
+    private final List<PatchOperation<K>> patch = new ArrayList<PatchOperation<K>>();
+    // keys from the root down to the level that is compared
+    private final List<K> keys = new ArrayList<K>();
+
+    List<PatchOperation<K>> diff(Map<K, Object> oldMap, Map<K, Object> newMap) {
+        compare(oldMap, newMap);
+        return patch;
+    }
+
+    private void compare(Map<K, Object> oldMap, Map<K, Object> newMap) {
+        for (Map.Entry<K, Object> entry : newMap.entrySet()) {
+            K key = entry.getKey();
+            Object newValue = entry.getValue();
+            Object oldValue = oldMap.get(key);
+            boolean existed = oldValue != null || oldMap.containsKey(key);
+
+            if (existed && oldValue == newValue) {
+                continue;
+            }
+
+            keys.add(key);
+            if (newValue instanceof Map) {
+                if (oldValue instanceof Map) {
+                    compare((Map<K, Object>) oldValue, (Map<K, Object>) newValue);
+                } else {
+                    patch.add(PatchOperation.replaceSubtree(path(), (Map<K, Object>) newValue));
+                }
+            } else if (!existed || oldValue instanceof Map || !equal(oldValue, newValue)) {
+                patch.add(PatchOperation.set(path(), newValue));
+            }
+            keys.remove(keys.size() - 1);
+        }
+
+        for (K key : oldMap.keySet()) {
+            if (!newMap.containsKey(key)) {
+                keys.add(key);
+                patch.add(PatchOperation.<K>remove(path()));
+                keys.remove(keys.size() - 1);
+            }
+        }
+    }
+
+    private DotPath<K> path() {
+        return DotPath.fromKeys(keys);
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
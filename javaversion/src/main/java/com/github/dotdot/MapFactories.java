@@ -0,0 +1,86 @@
+package com.github.dotdot;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * The factories behind {@link MapFactory}
+ */
+final class MapFactories {
+
+    private static final ClassValue<MapFactory> REFLECTIVE = new ClassValue<MapFactory>() {
+        @Override
+        protected MapFactory computeValue(Class<?> type) {
+            MapFactory fallback = ConcurrentMap.class.isAssignableFrom(type)
+                    ? MapFactory.CONCURRENT_HASH_MAP
+                    : MapFactory.HASH_MAP;
+            if (!Modifier.isPublic(type.getModifiers()) || Modifier.isAbstract(type.getModifiers())) {
+                return fallback;
+            }
+
+            try {
+                return new Reflective(type.getConstructor());
+            } catch (NoSuchMethodException e) {
+                return fallback;
+            }
+        }
+    };
+
+    private MapFactories() {
+    }
+
+    /**
+     * @return the HashMap capacity that holds the expected number of keys without resizing
+     */
+    static int capacity(int expectedSize) {
+        if (expectedSize < 3) {
+            return expectedSize + 1;
+        }
+        if (expectedSize < (1 << 30)) {
+            return (int) (expectedSize / 0.75f + 1.0f);
+        }
+        return Integer.MAX_VALUE;
+    }
+
+    static MapFactory reflective(Class<?> type) {
+        return REFLECTIVE.get(type);
+    }
+
+    static final class Sorted implements MapFactory {
+        private final Comparator<Object> comparator;
+        private final boolean concurrent;
+
+        Sorted(Comparator<?> comparator, boolean concurrent) {
+            this.comparator = (Comparator<Object>) comparator;
+            this.concurrent = concurrent;
+        }
+
+        public <K> Map<K, Object> create(int expectedSize) {
+            Comparator<K> order = (Comparator<K>) comparator;
+            return concurrent
+                    ? new ConcurrentSkipListMap<K, Object>(order)
+                    : new TreeMap<K, Object>(order);
+        }
+    }
+
+    private static final class Reflective implements MapFactory {
+        private final Constructor<?> constructor;
+
+        Reflective(Constructor<?> constructor) {
+            this.constructor = constructor;
+        }
+
+        public <K> Map<K, Object> create(int expectedSize) {
+            try {
+                return (Map<K, Object>) constructor.newInstance();
+            } catch (Exception e) {
+                throw new IllegalStateException("Cannot create an instance of " + constructor.getDeclaringClass().getName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.dotdot;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Creates the maps of the new levels when a method builds a nested structure,
+ * like {@link DotDot#put(DotPath, Object, Map, MapFactory)}, copyInclude or mergeNestedMaps.
+ * By default those methods use {@link #sameAs(Map)} of the input map.
+ * Implement it to create other maps, for example to presize them differently.
+ */
+public interface MapFactory {
+
+    /**
+     * @param expectedSize number of keys the map is expected to get, 0 if it is not known
+     * @param <K> the key type
+     * @return a new empty map
+     */
+    <K> Map<K, Object> create(int expectedSize);
+
+    MapFactory HASH_MAP = new MapFactory() {
+        public <K> Map<K, Object> create(int expectedSize) {
+            return expectedSize > 0
+                    ? new HashMap<K, Object>(MapFactories.capacity(expectedSize))
+                    : new HashMap<K, Object>();
+        }
+    };
+
+    MapFactory LINKED_HASH_MAP = new MapFactory() {
+        public <K> Map<K, Object> create(int expectedSize) {
+            return expectedSize > 0
+                    ? new LinkedHashMap<K, Object>(MapFactories.capacity(expectedSize))
+                    : new LinkedHashMap<K, Object>();
+        }
+    };
+
+    /**
+     * TreeMaps in the natural order of their keys, see {@link #treeMap(Comparator)}
+     */
+    MapFactory TREE_MAP = new MapFactory() {
+        public <K> Map<K, Object> create(int expectedSize) {
+            return new TreeMap<K, Object>();
+        }
+    };
+
+    MapFactory CONCURRENT_HASH_MAP = new MapFactory() {
+        public <K> Map<K, Object> create(int expectedSize) {
+            // unlike HashMap, ConcurrentHashMap takes the number of keys
+            return expectedSize > 0
+                    ? new ConcurrentHashMap<K, Object>(expectedSize)
+                    : new ConcurrentHashMap<K, Object>();
+        }
+    };
+
+    /**
+     * @return a factory of TreeMaps sorted by the comparator, null for the natural order
+     */
+    static MapFactory treeMap(Comparator<?> comparator) {
+        return comparator == null ? TREE_MAP : new MapFactories.Sorted(comparator, false);
+    }
+
+    /**
+     * @return a factory of ConcurrentSkipListMaps sorted by the comparator, null for the natural order
+     */
+    static MapFactory concurrentSkipListMap(Comparator<?> comparator) {
+        return new MapFactories.Sorted(comparator, true);
+    }
+
+    /**
+     * Returns a factory of maps of the same class as the given map. The built-in factories are used
+     * for the JDK maps, sorted maps keep their comparator and CompactMaps their KeyPool. Any other class is created through its
+     * public no-arg constructor, which is looked up once per class. Maps without one, like
+     * unmodifiable maps, get {@link #HASH_MAP}, or {@link #CONCURRENT_HASH_MAP} if they are concurrent.
+     */
+    static MapFactory sameAs(Map<?, ?> map) {
+        Class<?> type = map.getClass();
+        if (type == HashMap.class) {
+            return HASH_MAP;
+        }
+        if (type == LinkedHashMap.class) {
+            return LINKED_HASH_MAP;
+        }
+        if (type == ConcurrentHashMap.class) {
+            return CONCURRENT_HASH_MAP;
+        }
+        if (type == TreeMap.class) {
+            return treeMap(((TreeMap<?, ?>) map).comparator());
+        }
+        if (type == ConcurrentSkipListMap.class) {
+            return concurrentSkipListMap(((ConcurrentSkipListMap<?, ?>) map).comparator());
+        }
+        if (type == CompactMap.class) {
+            return CompactMap.factory(((CompactMap<?, ?>) map).pool());
+        }
+        return MapFactories.reflective(type);
+    }
+}
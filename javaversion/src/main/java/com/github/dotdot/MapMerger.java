@@ -0,0 +1,74 @@
+package com.github.dotdot;
+
+import java.util.Map;
+
+/**
+ * Merges two nested maps by walking both of them together, level by level
+ */
+final class MapMerger {
+
+    private final MapFactory factory;
+    private final MergePolicy policy;
+    private final boolean shareSubtrees;
+
+    /**
+     * @param factory creates the result and its levels
+     * @param policy resolves the keys that exist in both maps
+     * @param shareSubtrees whether subtrees that exist in only one map are put into
+     *                      the result as they are instead of being copied
+     */
+    MapMerger(MapFactory factory, MergePolicy policy, boolean shareSubtrees) {
+        this.factory = factory;
+        this.policy = policy;
+        this.shareSubtrees = shareSubtrees;
+    }
+
+    <K> Map<K, Object> merge(Map<K, Object> map1, Map<K, Object> map2) {
+        // the maps usually share most of their keys
+        Map<K, Object> result = factory.create(Math.max(map1.size(), map2.size()));
+
+        for (Map.Entry<K, Object> entry : map1.entrySet()) {
+            K key = entry.getKey();
+            Object value1 = entry.getValue();
+            Object value2 = map2.get(key);
+
+            if (value2 == null && !map2.containsKey(key)) {
+                result.put(key, detach(value1));
+            } else if (value1 instanceof Map && value2 instanceof Map) {
+                if (value1 == value2 && shareSubtrees) {
+                    result.put(key, value1);
+                } else {
+                    result.put(key, merge((Map<K, Object>) value1, (Map<K, Object>) value2));
+                }
+            } else {
+                result.put(key, detach(policy.resolve(key, value1, value2)));
+            }
+        }
+
+        for (Map.Entry<K, Object> entry : map2.entrySet()) {
+            if (!map1.containsKey(entry.getKey())) {
+                result.put(entry.getKey(), detach(entry.getValue()));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Nested maps of the inputs are copied unless sharing is allowed,
+     * so changing the result never changes the inputs
+     */
+    Object detach(Object value) {
+        if (shareSubtrees || !(value instanceof Map)) {
+            return value;
+        }
+
+        Map<Object, Object> source = (Map<Object, Object>) value;
+        Map<Object, Object> copy = factory.create(source.size());
+        for (Map.Entry<Object, Object> entry : source.entrySet()) {
+            copy.put(entry.getKey(), detach(entry.getValue()));
+        }
+
+        return copy;
+    }
+}
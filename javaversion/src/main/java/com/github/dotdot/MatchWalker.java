@@ -0,0 +1,156 @@
+package com.github.dotdot;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Finds the values of a path with `*` segments. A `*` matches every value of a map
+ * and every element of a list or an array, a numeric segment indexes into lists and arrays.
+ * Branches that do not fit the path, like a missing key or a leaf where the path goes on,
+ * are skipped and so are null values. Matches are produced while walking,
+ * nothing is collected on the way.
+ */
+final class MatchWalker {
+
+    private MatchWalker() {
+    }
+
+    /**
+     * Calls the action for every match, depth first
+     */
+    static <K> void forEach(DotPath<K> path, Object level, int depth, Consumer<Object> action) {
+        boolean last = depth == path.size() - 1;
+
+        if (path.isWildcard(depth)) {
+            Iterator<?> values = candidates(level);
+            if (values == null) {
+                return;
+            }
+            while (values.hasNext()) {
+                accept(path, values.next(), depth, last, action);
+            }
+        } else {
+            accept(path, child(path, level, depth), depth, last, action);
+        }
+    }
+
+    private static <K> void accept(DotPath<K> path, Object value, int depth, boolean last, Consumer<Object> action) {
+        if (value == null) {
+            return;
+        }
+        if (last) {
+            action.accept(value);
+        } else {
+            forEach(path, value, depth + 1, action);
+        }
+    }
+
+    /**
+     * @return every value of a map or every element of a list or an array, null for any other value
+     */
+    private static Iterator<?> candidates(Object level) {
+        if (level instanceof Map) {
+            return ((Map<?, ?>) level).values().iterator();
+        }
+        if (Elements.isIndexed(level)) {
+            return Elements.iterator(level);
+        }
+        return null;
+    }
+
+    /**
+     * @return the value of the key at the given depth, null if the level has none
+     */
+    private static <K> Object child(DotPath<K> path, Object level, int depth) {
+        if (level instanceof Map) {
+            return ((Map<?, ?>) level).get(path.key(depth));
+        }
+        int index = path.index(depth);
+        if (index >= 0 && Elements.isIndexed(level)) {
+            return Elements.get(level, index);
+        }
+        return null;
+    }
+
+    /**
+     * Produces the matches one by one, with one iterator or one pending value per level of the path
+     */
+    static final class MatchSpliterator<K> implements Spliterator<Object> {
+        private static final Object NONE = new Object();
+
+        private final DotPath<K> path;
+        private final Iterator<?>[] iterators;
+        private final Object[] pending;
+        private int depth;
+
+        MatchSpliterator(DotPath<K> path, Object root) {
+            this.path = path;
+            this.iterators = new Iterator[path.size()];
+            this.pending = new Object[path.size()];
+            open(0, root);
+        }
+
+        private void open(int depth, Object level) {
+            this.depth = depth;
+            if (path.isWildcard(depth)) {
+                iterators[depth] = candidates(level);
+                pending[depth] = NONE;
+            } else {
+                iterators[depth] = null;
+                pending[depth] = child(path, level, depth);
+            }
+        }
+
+        private Object next() {
+            Iterator<?> iterator = iterators[depth];
+            if (iterator != null) {
+                if (iterator.hasNext()) {
+                    return iterator.next();
+                }
+                iterators[depth] = null;
+                return NONE;
+            }
+
+            Object value = pending[depth];
+            pending[depth] = NONE;
+            return value;
+        }
+
+        public boolean tryAdvance(Consumer<? super Object> action) {
+            int last = path.size() - 1;
+
+            while (depth >= 0) {
+                Object value = next();
+                if (value == NONE) {
+                    depth--;
+                    continue;
+                }
+                if (value == null) {
+                    continue;
+                }
+
+                if (depth == last) {
+                    action.accept(value);
+                    return true;
+                }
+                open(depth + 1, value);
+            }
+
+            return false;
+        }
+
+        public Spliterator<Object> trySplit() {
+            return null;
+        }
+
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        public int characteristics() {
+            return NONNULL;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.dotdot;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Decides the value of a key that both maps have while merging nested maps.
+ * It is consulted only when the two values are not both maps, nested maps are always merged.
+ * Implement it for custom conflict handling.
+ */
+public interface MergePolicy {
+
+    /**
+     * @param key the key that both maps have
+     * @param existing the value of the first map
+     * @param incoming the value of the second map
+     * @return the value that the merged map gets
+     */
+    Object resolve(Object key, Object existing, Object incoming);
+
+    /**
+     * The value of the second map wins
+     */
+    MergePolicy LAST_WINS = new MergePolicy() {
+        public Object resolve(Object key, Object existing, Object incoming) {
+            return incoming;
+        }
+    };
+
+    /**
+     * The value of the first map wins
+     */
+    MergePolicy FIRST_WINS = new MergePolicy() {
+        public Object resolve(Object key, Object existing, Object incoming) {
+            return existing;
+        }
+    };
+
+    /**
+     * Two collections are concatenated into a new List, first map's items first.
+     * For any other values the second map wins.
+     */
+    MergePolicy LIST_CONCAT = new MergePolicy() {
+        public Object resolve(Object key, Object existing, Object incoming) {
+            if (existing instanceof Collection && incoming instanceof Collection) {
+                Collection<?> first = (Collection<?>) existing;
+                Collection<?> second = (Collection<?>) incoming;
+
+                List<Object> result = new ArrayList<Object>(first.size() + second.size());
+                result.addAll(first);
+                result.addAll(second);
+                return result;
+            }
+
+            return incoming;
+        }
+    };
+}
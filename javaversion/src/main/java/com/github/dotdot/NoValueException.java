@@ -2,12 +2,41 @@ package com.github.dotdot;
 
 public class NoValueException extends Exception {
 
+    // set for the exceptions of DotDot, whose message is only built when it is read
+    private final String path;
+    private String message;
+
     public NoValueException() {
         super();
+        this.path = null;
     }
 
     public NoValueException(String message) {
         super(message);
+        this.path = null;
+    }
+
+    private NoValueException(String path, boolean writableStackTrace) {
+        super(null, null, true, writableStackTrace);
+        this.path = path;
     }
 
+    /**
+     * @param lightweight skips the stack trace, see {@link ValidationPlan.Builder#lightweightExceptions(boolean)}
+     * @return the exception of a path without value
+     */
+    static NoValueException missing(DotPath<?> path, boolean lightweight) {
+        return new NoValueException(path.path(), !lightweight);
+    }
+
+    @Override
+    public String getMessage() {
+        if (path == null) {
+            return super.getMessage();
+        }
+        if (message == null) {
+            message = path + " value is missing";
+        }
+        return message;
+    }
 }
@@ -1,11 +1,90 @@
 package com.github.dotdot;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+
 public class NotEqualException extends Exception {
+
+    private static final int MISSING = 1;
+    private static final int DIFFERENT = 2;
+    private static final int WRONG_TYPE = 3;
+
+    // set for the exceptions of DotDot, whose message is only built when it is read
+    private final int kind;
+    private final String path;
+    private final transient Object value;
+    private final transient Object expected;
+    private String message;
+
     public NotEqualException() {
         super();
+        this.kind = 0;
+        this.path = null;
+        this.value = null;
+        this.expected = null;
     }
 
     public NotEqualException(String message) {
         super(message);
+        this.kind = 0;
+        this.path = null;
+        this.value = null;
+        this.expected = null;
+    }
+
+    private NotEqualException(int kind, String path, Object value, Object expected, boolean lightweight) {
+        super(null, null, true, !lightweight);
+        this.kind = kind;
+        this.path = path;
+        this.value = value;
+        this.expected = expected;
+    }
+
+    /**
+     * @return the exception of a path without value that must have the expected value
+     */
+    static NotEqualException missing(DotPath<?> path, boolean lightweight) {
+        return new NotEqualException(MISSING, path.path(), null, null, lightweight);
+    }
+
+    /**
+     * @return the exception of a path whose value is not the expected one
+     */
+    static NotEqualException different(DotPath<?> path, Object value, Object expected, boolean lightweight) {
+        return new NotEqualException(DIFFERENT, path.path(), value, expected, lightweight);
+    }
+
+    /**
+     * @return the exception of a path whose value is not of the expected type
+     */
+    static NotEqualException wrongType(DotPath<?> path, Object value, Class<?> type, boolean lightweight) {
+        return new NotEqualException(WRONG_TYPE, path.path(), value, type, lightweight);
+    }
+
+    @Override
+    public String getMessage() {
+        if (kind == 0) {
+            return super.getMessage();
+        }
+        if (message == null) {
+            switch (kind) {
+                case MISSING:
+                    message = String.format("Value of '%s' is missing", path);
+                    break;
+                case DIFFERENT:
+                    message = String.format("Provided value is %s=%s but expected %s=%s", path, value, path, expected);
+                    break;
+                default:
+                    message = String.format("Value of '%s' is a %s but expected a %s",
+                            path, value.getClass().getName(), ((Class<?>) expected).getName());
+            }
+        }
+        return message;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        // the value and the expected value may not be serializable, the message is
+        getMessage();
+        out.defaultWriteObject();
     }
 }
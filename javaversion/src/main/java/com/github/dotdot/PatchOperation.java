@@ -0,0 +1,80 @@
+package com.github.dotdot;
+
+import java.util.Map;
+
+/**
+ * One change of a patch, see {@link DotDot#diff(Map, Map)} and {@link DotDot#applyPatch(java.util.List, Map)}
+ * @param <K> the key type
+ */
+public final class PatchOperation<K> {
+
+    public enum Type {
+        /** puts a value that is not a map, creating the missing levels */
+        SET,
+        /** removes the last key of the path */
+        REMOVE,
+        /** puts a whole nested map, replacing whatever was there */
+        REPLACE_SUBTREE
+    }
+
+    private final Type type;
+    private final DotPath<K> path;
+    private final Object value;
+
+    private PatchOperation(Type type, DotPath<K> path, Object value) {
+        this.type = type;
+        this.path = path;
+        this.value = value;
+    }
+
+    public static <K> PatchOperation<K> set(DotPath<K> path, Object value) {
+        return new PatchOperation<K>(Type.SET, path, value);
+    }
+
+    public static <K> PatchOperation<K> remove(DotPath<K> path) {
+        return new PatchOperation<K>(Type.REMOVE, path, null);
+    }
+
+    public static <K> PatchOperation<K> replaceSubtree(DotPath<K> path, Map<K, Object> subtree) {
+        return new PatchOperation<K>(Type.REPLACE_SUBTREE, path, subtree);
+    }
+
+    public Type type() {
+        return type;
+    }
+
+    public DotPath<K> path() {
+        return path;
+    }
+
+    /**
+     * @return the value to put, null for REMOVE
+     */
+    public Object value() {
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PatchOperation)) {
+            return false;
+        }
+
+        PatchOperation<?> other = (PatchOperation<?>) o;
+        return type == other.type && path.equals(other.path)
+                && (value == null ? other.value == null : value.equals(other.value));
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * type.hashCode() + path.hashCode()) + (value == null ? 0 : value.hashCode());
+    }
+
+    @Override
+    public String toString() {
+        return type == Type.REMOVE ? type + " " + path : type + " " + path + "=" + value;
+    }
+}
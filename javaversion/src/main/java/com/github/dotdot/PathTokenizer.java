@@ -0,0 +1,127 @@
+package com.github.dotdot;
+
+/**
+ * Walks the segments of a dot separated path in place, without splitting it
+ * into strings. Segments are reported as [start, end) ranges of the path and follow
+ * `path.split("\\.")`: trailing empty segments are dropped and an empty path has
+ * one empty segment.
+ * <pre>
+ *     PathTokenizer tokens = new PathTokenizer("3.17.42");
+ *     while (tokens.next()) {
+ *         int key = IntConverter.INSTANCE.convertToInt(tokens.path(), tokens.start(), tokens.end());
+ *     }
+ * </pre>
+ * A tokenizer is not thread safe, use {@link #reset(CharSequence)} to reuse it for another path.
+ */
+public final class PathTokenizer {
+
+    private CharSequence path;
+    // the path without its trailing dots
+    private int length;
+    private int start;
+    private int end;
+
+    public PathTokenizer(CharSequence path) {
+        reset(path);
+    }
+
+    /**
+     * Starts over with the given path
+     */
+    public PathTokenizer reset(CharSequence path) {
+        this.path = path;
+        this.length = trimmedLength(path);
+        this.start = -1;
+        this.end = -1;
+        return this;
+    }
+
+    /**
+     * Moves to the next segment
+     * @return false if there are no more segments
+     */
+    public boolean next() {
+        if (end >= length) {
+            return false;
+        }
+        if (end < 0 && length == 0 && path.length() > 0) {
+            // the path is only dots
+            return false;
+        }
+
+        start = end + 1;
+        end = start;
+        while (end < length && path.charAt(end) != '.') {
+            end++;
+        }
+        return true;
+    }
+
+    /**
+     * @return true if the current segment is the last one
+     */
+    public boolean isLast() {
+        return end >= length;
+    }
+
+    /**
+     * @return the path being tokenized
+     */
+    public CharSequence path() {
+        return path;
+    }
+
+    /**
+     * @return index of the first character of the current segment
+     */
+    public int start() {
+        return start;
+    }
+
+    /**
+     * @return index after the last character of the current segment
+     */
+    public int end() {
+        return end;
+    }
+
+    /**
+     * @return the current segment as a String
+     */
+    public String segment() {
+        return path.subSequence(start, end).toString();
+    }
+
+    /**
+     * @return the segments after the current one, joined by dot(.)
+     */
+    public String remaining() {
+        return end >= length ? "" : path.subSequence(end + 1, length).toString();
+    }
+
+    /**
+     * @return number of segments of the path
+     */
+    public static int count(CharSequence path) {
+        int length = trimmedLength(path);
+        if (length == 0) {
+            return path.length() == 0 ? 1 : 0;
+        }
+
+        int count = 1;
+        for (int i = 0; i < length; i++) {
+            if (path.charAt(i) == '.') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int trimmedLength(CharSequence path) {
+        int length = path.length();
+        while (length > 0 && path.charAt(length - 1) == '.') {
+            length--;
+        }
+        return length;
+    }
+}
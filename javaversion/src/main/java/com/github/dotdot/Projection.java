@@ -0,0 +1,293 @@
+package com.github.dotdot;
+
+import com.github.dotdot.converters.Converter;
+import com.github.dotdot.converters.StringConverter;
+
+import java.util.*;
+
+/**
+ * A compiled set of included and excluded paths that copies a document in one walk.
+ * A `*` segment matches any one key, a `**` segment any number of keys, none included.
+ * <pre>
+ *     Projection&lt;String&gt; projection = Projection.builder()
+ *             .include("user.**")
+ *             .include("orders.*.total")
+ *             .exclude("user.password")
+ *             .exclude("**.token")
+ *             .build();
+ *     Map&lt;String, Object&gt; copy = projection.apply(document);
+ * </pre>
+ * Without includes the whole document is included. Excludes win over includes, and
+ * excluding a key drops its whole subtree. Subtrees that are included and that no exclude reaches
+ * are put into the copy as they are instead of being copied key by key, see {@link Builder#shareSubtrees(boolean)}.
+ * Unlike {@link DotDot#copyInclude(Map, List)}, paths without value are left out and levels that end up
+ * empty are not created. Paths do not go through lists, arrays or other values, a path has to end at them.
+ * Instances are immutable and can be shared between threads.
+ * @param <K> the key type
+ */
+public final class Projection<K> {
+
+    private static final Node[] NONE = new Node[0];
+
+    // null when there are no includes, then everything is included
+    private final Node[] includes;
+    private final Node[] excludes;
+    private final boolean shareSubtrees;
+    private final List<String> includePaths;
+    private final List<String> excludePaths;
+
+    private Projection(Builder<K> builder) {
+        this.includePaths = Collections.unmodifiableList(new ArrayList<String>(builder.includes));
+        this.excludePaths = Collections.unmodifiableList(new ArrayList<String>(builder.excludes));
+        this.includes = includePaths.isEmpty() ? null : compile(includePaths, builder.converter);
+        this.excludes = excludePaths.isEmpty() ? NONE : compile(excludePaths, builder.converter);
+        this.shareSubtrees = builder.shareSubtrees;
+    }
+
+    /**
+     * Starts a projection of maps with string keys
+     */
+    public static Builder<String> builder() {
+        return new Builder<String>(StringConverter.INSTANCE);
+    }
+
+    /**
+     * @param converter converter for converting string representation of the paths to your key type
+     */
+    public static <K> Builder<K> builder(Converter<K> converter) {
+        return new Builder<K>(converter);
+    }
+
+    /**
+     * @return the states where matching starts, the root and what its `**` reaches
+     */
+    private static <K> Node[] compile(List<String> paths, Converter<K> converter) {
+        Node root = new Node();
+        for (String path : paths) {
+            Node node = root;
+            for (String segment : DotPath.split(path)) {
+                if ("**".equals(segment)) {
+                    // consecutive `**` are the same as one
+                    if (!node.loop) {
+                        if (node.deep == null) {
+                            node.deep = new Node();
+                            node.deep.loop = true;
+                        }
+                        node = node.deep;
+                    }
+                } else if ("*".equals(segment)) {
+                    if (node.any == null) {
+                        node.any = new Node();
+                    }
+                    node = node.any;
+                } else {
+                    Object key = converter.convert(segment);
+                    Node child = node.keys.get(key);
+                    if (child == null) {
+                        child = new Node();
+                        node.keys.put(key, child);
+                    }
+                    node = child;
+                }
+            }
+            node.end = true;
+        }
+        return trim(add(NONE, root));
+    }
+
+    /**
+     * Copies the included paths of the map into a new Map of the same class
+     */
+    public Map<K, Object> apply(Map<K, ?> map) {
+        if (map == null)
+            return null;
+
+        return apply(map, MapFactory.sameAs(map));
+    }
+
+    /**
+     * Like {@link #apply(Map)}, the result and its levels are created by the factory
+     */
+    public Map<K, Object> apply(Map<K, ?> map, MapFactory factory) {
+        if (map == null)
+            return null;
+
+        Map<K, Object> result = factory.create(includes == null ? map.size() : 0);
+        project(map, includes, excludes, (Map<Object, Object>) result, factory);
+        return result;
+    }
+
+    /**
+     * @param in the include states, null if the whole level is included
+     * @param ex the exclude states
+     */
+    private void project(Map<?, ?> source, Node[] in, Node[] ex, Map<Object, Object> target, MapFactory factory) {
+        for (Map.Entry<?, ?> entry : source.entrySet()) {
+            Object key = entry.getKey();
+            Object value = entry.getValue();
+
+            Node[] nextEx = ex.length == 0 ? NONE : step(ex, key);
+            if (ends(nextEx)) {
+                continue;
+            }
+
+            Node[] nextIn = in == null ? null : step(in, key);
+            if (nextIn == null || ends(nextIn)) {
+                if (nextEx.length == 0 || !(value instanceof Map)) {
+                    target.put(key, shareSubtrees ? value : copy(value, factory));
+                } else {
+                    Map<?, ?> subSource = (Map<?, ?>) value;
+                    Map<Object, Object> subTarget = factory.create(subSource.size());
+                    project(subSource, null, nextEx, subTarget, factory);
+                    target.put(key, subTarget);
+                }
+            } else if (nextIn.length > 0 && value instanceof Map) {
+                Map<Object, Object> subTarget = factory.create(0);
+                project((Map<?, ?>) value, nextIn, nextEx, subTarget, factory);
+                if (!subTarget.isEmpty()) {
+                    target.put(key, subTarget);
+                }
+            }
+        }
+    }
+
+    private static Object copy(Object value, MapFactory factory) {
+        if (!(value instanceof Map)) {
+            return value;
+        }
+
+        Map<?, ?> source = (Map<?, ?>) value;
+        Map<Object, Object> copy = factory.create(source.size());
+        for (Map.Entry<?, ?> entry : source.entrySet()) {
+            copy.put(entry.getKey(), copy(entry.getValue(), factory));
+        }
+        return copy;
+    }
+
+    /**
+     * @return the states that the key leads to, {@link #NONE} if there are none
+     */
+    private static Node[] step(Node[] states, Object key) {
+        Node[] next = NONE;
+        for (Node state : states) {
+            Node child = state.keys.isEmpty() ? null : state.keys.get(key);
+            if (child != null) {
+                next = add(next, child);
+            }
+            if (state.any != null) {
+                next = add(next, state.any);
+            }
+            if (state.loop) {
+                next = add(next, state);
+            }
+        }
+        return trim(next);
+    }
+
+    /**
+     * Adds the node and the `**` it reaches without a key, unless they are already there.
+     * The slots after the last state are null.
+     */
+    private static Node[] add(Node[] states, Node node) {
+        states = put(states, node);
+        return node.deep == null ? states : put(states, node.deep);
+    }
+
+    private static Node[] put(Node[] states, Node node) {
+        int size = 0;
+        for (; size < states.length && states[size] != null; size++) {
+            if (states[size] == node) {
+                return states;
+            }
+        }
+        if (size == states.length) {
+            states = Arrays.copyOf(states, Math.max(4, 2 * size));
+        }
+        states[size] = node;
+        return states;
+    }
+
+    private static Node[] trim(Node[] states) {
+        int size = 0;
+        while (size < states.length && states[size] != null) {
+            size++;
+        }
+        return size == states.length ? states : Arrays.copyOf(states, size);
+    }
+
+    private static boolean ends(Node[] states) {
+        for (Node state : states) {
+            if (state.end) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<String> includes() {
+        return includePaths;
+    }
+
+    public List<String> excludes() {
+        return excludePaths;
+    }
+
+    @Override
+    public String toString() {
+        return "include " + includePaths + " exclude " + excludePaths;
+    }
+
+    /**
+     * A state of the patterns, the keys it expects next
+     */
+    private static final class Node {
+        final Map<Object, Node> keys = new HashMap<Object, Node>();
+        // the state after a `*`
+        Node any;
+        // the state after a `**`, reached without a key
+        Node deep;
+        // whether this is the state after a `**`, which stays on any key
+        boolean loop;
+        // whether a path ends here
+        boolean end;
+    }
+
+    /**
+     * Collects the paths of a projection
+     * @param <K> the key type
+     */
+    public static final class Builder<K> {
+        private final Converter<K> converter;
+        private final List<String> includes = new ArrayList<String>();
+        private final List<String> excludes = new ArrayList<String>();
+        private boolean shareSubtrees = true;
+
+        private Builder(Converter<K> converter) {
+            this.converter = converter;
+        }
+
+        public Builder<K> include(String path) {
+            includes.add(path);
+            return this;
+        }
+
+        public Builder<K> exclude(String path) {
+            excludes.add(path);
+            return this;
+        }
+
+        /**
+         * @param shareSubtrees if true, which is the default, included nested maps that no exclude reaches
+         *                      are put into the copy as they are, so changing them later changes both maps.
+         *                      If false they are copied.
+         */
+        public Builder<K> shareSubtrees(boolean shareSubtrees) {
+            this.shareSubtrees = shareSubtrees;
+            return this;
+        }
+
+        public Projection<K> build() {
+            return new Projection<K>(this);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.github.dotdot;
+
+import com.github.dotdot.converters.Converter;
+import com.github.dotdot.converters.StringConverter;
+
+import java.util.*;
+
+/**
+ * A compiled set of checks that replaces a chain of {@link DotDot#mustHaveValue(DotPath, Map)}
+ * and {@link DotDot#mustEqual(DotPath, Object, Map)} calls. All paths are read in one walk
+ * of the map through a {@link DotPathSet}, every failure is reported instead of only the first,
+ * and nothing is allocated while the map is valid.
+ * <pre>
+ *     ValidationPlan&lt;String&gt; plan = ValidationPlan.builder()
+ *             .required("user.id")
+ *             .mustEqual("type", "login")
+ *             .mustBe("user.age", Number.class)
+ *             .build();
+ *     List&lt;Exception&gt; failures = plan.validate(payload);
+ * </pre>
+ * A missing value fails with {@link NoValueException}, a different value or type with
+ * {@link NotEqualException}, with the same messages as the DotDot methods.
+ * A plan built with {@link Builder#lightweightExceptions(boolean) lightweight exceptions} creates them without a stack trace.
+ * Instances are immutable and can be shared between threads.
+ * @param <K> the key type
+ */
+public final class ValidationPlan<K> {
+
+    private static final int REQUIRED = 0;
+    private static final int EQUAL = 1;
+    private static final int TYPE = 2;
+
+    private final DotPathSet<K> paths;
+    // the rule of every path of the set, in the same order
+    private final int[] kinds;
+    private final Object[] expected;
+    private final boolean lightweight;
+
+    // the values of one validation, reused by every validation on the same thread
+    private final ThreadLocal<Object[]> values = new ThreadLocal<Object[]>() {
+        @Override
+        protected Object[] initialValue() {
+            return new Object[paths.size()];
+        }
+    };
+
+    private ValidationPlan(Builder<K> builder) {
+        this.paths = DotPathSet.compile(builder.paths, builder.converter);
+        this.kinds = new int[builder.kinds.size()];
+        for (int i = 0; i < kinds.length; i++) {
+            kinds[i] = builder.kinds.get(i);
+        }
+        this.expected = builder.expected.toArray();
+        this.lightweight = builder.lightweight;
+    }
+
+    /**
+     * Starts a plan for maps with string keys
+     */
+    public static Builder<String> builder() {
+        return new Builder<String>(StringConverter.INSTANCE);
+    }
+
+    /**
+     * @param converter converter for converting string representation of the paths to your key type
+     */
+    public static <K> Builder<K> builder(Converter<K> converter) {
+        return new Builder<K>(converter);
+    }
+
+    /**
+     * @return true if every check passes
+     * @throws IllegalStateException if a path is nested but the map's value is not a Map
+     */
+    public boolean isValid(Map<K, ?> map) {
+        Object[] values = this.values.get();
+        try {
+            // a failing walk leaves part of the map in the array, so it is cleared in any case
+            paths.extract(map, values);
+            for (int i = 0; i < kinds.length; i++) {
+                if (!passes(i, values[i])) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            Arrays.fill(values, null);
+        }
+    }
+
+    /**
+     * @return a {@link NoValueException} or a {@link NotEqualException} for every check that fails,
+     * in the order the checks were added. An empty list if the map is valid.
+     * @throws IllegalStateException if a path is nested but the map's value is not a Map
+     */
+    public List<Exception> validate(Map<K, ?> map) {
+        Object[] values = this.values.get();
+        try {
+            // a failing walk leaves part of the map in the array, so it is cleared in any case
+            paths.extract(map, values);
+            List<Exception> failures = Collections.emptyList();
+            for (int i = 0; i < kinds.length; i++) {
+                if (!passes(i, values[i])) {
+                    if (failures.isEmpty()) {
+                        failures = new ArrayList<Exception>();
+                    }
+                    failures.add(failure(i, values[i]));
+                }
+            }
+            return failures;
+        } finally {
+            Arrays.fill(values, null);
+        }
+    }
+
+    /**
+     * Throws the first failure, the other failures are added to it as suppressed exceptions
+     * @throws NoValueException if the first failing check found no value
+     * @throws NotEqualException if the first failing check found a different value or type
+     * @throws IllegalStateException if a path is nested but the map's value is not a Map
+     */
+    public void mustBeValid(Map<K, ?> map) throws NoValueException, NotEqualException {
+        List<Exception> failures = validate(map);
+        if (failures.isEmpty()) {
+            return;
+        }
+
+        Exception first = failures.get(0);
+        for (int i = 1; i < failures.size(); i++) {
+            first.addSuppressed(failures.get(i));
+        }
+        if (first instanceof NoValueException) {
+            throw (NoValueException) first;
+        }
+        throw (NotEqualException) first;
+    }
+
+    /**
+     * @return number of checks
+     */
+    public int size() {
+        return kinds.length;
+    }
+
+    private boolean passes(int check, Object value) {
+        switch (kinds[check]) {
+            case REQUIRED:
+                return value != null;
+            case EQUAL:
+                return value == null ? expected[check] == null : value.equals(expected[check]);
+            default:
+                return ((Class<?>) expected[check]).isInstance(value);
+        }
+    }
+
+    private Exception failure(int check, Object value) {
+        DotPath<K> path = paths.path(check);
+        switch (kinds[check]) {
+            case REQUIRED:
+                return NoValueException.missing(path, lightweight);
+            case EQUAL:
+                return value == null
+                        ? NotEqualException.missing(path, lightweight)
+                        : NotEqualException.different(path, value, expected[check], lightweight);
+            default:
+                return value == null
+                        ? NoValueException.missing(path, lightweight)
+                        : NotEqualException.wrongType(path, value, (Class<?>) expected[check], lightweight);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return paths.toString();
+    }
+
+    /**
+     * Collects the checks of a plan
+     * @param <K> the key type
+     */
+    public static final class Builder<K> {
+        private final Converter<K> converter;
+        private final List<String> paths = new ArrayList<String>();
+        private final List<Integer> kinds = new ArrayList<Integer>();
+        private final List<Object> expected = new ArrayList<Object>();
+        private boolean lightweight;
+
+        private Builder(Converter<K> converter) {
+            this.converter = converter;
+        }
+
+        /**
+         * The path must have some value, like {@link DotDot#mustHaveValue(DotPath, Map)}
+         */
+        public Builder<K> required(String path) {
+            return add(path, REQUIRED, null);
+        }
+
+        /**
+         * The path must have the expected value, like {@link DotDot#mustEqual(DotPath, Object, Map)}
+         */
+        public Builder<K> mustEqual(String path, Object expected) {
+            return add(path, EQUAL, expected);
+        }
+
+        /**
+         * The path must have a value of the given type
+         */
+        public Builder<K> mustBe(String path, Class<?> type) {
+            if (type == null) {
+                throw new IllegalArgumentException("type must not be null");
+            }
+            return add(path, TYPE, type);
+        }
+
+        /**
+         * Lightweight exceptions have no stack trace, which makes them much cheaper to create.
+         * Use it when rejections are frequent and expected, and the stack trace tells nothing.
+         * Only the exceptions of this plan are affected, false by default.
+         */
+        public Builder<K> lightweightExceptions(boolean lightweight) {
+            this.lightweight = lightweight;
+            return this;
+        }
+
+        private Builder<K> add(String path, int kind, Object value) {
+            paths.add(path);
+            kinds.add(kind);
+            expected.add(value);
+            return this;
+        }
+
+        public ValidationPlan<K> build() {
+            return new ValidationPlan<K>(this);
+        }
+    }
+}
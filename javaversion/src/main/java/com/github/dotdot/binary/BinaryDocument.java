@@ -0,0 +1,385 @@
+package com.github.dotdot.binary;
+
+import com.github.dotdot.IndexedDocument;
+import com.github.dotdot.PathTokenizer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static com.github.dotdot.binary.BinaryFormat.*;
+
+/**
+ * A read only Map over a document written by {@link BinaryWriter}, read in place from a
+ * ByteBuffer or a memory mapped file. Resolving a path reads one offset table per level
+ * and decodes only the value at the end of the path, the rest of the document is not touched.
+ * <pre>
+ *     BinaryDocument doc = BinaryDocument.map(Paths.get("config.ddb"));
+ *     int timeout = DotDot.getInt("gateway.upstream.timeout", doc);
+ * </pre>
+ * Paths follow {@link com.github.dotdot.DotDot#get(String, Map)}, numeric keys index into arrays.
+ * Nested objects are returned as BinaryDocument views and arrays as read only lists,
+ * both decode their values when they are read. Opening a document decodes its key dictionary only.
+ * Instances can be shared between threads, the buffer is only read with absolute gets.
+ */
+public final class BinaryDocument extends AbstractMap<String, Object> implements IndexedDocument {
+
+    private final Source source;
+    // position of the object's tag
+    private final int at;
+    private final int count;
+    // position of the key ids, followed by the offsets
+    private final int ids;
+
+    private BinaryDocument(Source source, int at) {
+        this.source = source;
+        this.at = at;
+        int[] next = new int[1];
+        this.count = (int) source.varint(at + 1, next);
+        this.ids = next[0];
+    }
+
+    /**
+     * Reads the document between the buffer's position and its limit, the buffer must not be changed afterwards
+     * @throws IllegalArgumentException if the buffer does not hold a binary document
+     */
+    public static BinaryDocument of(ByteBuffer buffer) {
+        Source source = new Source(buffer.slice());
+        return new BinaryDocument(source, source.root);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes are not a binary document
+     */
+    public static BinaryDocument of(byte[] bytes) {
+        return of(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Maps the file into memory and reads the document from it. Files must be smaller than 2GB.
+     * @throws IllegalArgumentException if the file does not hold a binary document
+     */
+    public static BinaryDocument map(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return of(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            // the mapping stays valid after the channel is closed
+            channel.close();
+        }
+    }
+
+    public Object resolve(String path) {
+        PathTokenizer tokens = new PathTokenizer(path);
+        int container = at;
+
+        while (tokens.next()) {
+            int value;
+            if (source.buffer.get(container) == OBJECT) {
+                int id = source.find(path, tokens.start(), tokens.end());
+                value = id < 0 ? -1 : source.field(container, id);
+            } else {
+                int index = parseIndex(path, tokens.start(), tokens.end());
+                if (index < 0) {
+                    throw new IllegalStateException("Cannot move deeper for these keys: " + path.substring(tokens.start()));
+                }
+                value = source.element(container, index);
+            }
+
+            if (tokens.isLast()) {
+                return value < 0 ? null : source.decode(value);
+            }
+            if (value < 0) {
+                return null;
+            }
+
+            byte tag = source.buffer.get(value);
+            if (tag == NULL) {
+                return null;
+            }
+            if (tag != OBJECT && tag != ARRAY) {
+                throw new IllegalStateException("Cannot move deeper for these keys: " + tokens.remaining());
+            }
+            container = value;
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the segment as a non-negative index, or -1
+     */
+    private static int parseIndex(String path, int start, int end) {
+        // nine digits always fit in an int
+        if (end == start || end - start > 9) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int value = position(key);
+        return value < 0 ? null : source.decode(value);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return position(key) >= 0;
+    }
+
+    private int position(Object key) {
+        if (!(key instanceof String)) {
+            return -1;
+        }
+        String name = (String) key;
+        int id = source.find(name, 0, name.length());
+        return id < 0 ? -1 : source.field(at, id);
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Object>>() {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                return new Iterator<Map.Entry<String, Object>>() {
+                    private int next;
+
+                    public boolean hasNext() {
+                        return next < count;
+                    }
+
+                    public Map.Entry<String, Object> next() {
+                        if (next >= count) {
+                            throw new NoSuchElementException();
+                        }
+                        int i = next++;
+                        String key = source.keys[source.buffer.getInt(ids + i * 4)];
+                        int value = at + source.buffer.getInt(ids + count * 4 + i * 4);
+                        return new SimpleImmutableEntry<String, Object>(key, source.decode(value));
+                    }
+
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    /**
+     * The buffer and the key dictionary, shared by a document and all its views
+     */
+    private static final class Source {
+        final ByteBuffer buffer;
+        final String[] keys;
+        // open addressing hash index of the keys, id + 1 per slot, 0 for an empty one
+        private final int[] table;
+        // position of the root object
+        final int root;
+
+        Source(ByteBuffer buffer) {
+            this.buffer = buffer;
+            if (buffer.limit() < 5 || buffer.getInt(0) != MAGIC) {
+                throw new IllegalArgumentException("Not a binary document");
+            }
+
+            int[] next = new int[1];
+            int keyCount = (int) varint(4, next);
+            keys = new String[keyCount];
+            table = new int[Integer.highestOneBit(Math.max(4, keyCount * 2 - 1)) << 1];
+            int pos = next[0];
+            for (int id = 0; id < keyCount; id++) {
+                int length = (int) varint(pos, next);
+                keys[id] = string(next[0], length);
+                pos = next[0] + length;
+
+                int mask = table.length - 1;
+                int slot = keys[id].hashCode() & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = id + 1;
+            }
+            root = pos;
+            if (buffer.get(root) != OBJECT) {
+                throw new IllegalArgumentException("Not a binary document");
+            }
+        }
+
+        /**
+         * @return the id of the key that equals path[start, end), -1 if there is none
+         */
+        int find(String path, int start, int end) {
+            // the same hash as String.hashCode, computed in place
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + path.charAt(i);
+            }
+
+            int mask = table.length - 1;
+            int slot = hash & mask;
+            int length = end - start;
+            while (table[slot] != 0) {
+                String key = keys[table[slot] - 1];
+                if (key.length() == length && key.regionMatches(0, path, start, length)) {
+                    return table[slot] - 1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        /**
+         * @return position of the value of the key in the object, -1 if the object does not have it
+         */
+        int field(int object, int id) {
+            int[] next = new int[1];
+            int count = (int) varint(object + 1, next);
+            int ids = next[0];
+
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int candidate = buffer.getInt(ids + middle * 4);
+                if (candidate < id) {
+                    low = middle + 1;
+                } else if (candidate > id) {
+                    high = middle - 1;
+                } else {
+                    return object + buffer.getInt(ids + count * 4 + middle * 4);
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return position of the element of the array, -1 if the index is out of range
+         */
+        int element(int array, int index) {
+            int[] next = new int[1];
+            int count = (int) varint(array + 1, next);
+            if (index >= count) {
+                return -1;
+            }
+            return array + buffer.getInt(next[0] + index * 4);
+        }
+
+        Object decode(int at) {
+            int[] next = new int[1];
+            switch (buffer.get(at)) {
+                case NULL:
+                    return null;
+                case FALSE:
+                    return Boolean.FALSE;
+                case TRUE:
+                    return Boolean.TRUE;
+                case INT:
+                    return (int) unzigzag(varint(at + 1, next));
+                case LONG:
+                    return unzigzag(varint(at + 1, next));
+                case DOUBLE:
+                    return buffer.getDouble(at + 1);
+                case STRING: {
+                    int length = (int) varint(at + 1, next);
+                    return string(next[0], length);
+                }
+                case OBJECT:
+                    return new BinaryDocument(this, at);
+                case ARRAY:
+                    return new ArrayView(this, at);
+                case FLOAT:
+                    return buffer.getFloat(at + 1);
+                case SHORT:
+                    return (short) unzigzag(varint(at + 1, next));
+                case BYTE:
+                    return (byte) unzigzag(varint(at + 1, next));
+                case CHAR:
+                    return (char) varint(at + 1, next);
+                default:
+                    throw new IllegalArgumentException("Unknown tag " + buffer.get(at) + " at " + at);
+            }
+        }
+
+        /**
+         * Reads a varint, next[0] is set to the position after it
+         */
+        long varint(int at, int[] next) {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(at++);
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            next[0] = at;
+            return value;
+        }
+
+        String string(int at, int length) {
+            if (buffer.hasArray()) {
+                return new String(buffer.array(), buffer.arrayOffset() + at, length, UTF_8);
+            }
+            byte[] bytes = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = buffer.get(at + i);
+            }
+            return new String(bytes, UTF_8);
+        }
+
+        private static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+
+    /**
+     * A read only list over an array of the document
+     */
+    private static final class ArrayView extends AbstractList<Object> implements RandomAccess {
+        private final Source source;
+        private final int at;
+        private final int size;
+
+        ArrayView(Source source, int at) {
+            this.source = source;
+            this.at = at;
+            this.size = (int) source.varint(at + 1, new int[1]);
+        }
+
+        @Override
+        public Object get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return source.decode(source.element(at, index));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
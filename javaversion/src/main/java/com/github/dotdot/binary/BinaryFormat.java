@@ -0,0 +1,41 @@
+package com.github.dotdot.binary;
+
+import java.nio.charset.Charset;
+
+/**
+ * Layout of the binary documents written by {@link BinaryWriter} and read by {@link BinaryDocument}.
+ * <pre>
+ * document := MAGIC  varint(keyCount)  key*  value          the root value is an object
+ * key      := varint(length)  utf8 bytes                    the dictionary, a key's id is its position
+ * value    := tag  payload
+ * object   := OBJECT  varint(count)  int32(keyId)*  int32(offset)*  value*
+ * array    := ARRAY  varint(count)  int32(offset)*  value*
+ * </pre>
+ * The key ids of an object are sorted so a key is found by binary search, and the offsets,
+ * relative to the object's tag, lead straight to a value without reading the ones before it.
+ * Integral numbers are zigzag varints, strings are a varint length and their UTF-8 bytes.
+ * Fixed width numbers are big endian.
+ */
+final class BinaryFormat {
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    static final int MAGIC = 0x44444201; // "DDB" and version 1
+
+    static final byte NULL = 0;
+    static final byte FALSE = 1;
+    static final byte TRUE = 2;
+    static final byte INT = 3;
+    static final byte LONG = 4;
+    static final byte DOUBLE = 5;
+    static final byte STRING = 6;
+    static final byte OBJECT = 7;
+    static final byte ARRAY = 8;
+    static final byte FLOAT = 9;
+    static final byte SHORT = 10;
+    static final byte BYTE = 11;
+    static final byte CHAR = 12;
+
+    private BinaryFormat() {
+    }
+}
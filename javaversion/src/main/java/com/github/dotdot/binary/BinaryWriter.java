@@ -0,0 +1,233 @@
+package com.github.dotdot.binary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.util.*;
+
+import static com.github.dotdot.binary.BinaryFormat.*;
+
+/**
+ * Encodes a nested map into the binary format that {@link BinaryDocument} reads.
+ * <pre>
+ *     byte[] bytes = BinaryWriter.write(doc);
+ *     String city = DotDot.getString("user.address.city", BinaryDocument.of(bytes));
+ * </pre>
+ * Maps must have string keys. Values can be maps, lists, other collections and arrays,
+ * strings, booleans, the boxed primitive types and null. Collections and arrays are read back as lists.
+ */
+public final class BinaryWriter {
+
+    private final Map<String, Integer> keyIds = new HashMap<String, Integer>();
+    private final List<String> keys = new ArrayList<String>();
+    private byte[] buf = new byte[256];
+    private int pos;
+
+    private BinaryWriter() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if a key is not a String or a value has an unsupported type
+     */
+    public static byte[] write(Map<String, ?> map) {
+        BinaryWriter writer = new BinaryWriter();
+        writer.collectKeys(map);
+        writer.writeDocument(map);
+        return Arrays.copyOf(writer.buf, writer.pos);
+    }
+
+    /**
+     * @throws IllegalArgumentException if a key is not a String or a value has an unsupported type
+     */
+    public static void write(Map<String, ?> map, OutputStream out) throws IOException {
+        BinaryWriter writer = new BinaryWriter();
+        writer.collectKeys(map);
+        writer.writeDocument(map);
+        out.write(writer.buf, 0, writer.pos);
+    }
+
+    private void collectKeys(Object value) {
+        if (value instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                Object key = entry.getKey();
+                if (!(key instanceof String)) {
+                    throw new IllegalArgumentException("Keys must be strings: " + key);
+                }
+                if (!keyIds.containsKey(key)) {
+                    keyIds.put((String) key, keys.size());
+                    keys.add((String) key);
+                }
+                collectKeys(entry.getValue());
+            }
+        } else if (value instanceof Collection) {
+            for (Object item : (Collection<?>) value) {
+                collectKeys(item);
+            }
+        } else if (value instanceof Object[]) {
+            for (Object item : (Object[]) value) {
+                collectKeys(item);
+            }
+        }
+    }
+
+    private void writeDocument(Map<String, ?> map) {
+        writeInt(MAGIC);
+        writeVarint(keys.size());
+        for (String key : keys) {
+            byte[] bytes = key.getBytes(UTF_8);
+            writeVarint(bytes.length);
+            writeBytes(bytes);
+        }
+        writeValue(map);
+    }
+
+    private void writeValue(Object value) {
+        if (value == null) {
+            writeByte(NULL);
+        } else if (value instanceof String) {
+            writeByte(STRING);
+            byte[] bytes = ((String) value).getBytes(UTF_8);
+            writeVarint(bytes.length);
+            writeBytes(bytes);
+        } else if (value instanceof Map) {
+            writeObject((Map<?, ?>) value);
+        } else if (value instanceof Integer) {
+            writeByte(INT);
+            writeVarint(zigzag((Integer) value));
+        } else if (value instanceof Long) {
+            writeByte(LONG);
+            writeVarint(zigzag((Long) value));
+        } else if (value instanceof Double) {
+            writeByte(DOUBLE);
+            long bits = Double.doubleToRawLongBits((Double) value);
+            writeInt((int) (bits >>> 32));
+            writeInt((int) bits);
+        } else if (value instanceof Boolean) {
+            writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Collection) {
+            writeArray(((Collection<?>) value).toArray());
+        } else if (value.getClass().isArray()) {
+            writeArray(value);
+        } else if (value instanceof Float) {
+            writeByte(FLOAT);
+            writeInt(Float.floatToRawIntBits((Float) value));
+        } else if (value instanceof Short) {
+            writeByte(SHORT);
+            writeVarint(zigzag((Short) value));
+        } else if (value instanceof Byte) {
+            writeByte(BYTE);
+            writeVarint(zigzag((Byte) value));
+        } else if (value instanceof Character) {
+            writeByte(CHAR);
+            writeVarint((Character) value);
+        } else {
+            throw new IllegalArgumentException("Cannot write a value of type " + value.getClass().getName());
+        }
+    }
+
+    private void writeObject(Map<?, ?> map) {
+        int count = map.size();
+        int[] ids = new int[count];
+        Object[] values = new Object[count];
+        int i = 0;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            ids[i] = keyIds.get(entry.getKey());
+            values[i] = entry.getValue();
+            i++;
+        }
+        sortByKey(ids, values);
+
+        int start = pos;
+        writeByte(OBJECT);
+        writeVarint(count);
+        for (int id : ids) {
+            writeInt(id);
+        }
+        int offsets = reserve(count * 4);
+        for (i = 0; i < count; i++) {
+            patchInt(offsets + i * 4, pos - start);
+            writeValue(values[i]);
+        }
+    }
+
+    private void writeArray(Object array) {
+        int count = Array.getLength(array);
+
+        int start = pos;
+        writeByte(ARRAY);
+        writeVarint(count);
+        int offsets = reserve(count * 4);
+        for (int i = 0; i < count; i++) {
+            patchInt(offsets + i * 4, pos - start);
+            writeValue(Array.get(array, i));
+        }
+    }
+
+    /**
+     * Sorts the ids, moving the values with them. Objects are small, so insertion sort is enough.
+     */
+    private static void sortByKey(int[] ids, Object[] values) {
+        for (int i = 1; i < ids.length; i++) {
+            int id = ids[i];
+            Object value = values[i];
+            int j = i - 1;
+            while (j >= 0 && ids[j] > id) {
+                ids[j + 1] = ids[j];
+                values[j + 1] = values[j];
+                j--;
+            }
+            ids[j + 1] = id;
+            values[j + 1] = value;
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void ensure(int bytes) {
+        if (pos + bytes > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + bytes));
+        }
+    }
+
+    private void writeByte(int b) {
+        ensure(1);
+        buf[pos++] = (byte) b;
+    }
+
+    private void writeBytes(byte[] bytes) {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buf, pos, bytes.length);
+        pos += bytes.length;
+    }
+
+    private void writeVarint(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buf[pos++] = (byte) value;
+    }
+
+    private void writeInt(int value) {
+        ensure(4);
+        patchInt(pos, value);
+        pos += 4;
+    }
+
+    private int reserve(int bytes) {
+        ensure(bytes);
+        int start = pos;
+        pos += bytes;
+        return start;
+    }
+
+    private void patchInt(int at, int value) {
+        buf[at] = (byte) (value >>> 24);
+        buf[at + 1] = (byte) (value >>> 16);
+        buf[at + 2] = (byte) (value >>> 8);
+        buf[at + 3] = (byte) value;
+    }
+}
@@ -1,6 +1,9 @@
 package com.github.dotdot.converters;
 
 public class BooleanConverter implements Converter<Boolean> {
+
+    public static final BooleanConverter INSTANCE = new BooleanConverter();
+
     public Boolean convert(String text) {
         if (text.equals("1") || text.equalsIgnoreCase("true")) {
             return true;
@@ -1,6 +1,9 @@
 package com.github.dotdot.converters;
 
 public class ByteConverter implements Converter<Byte> {
+
+    public static final ByteConverter INSTANCE = new ByteConverter();
+
     public Byte convert(String text) {
         return Byte.valueOf(text);
     }
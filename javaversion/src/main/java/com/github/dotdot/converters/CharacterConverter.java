@@ -1,6 +1,9 @@
 package com.github.dotdot.converters;
 
 public class CharacterConverter implements Converter<Character> {
+
+    public static final CharacterConverter INSTANCE = new CharacterConverter();
+
     public Character convert(String text) {
         return text.charAt(0);
     }
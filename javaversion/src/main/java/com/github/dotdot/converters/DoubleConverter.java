@@ -1,6 +1,9 @@
 package com.github.dotdot.converters;
 
 public class DoubleConverter implements Converter<Double> {
+
+    public static final DoubleConverter INSTANCE = new DoubleConverter();
+
     public Double convert(String text) {
         return Double.valueOf(text);
     }
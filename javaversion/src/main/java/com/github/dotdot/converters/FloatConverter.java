@@ -1,6 +1,9 @@
 package com.github.dotdot.converters;
 
 public class FloatConverter implements Converter<Float> {
+
+    public static final FloatConverter INSTANCE = new FloatConverter();
+
     public Float convert(String text) {
         return Float.valueOf(text);
     }
@@ -1,7 +1,15 @@
 package com.github.dotdot.converters;
 
-public class IntConverter implements Converter<Integer> {
+public class IntConverter implements IntKeyConverter {
+
+    public static final IntConverter INSTANCE = new IntConverter();
+
     public Integer convert(String text) {
         return Integer.valueOf(text);
     }
+
+    public int convertToInt(CharSequence text, int start, int end) {
+        long value = Numbers.parse(text, start, end, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        return (int) value;
+    }
 }
@@ -0,0 +1,14 @@
+package com.github.dotdot.converters;
+
+/**
+ * A converter to Integer keys that can also parse a segment of a path in place,
+ * without creating a String for it
+ */
+public interface IntKeyConverter extends Converter<Integer> {
+
+    /**
+     * Converts text[start, end) the same way {@link #convert(String)} converts it
+     */
+    int convertToInt(CharSequence text, int start, int end);
+
+}
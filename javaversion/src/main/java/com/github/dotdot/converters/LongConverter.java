@@ -1,7 +1,14 @@
 package com.github.dotdot.converters;
 
-public class LongConverter implements Converter<Long> {
+public class LongConverter implements LongKeyConverter {
+
+    public static final LongConverter INSTANCE = new LongConverter();
+
     public Long convert(String text) {
         return Long.valueOf(text);
     }
+
+    public long convertToLong(CharSequence text, int start, int end) {
+        return Numbers.parse(text, start, end, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
 }
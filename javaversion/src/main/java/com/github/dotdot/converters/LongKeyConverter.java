@@ -0,0 +1,14 @@
+package com.github.dotdot.converters;
+
+/**
+ * A converter to Long keys that can also parse a segment of a path in place,
+ * without creating a String for it
+ */
+public interface LongKeyConverter extends Converter<Long> {
+
+    /**
+     * Converts text[start, end) the same way {@link #convert(String)} converts it
+     */
+    long convertToLong(CharSequence text, int start, int end);
+
+}
@@ -0,0 +1,47 @@
+package com.github.dotdot.converters;
+
+final class Numbers {
+
+    private Numbers() {
+    }
+
+    /**
+     * Parses text[start, end) like Long.parseLong does and checks it is in [min, max]
+     * @throws NumberFormatException if the text is not a decimal number in the range
+     */
+    static long parse(CharSequence text, int start, int end, long min, long max) {
+        int i = start;
+        boolean negative = false;
+        if (i < end) {
+            char sign = text.charAt(i);
+            if (sign == '-' || sign == '+') {
+                negative = sign == '-';
+                i++;
+            }
+        }
+        if (i == end) {
+            throw invalid(text, start, end);
+        }
+
+        // accumulates negatively, like Long.parseLong, so min fits too
+        long limit = negative ? min : -max;
+        long multmin = limit / 10;
+        long result = 0;
+        for (; i < end; i++) {
+            int digit = Character.digit(text.charAt(i), 10);
+            if (digit < 0 || result < multmin) {
+                throw invalid(text, start, end);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw invalid(text, start, end);
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    private static NumberFormatException invalid(CharSequence text, int start, int end) {
+        return new NumberFormatException("For input string: \"" + text.subSequence(start, end) + "\"");
+    }
+}
@@ -1,6 +1,9 @@
 package com.github.dotdot.converters;
 
 public class ShortConverter implements Converter<Short> {
+
+    public static final ShortConverter INSTANCE = new ShortConverter();
+
     public Short convert(String text) {
         return Short.valueOf(text);
     }
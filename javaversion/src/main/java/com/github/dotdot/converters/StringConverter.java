@@ -1,6 +1,9 @@
 package com.github.dotdot.converters;
 
 public class StringConverter implements Converter<String> {
+
+    public static final StringConverter INSTANCE = new StringConverter();
+
     public String convert(String text) {
         return text;
     }
@@ -0,0 +1,259 @@
+package com.github.dotdot.metrics;
+
+import com.github.dotdot.DotDotMetrics;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the records in memory: per operation counts by outcome, a latency histogram with
+ * power of two buckets, a histogram of path depths, and hit and miss counts per get path.
+ * <pre>
+ *     InMemoryMetrics metrics = new InMemoryMetrics();
+ *     DotDot.setMetrics(metrics);
+ *     ...
+ *     System.out.println(metrics.report(10));
+ * </pre>
+ * Recording is lock free. To stay bounded, only the first `maxPaths` distinct paths are counted one by one.
+ */
+public final class InMemoryMetrics implements DotDotMetrics {
+
+    public static final int DEFAULT_MAX_PATHS = 1024;
+
+    // depths from 0 to MAX_DEPTH, deeper paths share the last bucket
+    private static final int MAX_DEPTH = 32;
+    // bucket i counts latencies below 2^i nanoseconds
+    private static final int LATENCY_BUCKETS = 64;
+
+    private final OperationStats[] operations;
+    private final ConcurrentHashMap<String, PathStats> paths = new ConcurrentHashMap<String, PathStats>();
+    private final int maxPaths;
+    private final LongAdder untrackedPaths = new LongAdder();
+
+    public InMemoryMetrics() {
+        this(DEFAULT_MAX_PATHS);
+    }
+
+    /**
+     * @param maxPaths number of distinct get paths that are counted one by one
+     */
+    public InMemoryMetrics(int maxPaths) {
+        this.maxPaths = maxPaths;
+        this.operations = new OperationStats[Operation.values().length];
+        for (int i = 0; i < operations.length; i++) {
+            operations[i] = new OperationStats();
+        }
+    }
+
+    public void record(Operation operation, String path, int depth, long nanos, Outcome outcome) {
+        operations[operation.ordinal()].add(depth, nanos, outcome);
+
+        if (operation == Operation.GET && path != null) {
+            PathStats stats = paths.get(path);
+            if (stats == null) {
+                if (paths.size() >= maxPaths) {
+                    untrackedPaths.increment();
+                    return;
+                }
+                stats = new PathStats(path);
+                PathStats existing = paths.putIfAbsent(path, stats);
+                if (existing != null) {
+                    stats = existing;
+                }
+            }
+            if (outcome == Outcome.HIT) {
+                stats.hits.increment();
+            } else if (outcome == Outcome.MISS) {
+                stats.misses.increment();
+            }
+        }
+    }
+
+    /**
+     * @return number of records of the operation
+     */
+    public long count(Operation operation) {
+        return operations[operation.ordinal()].count.sum();
+    }
+
+    /**
+     * @return number of records of the operation that ended with the outcome
+     */
+    public long count(Operation operation, Outcome outcome) {
+        return operations[operation.ordinal()].outcomes[outcome.ordinal()].sum();
+    }
+
+    /**
+     * @return mean latency of the operation in nanoseconds, 0 if it was not recorded
+     */
+    public double meanNanos(Operation operation) {
+        OperationStats stats = operations[operation.ordinal()];
+        long count = stats.count.sum();
+        return count == 0 ? 0 : (double) stats.nanos.sum() / count;
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return an upper bound of the latency of the percentile, from the power of two histogram.
+     * 0 if the operation was not recorded.
+     */
+    public long percentileNanos(Operation operation, double percentile) {
+        AtomicLongArray latencies = operations[operation.ordinal()].latencies;
+        long total = 0;
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            total += latencies.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            seen += latencies.get(i);
+            if (seen >= rank && seen > 0) {
+                return i == LATENCY_BUCKETS - 1 ? Long.MAX_VALUE : 1L << i;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * @return number of records of the operation with the given path depth,
+     * the last depth counts every deeper path too
+     */
+    public long depthCount(Operation operation, int depth) {
+        return operations[operation.ordinal()].depths.get(Math.min(depth, MAX_DEPTH));
+    }
+
+    /**
+     * @return the get paths with the most lookups, most first
+     */
+    public List<PathStats> hottestPaths(int limit) {
+        List<PathStats> result = new ArrayList<PathStats>(paths.values());
+        Collections.sort(result, new Comparator<PathStats>() {
+            public int compare(PathStats a, PathStats b) {
+                return Long.compare(b.total(), a.total());
+            }
+        });
+        return result.size() > limit ? new ArrayList<PathStats>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * @return hit and miss counts of the get path, null if it is not counted
+     */
+    public PathStats path(String path) {
+        return paths.get(path);
+    }
+
+    /**
+     * @return number of get records whose path was not counted because `maxPaths` was reached
+     */
+    public long untrackedPathCount() {
+        return untrackedPaths.sum();
+    }
+
+    /**
+     * Forgets every record
+     */
+    public void reset() {
+        for (int i = 0; i < operations.length; i++) {
+            operations[i] = new OperationStats();
+        }
+        paths.clear();
+        untrackedPaths.reset();
+    }
+
+    /**
+     * @return a human readable summary of every recorded operation and of the hottest paths
+     */
+    public String report(int hottestPaths) {
+        StringBuilder report = new StringBuilder();
+        for (Operation operation : Operation.values()) {
+            long count = count(operation);
+            if (count == 0) {
+                continue;
+            }
+            report.append(operation).append(": count=").append(count);
+            for (Outcome outcome : Outcome.values()) {
+                long outcomes = count(operation, outcome);
+                if (outcomes > 0) {
+                    report.append(' ').append(outcome.name().toLowerCase()).append('=').append(outcomes);
+                }
+            }
+            report.append(String.format(" mean=%.0fns p50<=%dns p99<=%dns%n", meanNanos(operation),
+                    percentileNanos(operation, 50), percentileNanos(operation, 99)));
+        }
+        for (PathStats stats : hottestPaths(hottestPaths)) {
+            report.append("  ").append(stats).append(String.format("%n"));
+        }
+        return report.toString();
+    }
+
+    @Override
+    public String toString() {
+        return report(10);
+    }
+
+    /**
+     * Lookups of one get path
+     */
+    public static final class PathStats {
+        private final String path;
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        PathStats(String path) {
+            this.path = path;
+        }
+
+        public String path() {
+            return path;
+        }
+
+        public long hits() {
+            return hits.sum();
+        }
+
+        public long misses() {
+            return misses.sum();
+        }
+
+        public long total() {
+            return hits() + misses();
+        }
+
+        @Override
+        public String toString() {
+            return path + ": hits=" + hits() + " misses=" + misses();
+        }
+    }
+
+    /**
+     * Records of one operation
+     */
+    private static final class OperationStats {
+        final LongAdder count = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+        final LongAdder[] outcomes = new LongAdder[Outcome.values().length];
+        final AtomicLongArray latencies = new AtomicLongArray(LATENCY_BUCKETS);
+        final AtomicLongArray depths = new AtomicLongArray(MAX_DEPTH + 1);
+
+        OperationStats() {
+            for (int i = 0; i < outcomes.length; i++) {
+                outcomes[i] = new LongAdder();
+            }
+        }
+
+        void add(int depth, long nanos, Outcome outcome) {
+            count.increment();
+            this.nanos.add(nanos);
+            outcomes[outcome.ordinal()].increment();
+            // a latency of n nanoseconds goes to the bucket of the next power of two above it
+            latencies.incrementAndGet(Math.min(LATENCY_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0, nanos))));
+            depths.incrementAndGet(Math.min(Math.max(0, depth), MAX_DEPTH));
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package com.github.dotdot.offheap;
+
+import com.github.dotdot.DotDot;
+import com.github.dotdot.DotPathSet;
+import com.github.dotdot.MapFactory;
+import com.github.dotdot.binary.BinaryDocument;
+import com.github.dotdot.binary.BinaryWriter;
+import com.github.dotdot.converters.StringConverter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Many documents kept in a memory mapped file instead of the heap, each one read by its id.
+ * The documents are stored in the format of {@link BinaryWriter} and read in place as
+ * {@link BinaryDocument}s, and the index of the ids is a hash table inside the file,
+ * so opening a store maps the file and reads nothing else.
+ * <pre>
+ *     try (OffHeapStore.Writer writer = OffHeapStore.create(file)) {
+ *         writer.put("product-1", product1);
+ *     }
+ *     OffHeapStore store = OffHeapStore.open(file);
+ *     String name = store.getString("product-1", "details.name");
+ * </pre>
+ * The heap only holds the most recently read documents, whose key dictionaries are decoded,
+ * see {@link #open(Path, int)}. Wrap a document in a {@link com.github.dotdot.CachedDocument}
+ * to keep the results of its hot paths too.
+ * The file is mapped in regions of one gigabyte, so a store can be larger than 2GB but
+ * a single document must fit in a region. The mapping is released when the store is garbage collected.
+ * Instances can be shared between threads.
+ */
+public final class OffHeapStore {
+
+    /**
+     * Default number of opened documents kept on the heap
+     */
+    public static final int DEFAULT_HOT_DOCUMENTS = 1024;
+
+    static final int DEFAULT_REGION_SIZE = 1 << 30;
+
+    private static final int MAGIC = 0x44445301;
+    private static final int HEADER_SIZE = 32;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer[] regions;
+    private final int regionShift;
+    private final long regionMask;
+    private final long table;
+    private final long slots;
+    private final long count;
+
+    private final int hotDocuments;
+    private final ConcurrentMap<String, Hot> hot = new ConcurrentHashMap<String, Hot>();
+    private Iterator<Hot> hand;
+
+    private OffHeapStore(ByteBuffer[] regions, int regionShift, long table, long slots, long count, int hotDocuments) {
+        this.regions = regions;
+        this.regionShift = regionShift;
+        this.regionMask = (1L << regionShift) - 1;
+        this.table = table;
+        this.slots = slots;
+        this.count = count;
+        this.hotDocuments = hotDocuments;
+    }
+
+    /**
+     * Starts writing a new store, an existing file is replaced.
+     * The store can be opened once the writer is closed.
+     */
+    public static Writer create(Path file) throws IOException {
+        return new Writer(file, DEFAULT_REGION_SIZE);
+    }
+
+    static Writer create(Path file, int regionSize) throws IOException {
+        if (Integer.bitCount(regionSize) != 1 || regionSize < HEADER_SIZE) {
+            throw new IllegalArgumentException("regionSize must be a power of two: " + regionSize);
+        }
+        return new Writer(file, regionSize);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the file is not a store or its writer was not closed
+     */
+    public static OffHeapStore open(Path file) throws IOException {
+        return open(file, DEFAULT_HOT_DOCUMENTS);
+    }
+
+    /**
+     * @param hotDocuments number of opened documents kept on the heap, zero keeps none
+     * @throws IllegalArgumentException if the file is not a store or its writer was not closed
+     */
+    public static OffHeapStore open(Path file, int hotDocuments) throws IOException {
+        if (hotDocuments < 0) {
+            throw new IllegalArgumentException("hotDocuments must not be negative: " + hotDocuments);
+        }
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    break;
+                }
+            }
+            if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+                throw new IllegalArgumentException("Not a document store: " + file);
+            }
+            int regionShift = header.getInt(4);
+            long table = header.getLong(8);
+            long slots = header.getLong(16);
+            long count = header.getLong(24);
+            if (table == 0) {
+                throw new IllegalArgumentException("The writer of the store was not closed: " + file);
+            }
+
+            // the mappings stay valid after the channel is closed
+            long regionSize = 1L << regionShift;
+            ByteBuffer[] regions = new ByteBuffer[(int) ((size + regionSize - 1) >>> regionShift)];
+            for (int i = 0; i < regions.length; i++) {
+                long start = (long) i << regionShift;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(regionSize, size - start));
+            }
+            return new OffHeapStore(regions, regionShift, table, slots, count, hotDocuments);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * @return the document with the id, or null if there is none
+     */
+    public BinaryDocument document(String id) {
+        Hot entry = hot.get(id);
+        if (entry != null) {
+            if (!entry.referenced) {
+                entry.referenced = true;
+            }
+            return entry.document;
+        }
+
+        long record = find(id);
+        if (record < 0) {
+            return null;
+        }
+
+        ByteBuffer region = regions[(int) (record >>> regionShift)];
+        int at = (int) (record & regionMask);
+        int idLength = region.getInt(at + 4);
+        int documentAt = at + 8 + idLength + 4;
+        ByteBuffer bytes = region.duplicate();
+        bytes.limit(documentAt + region.getInt(at + 8 + idLength)).position(documentAt);
+        BinaryDocument document = BinaryDocument.of(bytes);
+
+        if (hotDocuments > 0) {
+            if (hot.size() >= hotDocuments) {
+                evict();
+            }
+            hot.put(id, new Hot(document));
+        }
+        return document;
+    }
+
+    public boolean contains(String id) {
+        return hot.containsKey(id) || find(id) >= 0;
+    }
+
+    /**
+     * @return number of documents
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * @return the value of the path in the document with the id, null if the document or the value does not exist
+     * @throws IllegalStateException if the path goes through a value that is not an object or an array
+     */
+    public Object get(String id, String path) {
+        BinaryDocument document = document(id);
+        return document == null ? null : DotDot.get(path, document);
+    }
+
+    public String getString(String id, String path) {
+        BinaryDocument document = document(id);
+        return document == null ? null : DotDot.getString(path, document);
+    }
+
+    public Integer getInt(String id, String path) {
+        BinaryDocument document = document(id);
+        return document == null ? null : DotDot.getInt(path, document);
+    }
+
+    public Long getLong(String id, String path) {
+        BinaryDocument document = document(id);
+        return document == null ? null : DotDot.getLong(path, document);
+    }
+
+    public Double getDouble(String id, String path) {
+        BinaryDocument document = document(id);
+        return document == null ? null : DotDot.getDouble(path, document);
+    }
+
+    public Boolean getBoolean(String id, String path) {
+        BinaryDocument document = document(id);
+        return document == null ? null : DotDot.getBoolean(path, document);
+    }
+
+    /**
+     * Like {@link DotDot#copyInclude(Map, List)}, the copy is a LinkedHashMap on the heap.
+     * Included objects and arrays are read only views over the file, like the values of {@link #get(String, String)}.
+     * @return the copy, or null if there is no document with the id
+     */
+    public Map<String, Object> copyInclude(String id, List<String> includes) {
+        BinaryDocument document = document(id);
+        if (document == null) {
+            return null;
+        }
+        return DotDot.copyInclude(document, DotPathSet.cached(includes, StringConverter.INSTANCE), MapFactory.LINKED_HASH_MAP);
+    }
+
+    /**
+     * @return position of the record with the id, -1 if there is none
+     */
+    private long find(String id) {
+        if (slots == 0) {
+            return -1;
+        }
+
+        int hash = id.hashCode();
+        byte[] key = null;
+        long mask = slots - 1;
+        for (long slot = hash & mask; ; slot = (slot + 1) & mask) {
+            long record = readLong(table + slot * 8);
+            if (record == 0) {
+                return -1;
+            }
+
+            ByteBuffer region = regions[(int) (record >>> regionShift)];
+            int at = (int) (record & regionMask);
+            if (region.getInt(at) != hash) {
+                continue;
+            }
+            if (key == null) {
+                key = id.getBytes(UTF_8);
+            }
+            if (region.getInt(at + 4) == key.length && matches(region, at + 8, key)) {
+                return record;
+            }
+        }
+    }
+
+    private static boolean matches(ByteBuffer region, int at, byte[] key) {
+        for (int i = 0; i < key.length; i++) {
+            if (region.get(at + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long readLong(long position) {
+        // slots are aligned, so they never cross a region
+        return regions[(int) (position >>> regionShift)].getLong((int) (position & regionMask));
+    }
+
+    /**
+     * Moves the hand until it finds a document that has not been read since the hand
+     * last passed it and drops that document, like the cache of compiled paths
+     */
+    private synchronized void evict() {
+        int steps = 2 * hot.size() + 1;
+        while (steps-- > 0) {
+            if (hand == null || !hand.hasNext()) {
+                hand = hot.values().iterator();
+                if (!hand.hasNext()) {
+                    return;
+                }
+            }
+
+            Hot entry = hand.next();
+            if (entry.referenced) {
+                entry.referenced = false;
+            } else {
+                hand.remove();
+                return;
+            }
+        }
+    }
+
+    private static final class Hot {
+        final BinaryDocument document;
+        volatile boolean referenced;
+
+        Hot(BinaryDocument document) {
+            this.document = document;
+        }
+    }
+
+    /**
+     * Appends documents to a new store file. Every record is
+     * hash (int32), id length (int32), id (UTF-8), document length (int32), document,
+     * and is moved to the next region if it does not fit in the current one.
+     * Closing the writer appends the hash table of the ids and completes the header.
+     * Not thread safe.
+     */
+    public static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private final int regionSize;
+        private final Set<String> ids = new HashSet<String>();
+        private int[] hashes = new int[64];
+        private long[] records = new long[64];
+        private int count;
+        private long position = HEADER_SIZE;
+        private boolean closed;
+
+        private Writer(Path file, int regionSize) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.regionSize = regionSize;
+            // an empty header, the table position stays 0 until the writer is closed
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(0, MAGIC);
+            write(header, 0);
+        }
+
+        /**
+         * @throws IllegalArgumentException if the id was already written, a key of the document is not
+         * a String, a value has an unsupported type, or the document does not fit in a region
+         */
+        public void put(String id, Map<String, ?> document) throws IOException {
+            if (closed) {
+                throw new IllegalStateException("The writer is closed");
+            }
+            if (!ids.add(id)) {
+                throw new IllegalArgumentException("Duplicate id: " + id);
+            }
+
+            byte[] key = id.getBytes(UTF_8);
+            byte[] bytes;
+            try {
+                bytes = BinaryWriter.write(document);
+            } catch (IllegalArgumentException e) {
+                ids.remove(id);
+                throw e;
+            }
+
+            long size = 12L + key.length + bytes.length;
+            if (size > regionSize) {
+                ids.remove(id);
+                throw new IllegalArgumentException("Document " + id + " does not fit in a region: " + size + " bytes");
+            }
+            long offset = position & (regionSize - 1);
+            if (offset + size > regionSize) {
+                position += regionSize - offset;
+            }
+
+            ByteBuffer record = ByteBuffer.allocate((int) size);
+            record.putInt(id.hashCode()).putInt(key.length).put(key).putInt(bytes.length).put(bytes).flip();
+            write(record, position);
+
+            if (count == records.length) {
+                hashes = Arrays.copyOf(hashes, count * 2);
+                records = Arrays.copyOf(records, count * 2);
+            }
+            hashes[count] = id.hashCode();
+            records[count] = position;
+            count++;
+            position += size;
+        }
+
+        /**
+         * Writes the index of the ids and completes the file
+         */
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                // at most half full, so probes stay short
+                long slots = count == 0 ? 0 : Long.highestOneBit(count * 2L - 1) << 1;
+                // aligned, so no slot crosses a region. It is never 0, which marks an unfinished file
+                long table = (position + 7) & ~7L;
+                long mask = slots - 1;
+                long[] entries = new long[(int) slots];
+                for (int i = 0; i < count; i++) {
+                    long s = hashes[i] & mask;
+                    while (entries[(int) s] != 0) {
+                        s = (s + 1) & mask;
+                    }
+                    entries[(int) s] = records[i];
+                }
+                ByteBuffer buffer = ByteBuffer.allocate(8 * 1024);
+                long at = table;
+                for (int i = 0; i < slots; i++) {
+                    buffer.putLong(entries[i]);
+                    if (!buffer.hasRemaining()) {
+                        buffer.flip();
+                        at += write(buffer, at);
+                        buffer.clear();
+                    }
+                }
+                buffer.flip();
+                write(buffer, at);
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(Integer.numberOfTrailingZeros(regionSize))
+                        .putLong(table).putLong(slots).putLong(count).flip();
+                write(header, 0);
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+        }
+
+        private int write(ByteBuffer buffer, long at) throws IOException {
+            int written = buffer.remaining();
+            while (buffer.hasRemaining()) {
+                at += channel.write(buffer, at);
+            }
+            return written;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.dotdot.persistent;
+
+import com.github.dotdot.DotPath;
+import com.github.dotdot.converters.Converter;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Holds the current version of a {@link PersistentMap} that is shared between threads.
+ * Readers take a version with {@link #get()} and never block or see a half done change,
+ * writers replace the version with compare and set.
+ * <pre>
+ *     AtomicPersistentMap&lt;String, Object&gt; config = new AtomicPersistentMap&lt;String, Object&gt;(PersistentMap.of(initial));
+ *     config.putIn("db.pool.size", 20, StringConverter.INSTANCE);
+ *     int size = DotDot.getInt("db.pool.size", config.get());
+ * </pre>
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class AtomicPersistentMap<K, V> {
+
+    private final AtomicReference<PersistentMap<K, V>> current;
+
+    public AtomicPersistentMap() {
+        this(PersistentMap.<K, V>empty());
+    }
+
+    public AtomicPersistentMap(PersistentMap<K, V> initial) {
+        if (initial == null) {
+            throw new IllegalArgumentException("initial must not be null");
+        }
+        this.current = new AtomicReference<PersistentMap<K, V>>(initial);
+    }
+
+    /**
+     * @return the current version
+     */
+    public PersistentMap<K, V> get() {
+        return current.get();
+    }
+
+    /**
+     * Replaces the version if it is still the expected one
+     * @return false if another thread has changed it
+     */
+    public boolean compareAndSet(PersistentMap<K, V> expected, PersistentMap<K, V> update) {
+        if (update == null) {
+            throw new IllegalArgumentException("update must not be null");
+        }
+        return current.compareAndSet(expected, update);
+    }
+
+    /**
+     * Applies the function to the current version until it wins the race with other writers.
+     * The function may run more than once, so it must not have side effects.
+     * @return the new version
+     */
+    public PersistentMap<K, V> update(UnaryOperator<PersistentMap<K, V>> function) {
+        while (true) {
+            PersistentMap<K, V> expected = current.get();
+            PersistentMap<K, V> update = function.apply(expected);
+            if (compareAndSet(expected, update)) {
+                return update;
+            }
+        }
+    }
+
+    /**
+     * Sets the value of the nested path, see {@link PersistentMap#putIn(DotPath, Object)}
+     * @return the new version
+     */
+    public PersistentMap<K, V> putIn(final DotPath<K> path, final Object value) {
+        return update(new UnaryOperator<PersistentMap<K, V>>() {
+            public PersistentMap<K, V> apply(PersistentMap<K, V> map) {
+                return map.putIn(path, value);
+            }
+        });
+    }
+
+    /**
+     * Like {@link #putIn(DotPath, Object)} for a dot separated path
+     */
+    public PersistentMap<K, V> putIn(String path, Object value, Converter<K> converter) {
+        return putIn(DotPath.cached(path, converter), value);
+    }
+
+    /**
+     * Removes the last key of the nested path, see {@link PersistentMap#removeIn(DotPath)}
+     * @return the new version
+     */
+    public PersistentMap<K, V> removeIn(final DotPath<K> path) {
+        return update(new UnaryOperator<PersistentMap<K, V>>() {
+            public PersistentMap<K, V> apply(PersistentMap<K, V> map) {
+                return map.removeIn(path);
+            }
+        });
+    }
+
+    @Override
+    public String toString() {
+        return current.get().toString();
+    }
+}
@@ -0,0 +1,504 @@
+package com.github.dotdot.persistent;
+
+import com.github.dotdot.DotPath;
+import com.github.dotdot.converters.Converter;
+
+import java.util.*;
+
+/**
+ * An immutable map that is changed by creating new versions of it. A new version shares
+ * everything but the changed branch with the previous one: the map is a hash array mapped trie,
+ * so {@link #plus(Object, Object)} copies at most a few small arrays, and {@link #putIn(DotPath, Object)}
+ * copies only the maps on the path instead of the whole document.
+ * <pre>
+ *     PersistentMap&lt;String, Object&gt; v1 = PersistentMap.of(config);
+ *     PersistentMap&lt;String, Object&gt; v2 = v1.putIn("db.pool.size", 20, StringConverter.INSTANCE);
+ *     int size = DotDot.getInt("db.pool.size", v2);
+ * </pre>
+ * It is a read only {@link Map}, so all the DotDot getters work on it and any number of threads
+ * can read it without locking. Use {@link AtomicPersistentMap} to share the latest version.
+ * Null keys and values are allowed.
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class PersistentMap<K, V> extends AbstractMap<K, V> {
+
+    private static final PersistentMap<Object, Object> EMPTY = new PersistentMap<Object, Object>(null, 0);
+
+    // stands for the null key inside the trie, where null marks a nested node
+    private static final Object NULL_KEY = new Object();
+    private static final Object NOT_FOUND = new Object();
+
+    private final Node root;
+    private final int size;
+    private int hash;
+
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * @return the empty map
+     */
+    public static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Copies the map, nested maps are copied into PersistentMaps too
+     */
+    public static <K, V> PersistentMap<K, V> of(Map<K, ? extends V> map) {
+        if (map instanceof PersistentMap) {
+            return (PersistentMap<K, V>) map;
+        }
+
+        PersistentMap<K, V> result = empty();
+        for (Map.Entry<K, ? extends V> entry : map.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof Map) {
+                value = of((Map<Object, Object>) value);
+            }
+            result = result.plus(entry.getKey(), (V) value);
+        }
+        return result;
+    }
+
+    /**
+     * @return a version of this map where the key has the value
+     */
+    public PersistentMap<K, V> plus(K key, V value) {
+        Object masked = mask(key);
+        boolean[] added = new boolean[1];
+        Node node = root != null ? root : BitmapNode.EMPTY;
+        Node newRoot = node.assoc(0, hash(masked), masked, value, added);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentMap<K, V>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * @return a version of this map without the key
+     */
+    public PersistentMap<K, V> minus(Object key) {
+        if (root == null) {
+            return this;
+        }
+
+        Object masked = mask(key);
+        Node newRoot = root.without(0, hash(masked), masked);
+        if (newRoot == root) {
+            return this;
+        }
+        return new PersistentMap<K, V>(newRoot, size - 1);
+    }
+
+    /**
+     * Returns a version of this map where the nested path has the value. Only the maps on the
+     * path are copied, missing levels are created as empty PersistentMaps, like {@link com.github.dotdot.DotDot#put(DotPath, Object, Map)}.
+     * A mutable Map on the path is copied into a PersistentMap.
+     * @throws IllegalStateException if the path goes through a value that is not a Map
+     */
+    public PersistentMap<K, V> putIn(DotPath<K> path, Object value) {
+        if (path.size() == 0) {
+            return this;
+        }
+        return (PersistentMap<K, V>) putIn((PersistentMap<Object, Object>) this, (DotPath<Object>) path, 0, value);
+    }
+
+    /**
+     * Like {@link #putIn(DotPath, Object)} for a dot separated path
+     */
+    public PersistentMap<K, V> putIn(String path, Object value, Converter<K> converter) {
+        return putIn(DotPath.cached(path, converter), value);
+    }
+
+    private static PersistentMap<Object, Object> putIn(PersistentMap<Object, Object> map, DotPath<Object> path, int level, Object value) {
+        Object key = path.key(level);
+        if (level == path.size() - 1) {
+            return map.plus(key, value);
+        }
+
+        Object child = map.get(key);
+        PersistentMap<Object, Object> subMap;
+        if (child == null) {
+            subMap = empty();
+        } else if (child instanceof Map) {
+            subMap = of((Map<Object, Object>) child);
+        } else {
+            throw new IllegalStateException("Cannot move deeper for these keys: " + remaining(path, level + 1));
+        }
+
+        return map.plus(key, putIn(subMap, path, level + 1, value));
+    }
+
+    /**
+     * Returns a version of this map without the last key of the nested path.
+     * Only the maps on the path are copied, the maps that become empty are kept.
+     * @throws IllegalStateException if the path goes through a value that is not a Map
+     */
+    public PersistentMap<K, V> removeIn(DotPath<K> path) {
+        if (path.size() == 0) {
+            return this;
+        }
+        return (PersistentMap<K, V>) removeIn((PersistentMap<Object, Object>) this, (DotPath<Object>) path, 0);
+    }
+
+    /**
+     * Like {@link #removeIn(DotPath)} for a dot separated path
+     */
+    public PersistentMap<K, V> removeIn(String path, Converter<K> converter) {
+        return removeIn(DotPath.cached(path, converter));
+    }
+
+    private static PersistentMap<Object, Object> removeIn(PersistentMap<Object, Object> map, DotPath<Object> path, int level) {
+        Object key = path.key(level);
+        if (level == path.size() - 1) {
+            return map.minus(key);
+        }
+
+        Object child = map.get(key);
+        if (child == null) {
+            return map;
+        }
+        if (!(child instanceof Map)) {
+            throw new IllegalStateException("Cannot move deeper for these keys: " + remaining(path, level + 1));
+        }
+
+        PersistentMap<Object, Object> subMap = of((Map<Object, Object>) child);
+        PersistentMap<Object, Object> newSubMap = removeIn(subMap, path, level + 1);
+        return newSubMap == subMap ? map : map.plus(key, newSubMap);
+    }
+
+    private static String remaining(DotPath<?> path, int start) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = start; i < path.size(); i++) {
+            if (i > start) {
+                sb.append('.');
+            }
+            sb.append(path.segment(i));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public V get(Object key) {
+        if (root == null) {
+            return null;
+        }
+        Object masked = mask(key);
+        Object value = root.find(0, hash(masked), masked, NOT_FOUND);
+        return value == NOT_FOUND ? null : (V) value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (root == null) {
+            return false;
+        }
+        Object masked = mask(key);
+        return root.find(0, hash(masked), masked, NOT_FOUND) != NOT_FOUND;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<Entry<K, V>>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                return new EntryIterator<K, V>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public int hashCode() {
+        // racy but safe, like String.hashCode
+        int h = hash;
+        if (h == 0 && size > 0) {
+            h = super.hashCode();
+            hash = h;
+        }
+        return h;
+    }
+
+    private static Object mask(Object key) {
+        return key == null ? NULL_KEY : key;
+    }
+
+    private static Object unmask(Object key) {
+        return key == NULL_KEY ? null : key;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == b || a.equals(b);
+    }
+
+    private static int bit(int hash, int shift) {
+        return 1 << ((hash >>> shift) & 31);
+    }
+
+    /**
+     * A node of the trie. Its array holds key/value pairs, a null key marks a pair whose value is a nested node.
+     */
+    private abstract static class Node {
+        final Object[] array;
+
+        Node(Object[] array) {
+            this.array = array;
+        }
+
+        abstract Object find(int shift, int hash, Object key, Object notFound);
+
+        abstract Node assoc(int shift, int hash, Object key, Object value, boolean[] added);
+
+        /**
+         * @return the node without the key, null if it becomes empty
+         */
+        abstract Node without(int shift, int hash, Object key);
+    }
+
+    private static final class BitmapNode extends Node {
+        static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+        final int bitmap;
+
+        BitmapNode(int bitmap, Object[] array) {
+            super(array);
+            this.bitmap = bitmap;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        Object find(int shift, int hash, Object key, Object notFound) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return notFound;
+            }
+
+            int i = 2 * index(bit);
+            Object k = array[i];
+            Object v = array[i + 1];
+            if (k == null) {
+                return ((Node) v).find(shift + 5, hash, key, notFound);
+            }
+            return equal(key, k) ? v : notFound;
+        }
+
+        Node assoc(int shift, int hash, Object key, Object value, boolean[] added) {
+            int bit = bit(hash, shift);
+            int i = 2 * index(bit);
+
+            if ((bitmap & bit) == 0) {
+                Object[] newArray = new Object[array.length + 2];
+                System.arraycopy(array, 0, newArray, 0, i);
+                newArray[i] = key;
+                newArray[i + 1] = value;
+                System.arraycopy(array, i, newArray, i + 2, array.length - i);
+                added[0] = true;
+                return new BitmapNode(bitmap | bit, newArray);
+            }
+
+            Object k = array[i];
+            Object v = array[i + 1];
+            if (k == null) {
+                Node node = ((Node) v).assoc(shift + 5, hash, key, value, added);
+                return node == v ? this : new BitmapNode(bitmap, set(array, i + 1, node));
+            }
+            if (equal(key, k)) {
+                return v == value ? this : new BitmapNode(bitmap, set(array, i + 1, value));
+            }
+
+            added[0] = true;
+            Object[] newArray = set(array, i + 1, pair(shift + 5, k, v, hash, key, value));
+            newArray[i] = null;
+            return new BitmapNode(bitmap, newArray);
+        }
+
+        Node without(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+
+            int i = 2 * index(bit);
+            Object k = array[i];
+            Object v = array[i + 1];
+            if (k == null) {
+                Node node = ((Node) v).without(shift + 5, hash, key);
+                if (node == v) {
+                    return this;
+                }
+                if (node != null) {
+                    return new BitmapNode(bitmap, set(array, i + 1, node));
+                }
+            } else if (!equal(key, k)) {
+                return this;
+            }
+
+            if (bitmap == bit) {
+                return null;
+            }
+            return new BitmapNode(bitmap ^ bit, removePair(array, i));
+        }
+
+        /**
+         * Creates the node that holds two keys that share a bucket at the previous level
+         */
+        private static Node pair(int shift, Object key1, Object value1, int hash2, Object key2, Object value2) {
+            int hash1 = hash(key1);
+            if (hash1 == hash2) {
+                return new CollisionNode(hash1, new Object[] {key1, value1, key2, value2});
+            }
+
+            boolean[] added = new boolean[1];
+            return EMPTY.assoc(shift, hash1, key1, value1, added).assoc(shift, hash2, key2, value2, added);
+        }
+    }
+
+    /**
+     * Keys whose whole hash is the same
+     */
+    private static final class CollisionNode extends Node {
+        final int hash;
+
+        CollisionNode(int hash, Object[] array) {
+            super(array);
+            this.hash = hash;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (equal(key, array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        Object find(int shift, int hash, Object key, Object notFound) {
+            int i = indexOf(key);
+            return i < 0 ? notFound : array[i + 1];
+        }
+
+        Node assoc(int shift, int hash, Object key, Object value, boolean[] added) {
+            if (hash != this.hash) {
+                // nest this node one level down, next to the new key
+                Node parent = new BitmapNode(bit(this.hash, shift), new Object[] {null, this});
+                return parent.assoc(shift, hash, key, value, added);
+            }
+
+            int i = indexOf(key);
+            if (i >= 0) {
+                return array[i + 1] == value ? this : new CollisionNode(hash, set(array, i + 1, value));
+            }
+
+            Object[] newArray = Arrays.copyOf(array, array.length + 2);
+            newArray[array.length] = key;
+            newArray[array.length + 1] = value;
+            added[0] = true;
+            return new CollisionNode(hash, newArray);
+        }
+
+        Node without(int shift, int hash, Object key) {
+            int i = indexOf(key);
+            if (i < 0) {
+                return this;
+            }
+            if (array.length == 2) {
+                return null;
+            }
+            return new CollisionNode(hash, removePair(array, i));
+        }
+    }
+
+    private static Object[] set(Object[] array, int i, Object value) {
+        Object[] copy = array.clone();
+        copy[i] = value;
+        return copy;
+    }
+
+    private static Object[] removePair(Object[] array, int i) {
+        Object[] newArray = new Object[array.length - 2];
+        System.arraycopy(array, 0, newArray, 0, i);
+        System.arraycopy(array, i + 2, newArray, i, newArray.length - i);
+        return newArray;
+    }
+
+    /**
+     * Depth first walk of the trie
+     */
+    private static final class EntryIterator<K, V> implements Iterator<Entry<K, V>> {
+        // 7 levels of 5 bits cover the hash, plus one for collisions
+        private final Object[][] arrays = new Object[8][];
+        private final int[] positions = new int[8];
+        private int depth;
+        private Entry<K, V> next;
+
+        EntryIterator(Node root) {
+            if (root != null) {
+                arrays[0] = root.array;
+                depth = 1;
+            }
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (depth > 0) {
+                Object[] array = arrays[depth - 1];
+                int position = positions[depth - 1];
+                if (position >= array.length) {
+                    depth--;
+                    continue;
+                }
+                positions[depth - 1] = position + 2;
+
+                Object key = array[position];
+                Object value = array[position + 1];
+                if (key == null) {
+                    arrays[depth] = ((Node) value).array;
+                    positions[depth] = 0;
+                    depth++;
+                } else {
+                    next = new SimpleImmutableEntry<K, V>((K) unmask(key), (V) value);
+                    return;
+                }
+            }
+        }
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        public Entry<K, V> next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Entry<K, V> entry = next;
+            advance();
+            return entry;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException("PersistentMap is read only");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.dotdot;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+import static com.github.dotdot.DotDot.*;
+
+public class BulkTest {
+
+    private ForkJoinPool pool;
+    private List<Map<String, Object>> documents;
+
+    @Before
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+        documents = new ArrayList<Map<String, Object>>();
+        for (int i = 0; i < 1000; i++) {
+            Map<String, Object> document = new HashMap<String, Object>();
+            put("user.id", i, document);
+            put("user.name", "user" + i, document);
+            if (i % 2 == 0) {
+                put("user.email", i + "@example.com", document);
+            }
+            documents.add(document);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void extractKeepsInputOrder() {
+        List<Object[]> values = bulk(documents).executor(pool).chunkSize(7)
+                .extract(Arrays.asList("user.name", "user.id"));
+
+        assertEquals(documents.size(), values.size());
+        for (int i = 0; i < values.size(); i++) {
+            assertArrayEquals(new Object[] {"user" + i, i}, values.get(i));
+        }
+    }
+
+    @Test
+    public void extractFollowsTheOrderOfEqualSets() {
+        List<Map<String, Object>> first = documents.subList(0, 3);
+        Set<String> nameFirst = new LinkedHashSet<String>(Arrays.asList("user.name", "user.id"));
+        Set<String> idFirst = new LinkedHashSet<String>(Arrays.asList("user.id", "user.name"));
+
+        assertArrayEquals(new Object[] {"user2", 2}, bulk(first).extract(nameFirst).get(2));
+        assertArrayEquals(new Object[] {2, "user2"}, bulk(first).extract(idFirst).get(2));
+    }
+
+    @Test
+    public void copyIncludeAndValidate() {
+        List<Map<String, Object>> copies = bulk(documents).executor(pool).chunkSize(100)
+                .copyInclude(Arrays.asList("user.id"));
+        assertEquals(1, getMap("user", copies.get(10)).size());
+        assertEquals(10, get("user.id", copies.get(10)));
+
+        boolean[] valid = bulk(documents).executor(pool).chunkSize(100)
+                .validate(Arrays.asList("user.id", "user.email"));
+        for (int i = 0; i < valid.length; i++) {
+            assertEquals(i % 2 == 0, valid[i]);
+        }
+    }
+
+    @Test
+    public void mergeOverlay() {
+        Map<String, Object> overlay = new HashMap<String, Object>();
+        put("user.tenant", "metrix", overlay);
+
+        List<Map<String, Object>> merged = bulk(documents).executor(pool).chunkSize(50).merge(overlay);
+        assertEquals("metrix", get("user.tenant", merged.get(999)));
+        assertEquals(999, get("user.id", merged.get(999)));
+        assertNull(get("user.tenant", documents.get(999)));
+    }
+
+    @Test
+    public void smallBatchRunsInline() {
+        List<Object[]> values = bulk(documents.subList(0, 3)).extract(Arrays.asList("user.id"));
+        assertEquals(3, values.size());
+        assertEquals(2, values.get(2)[0]);
+    }
+
+    @Test
+    public void failurePropagates() {
+        try {
+            bulk(documents).executor(pool).chunkSize(10).map(new Function<Map<String, Object>, Object>() {
+                public Object apply(Map<String, Object> document) {
+                    return get("user.id.deeper", document);
+                }
+            });
+            fail("Expected exception");
+        } catch (IllegalStateException exc) {
+            assertEquals("Cannot move deeper for these keys: deeper", exc.getMessage());
+        }
+    }
+}
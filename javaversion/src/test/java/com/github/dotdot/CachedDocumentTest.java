@@ -0,0 +1,106 @@
+package com.github.dotdot;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static com.github.dotdot.DotDot.*;
+
+public class CachedDocumentTest {
+
+    private static Map<String, Object> document() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        put("gateway.upstream.host", "example.com", map);
+        put("gateway.upstream.timeout", 30, map);
+        put("gateway.routes", Arrays.asList("a", "b"), map);
+        put("version", 2, map);
+        return map;
+    }
+
+    @Test
+    public void hitsAndMisses() {
+        CachedDocument doc = CachedDocument.of(document());
+
+        assertEquals("example.com", getString("gateway.upstream.host", doc));
+        assertEquals(Integer.valueOf(30), getInt("gateway.upstream.timeout", doc));
+        assertNull(get("gateway.upstream.port", doc));
+        assertEquals(0, doc.hitCount());
+        assertEquals(3, doc.missCount());
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("example.com", getString("gateway.upstream.host", doc));
+            // misses are cached too
+            assertNull(get("gateway.upstream.port", doc));
+        }
+        assertEquals(10, doc.hitCount());
+        assertEquals(3, doc.missCount());
+        assertEquals(3, doc.cachedCount());
+
+        assertEquals("b", get("gateway.routes.1", doc));
+        assertEquals(document(), doc);
+        assertEquals(2, doc.size());
+    }
+
+    @Test
+    public void failuresAreNotCached() {
+        CachedDocument doc = CachedDocument.of(document());
+        for (int i = 0; i < 2; i++) {
+            try {
+                get("version.x", doc);
+                fail("expected IllegalStateException");
+            } catch (IllegalStateException e) {
+                assertEquals("Cannot move deeper for these keys: x", e.getMessage());
+            }
+        }
+        assertEquals(0, doc.cachedCount());
+    }
+
+    @Test
+    public void evictsWithinWeight() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        for (int i = 0; i < 100; i++) {
+            put("k" + i, i, map);
+        }
+        // room for about four entries
+        long maxWeight = 4 * CachedDocument.weigh("k10", 10);
+        CachedDocument doc = CachedDocument.of(map, maxWeight);
+
+        get("k0", doc);
+        for (int i = 1; i < 100; i++) {
+            // k0 is read again every time, so the clock keeps giving it a second chance
+            assertEquals(0, get("k0", doc));
+            assertEquals(i, get("k" + i, doc));
+            assertTrue(doc.weight() <= maxWeight);
+        }
+
+        assertTrue(doc.evictionCount() > 90);
+        long hits = doc.hitCount();
+        get("k0", doc);
+        assertEquals(hits + 1, doc.hitCount());
+
+        // too heavy to be cached at all
+        CachedDocument tiny = CachedDocument.of(map, 10);
+        assertEquals(5, get("k5", tiny));
+        assertEquals(0, tiny.cachedCount());
+    }
+
+    @Test
+    public void invalidateAndReload() {
+        Map<String, Object> map = document();
+        CachedDocument doc = CachedDocument.of(map);
+        assertEquals(2, get("version", doc));
+
+        map.put("version", 3);
+        assertEquals(2, get("version", doc));
+        doc.invalidate();
+        assertEquals(3, get("version", doc));
+
+        Map<String, Object> next = new HashMap<String, Object>();
+        put("version", 4, next);
+        doc.reload(next);
+        assertEquals(4, get("version", doc));
+        assertNull(get("gateway.upstream.host", doc));
+        assertEquals(next, doc.document());
+    }
+}
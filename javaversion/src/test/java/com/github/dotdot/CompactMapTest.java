@@ -0,0 +1,117 @@
+package com.github.dotdot;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static com.github.dotdot.DotDot.*;
+
+public class CompactMapTest {
+
+    @Test
+    public void behavesLikeAHashMap() {
+        Map<String, Object> compact = new CompactMap<String, Object>();
+        Map<String, Object> hash = new HashMap<String, Object>();
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            String key = "k" + random.nextInt(12);
+            switch (random.nextInt(4)) {
+                case 0:
+                    assertEquals(hash.remove(key), compact.remove(key));
+                    break;
+                case 1:
+                    assertEquals(hash.get(key), compact.get(key));
+                    assertEquals(hash.containsKey(key), compact.containsKey(key));
+                    break;
+                default:
+                    assertEquals(hash.put(key, i), compact.put(key, i));
+            }
+            assertEquals(hash.size(), compact.size());
+        }
+        assertEquals(hash, compact);
+        assertEquals(compact, hash);
+        assertEquals(hash.hashCode(), compact.hashCode());
+
+        compact.put(null, "null key");
+        assertEquals("null key", compact.get(null));
+        compact.clear();
+        assertTrue(compact.isEmpty());
+        assertNull(compact.get("k1"));
+    }
+
+    @Test
+    public void upgradesBeyondEightEntries() {
+        CompactMap<String, Object> map = new CompactMap<String, Object>();
+        for (int i = 0; i < CompactMap.MAX_COMPACT_SIZE; i++) {
+            map.put("key" + i, i);
+        }
+        List<String> keys = new ArrayList<String>(map.keySet());
+        assertEquals(Arrays.asList("key0", "key1", "key2", "key3", "key4", "key5", "key6", "key7"), keys);
+
+        map.put("key8", 8);
+        assertEquals(9, map.size());
+        for (int i = 0; i <= 8; i++) {
+            assertEquals(i, map.get("key" + i));
+        }
+        assertEquals(Integer.valueOf(3), map.remove("key3"));
+        assertEquals(8, map.size());
+    }
+
+    @Test
+    public void iteratorRemovesAndWritesThrough() {
+        Map<String, Object> map = new CompactMap<String, Object>();
+        for (int i = 0; i < 5; i++) {
+            map.put("key" + i, i);
+        }
+
+        Iterator<Map.Entry<String, Object>> entries = map.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, Object> entry = entries.next();
+            if ((Integer) entry.getValue() % 2 == 0) {
+                entries.remove();
+            } else {
+                entry.setValue("odd");
+            }
+        }
+        Map<String, Object> expected = new HashMap<String, Object>();
+        expected.put("key1", "odd");
+        expected.put("key3", "odd");
+        assertEquals(expected, map);
+    }
+
+    @Test
+    public void factoryInternsKeys() {
+        KeyPool pool = KeyPool.create(100);
+        MapFactory factory = CompactMap.factory(pool);
+        Map<String, Object> first = factory.create(0);
+        Map<String, Object> second = factory.create(0);
+        put(new String("user.name"), "a", first, factory);
+        put(new String("user.name"), "b", second, factory);
+
+        assertTrue(get("user", first) instanceof CompactMap);
+        String firstKey = ((Map<String, Object>) get("user", first)).keySet().iterator().next();
+        String secondKey = ((Map<String, Object>) get("user", second)).keySet().iterator().next();
+        assertSame(firstKey, secondKey);
+        assertEquals(2, pool.size());
+
+        // copies are CompactMaps of the same pool
+        Map<String, Object> copy = copyInclude(first, Arrays.asList("user.name"));
+        assertTrue(copy instanceof CompactMap);
+        assertSame(pool, ((CompactMap<String, Object>) copy).pool());
+        assertEquals(first, copy);
+    }
+
+    @Test
+    public void fullPoolReturnsKeysAsTheyAre() {
+        KeyPool pool = KeyPool.create(1);
+        String a = pool.intern(new String("a"));
+        assertSame(a, pool.intern(new String("a")));
+
+        String b = new String("b");
+        assertSame(b, pool.intern(b));
+        assertNotSame(b, pool.intern(new String("b")));
+        assertEquals(1, pool.size());
+        assertNull(pool.intern(null));
+    }
+}
@@ -0,0 +1,144 @@
+package com.github.dotdot;
+
+import com.github.dotdot.converters.StringConverter;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.BiFunction;
+
+import static org.junit.Assert.*;
+import static com.github.dotdot.DotDot.*;
+
+public class ConcurrentPutTest {
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 20;
+
+    /**
+     * Runs the task on all threads at once, `ROUNDS` times with a fresh map each time
+     */
+    private static void race(final Callable<Void> task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            final CyclicBarrier barrier = new CyclicBarrier(THREADS);
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        barrier.await();
+                        return task.call();
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void noWriteIsLost() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            final ConcurrentMap<String, Object> map = new ConcurrentHashMap<String, Object>();
+
+            race(new Callable<Void>() {
+                public Void call() {
+                    // every thread writes below the same missing levels
+                    for (int i = 0; i < 200; i++) {
+                        putConcurrent("a.b.c" + (i % 10) + ".t" + Thread.currentThread().getId() + "_" + i, i, map);
+                    }
+                    return null;
+                }
+            });
+
+            int leaves = 0;
+            for (String key : getKeysInDotFormat(map)) {
+                leaves++;
+                assertTrue(key, key.startsWith("a.b.c"));
+            }
+            assertEquals(THREADS * 200, leaves);
+            assertTrue(get("a.b", map) instanceof ConcurrentHashMap);
+        }
+    }
+
+    @Test
+    public void countersAreAtomic() throws Exception {
+        final ConcurrentMap<String, Object> map = new ConcurrentHashMap<String, Object>();
+        race(new Callable<Void>() {
+            public Void call() {
+                for (int i = 0; i < 1000; i++) {
+                    incrementAtPath("stats.total.hits", 1, map);
+                    incrementAtPath("stats.region" + (i % 4) + ".hits", 2, map);
+                    mergeAtPath("stats.max", i, map, new BiFunction<Object, Object, Object>() {
+                        public Object apply(Object existing, Object value) {
+                            return Math.max((Integer) existing, (Integer) value);
+                        }
+                    });
+                }
+                return null;
+            }
+        });
+
+        assertEquals(THREADS * 1000L, get("stats.total.hits", map));
+        for (int region = 0; region < 4; region++) {
+            assertEquals(THREADS * 500L, get("stats.region" + region + ".hits", map));
+        }
+        assertEquals(999, get("stats.max", map));
+    }
+
+    @Test
+    public void computeAtPath() {
+        ConcurrentMap<String, Object> map = new ConcurrentSkipListMap<String, Object>();
+        BiFunction<String, Object, Object> append = new BiFunction<String, Object, Object>() {
+            public Object apply(String key, Object existing) {
+                return existing == null ? key : existing + "," + key;
+            }
+        };
+
+        assertEquals("x", DotDot.computeAtPath("a.b.x", map, append));
+        assertEquals("x,x", DotDot.computeAtPath("a.b.x", map, append));
+        assertTrue(get("a.b", map) instanceof ConcurrentSkipListMap);
+
+        putConcurrent("a.b.x", null, map);
+        assertFalse(getMap("a.b", map).containsKey("x"));
+    }
+
+    @Test
+    public void plainMapOnThePath() {
+        ConcurrentMap<String, Object> map = new ConcurrentHashMap<String, Object>();
+        map.put("plain", new HashMap<String, Object>());
+        map.put("leaf", 1);
+
+        try {
+            putConcurrent("plain.x", 1, map);
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("Cannot update concurrently below a map that is not a ConcurrentMap: x", e.getMessage());
+        }
+        try {
+            incrementAtPath("leaf.x.y", 1, map);
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("Cannot move deeper for these keys: x.y", e.getMessage());
+        }
+    }
+
+    @Test
+    public void factoryOfPlainMapsLeavesTheTreeUnchanged() {
+        ConcurrentMap<String, Object> map = new ConcurrentHashMap<String, Object>();
+        map.put("kept", 1);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                putConcurrent(DotPath.compile("a.b.x", StringConverter.INSTANCE), 1, map, MapFactory.HASH_MAP);
+                fail("expected IllegalStateException");
+            } catch (IllegalStateException e) {
+                assertEquals("Cannot update concurrently below a map that is not a ConcurrentMap: b.x", e.getMessage());
+            }
+            assertEquals(Collections.singletonMap("kept", 1), map);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.dotdot;
+
+import com.github.dotdot.converters.IntConverter;
+import com.github.dotdot.converters.StringConverter;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static com.github.dotdot.DotDot.*;
+
+public class DiffTest {
+
+    private static DotPath<String> path(String path) {
+        return DotPath.compile(path, StringConverter.INSTANCE);
+    }
+
+    private static Map<String, Object> document() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        put("user.id", 7, map);
+        put("user.name", "Mostafa", map);
+        put("user.address.city", "Tehran", map);
+        put("settings.theme", "dark", map);
+        put("version", 1, map);
+        put("tags", Arrays.asList("a", "b"), map);
+        return map;
+    }
+
+    @Test
+    public void diffAndApply() {
+        Map<String, Object> oldMap = document();
+        Map<String, Object> newMap = document();
+        put("user.name", "M", newMap);
+        remove("user.address.city", newMap);
+        put("user.email", "m@example.com", newMap);
+        put("version", 2, newMap);
+        newMap.remove("tags");
+        put("settings", "none", newMap);
+        put("version", null, newMap);
+        put("extra.a.b", 1, newMap);
+
+        List<PatchOperation<String>> patch = diff(oldMap, newMap);
+        Set<PatchOperation<String>> expected = new HashSet<PatchOperation<String>>(Arrays.asList(
+                PatchOperation.set(path("user.name"), "M"),
+                PatchOperation.<String>remove(path("user.address.city")),
+                PatchOperation.set(path("user.email"), "m@example.com"),
+                PatchOperation.<String>remove(path("tags")),
+                PatchOperation.set(path("settings"), "none"),
+                PatchOperation.set(path("version"), null),
+                PatchOperation.replaceSubtree(path("extra"), getMap("extra", newMap))));
+        assertEquals(expected, new HashSet<PatchOperation<String>>(patch));
+        assertEquals(expected.size(), patch.size());
+
+        applyPatch(patch, oldMap);
+        assertEquals(newMap, oldMap);
+
+        // the replaced subtree is a copy
+        put("extra.a.c", 2, oldMap);
+        assertNull(get("extra.a.c", newMap));
+    }
+
+    @Test
+    public void replaceLeafWithSubtree() {
+        Map<String, Object> oldMap = document();
+        Map<String, Object> newMap = document();
+        newMap.put("version", new HashMap<String, Object>());
+        put("version.major", 2, newMap);
+
+        List<PatchOperation<String>> patch = diff(oldMap, newMap);
+        assertEquals(1, patch.size());
+        assertEquals(PatchOperation.Type.REPLACE_SUBTREE, patch.get(0).type());
+        assertEquals("REPLACE_SUBTREE version={major=2}", patch.get(0).toString());
+
+        applyPatch(patch, oldMap);
+        assertEquals(newMap, oldMap);
+    }
+
+    @Test
+    public void sharedSubtreesAreSkipped() {
+        Map<String, Object> oldMap = document();
+        Map<String, Object> newMap = new HashMap<String, Object>(oldMap);
+        newMap.put("version", 2);
+
+        // a map that would fail any lookup proves that diff does not look inside shared subtrees
+        Map<String, Object> shared = new HashMap<String, Object>() {
+            @Override
+            public Set<Map.Entry<String, Object>> entrySet() {
+                throw new AssertionError("shared subtree was walked");
+            }
+        };
+        oldMap.put("big", shared);
+        newMap.put("big", shared);
+
+        assertEquals(Collections.singletonList(PatchOperation.set(path("version"), 2)), diff(oldMap, newMap));
+    }
+
+    @Test
+    public void nullsAndEmpty() {
+        assertTrue(diff(document(), document()).isEmpty());
+        // one REMOVE per top level key
+        assertEquals(4, diff(document(), null).size());
+
+        Map<String, Object> target = new HashMap<String, Object>();
+        applyPatch(diff(null, document()), target);
+        assertEquals(document(), target);
+    }
+
+    @Test
+    public void otherKeyTypes() {
+        Map<Integer, Object> oldMap = new HashMap<Integer, Object>();
+        Map<Integer, Object> newMap = new HashMap<Integer, Object>();
+        put("1.2", "a", oldMap, IntConverter.INSTANCE);
+        put("1.2", "b", newMap, IntConverter.INSTANCE);
+
+        List<PatchOperation<Integer>> patch = diff(oldMap, newMap);
+        assertEquals(DotPath.compile("1.2", IntConverter.INSTANCE), patch.get(0).path());
+        applyPatch(patch, oldMap);
+        assertEquals("b", get("1.2", oldMap, IntConverter.INSTANCE));
+    }
+
+    @Test
+    public void removePath() {
+        Map<String, Object> map = document();
+        assertEquals("Tehran", remove("user.address.city", map));
+        assertTrue(getMap("user.address", map).isEmpty());
+        assertNull(remove("missing.x", map));
+        try {
+            remove("version.x", map);
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("Cannot move deeper for these keys: x", e.getMessage());
+        }
+    }
+}
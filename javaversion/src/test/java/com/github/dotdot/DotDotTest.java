@@ -4,6 +4,7 @@ import com.github.dotdot.converters.IntConverter;
 import org.junit.Test;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 import static com.github.dotdot.DotDot.*;
@@ -140,6 +141,34 @@ public class DotDotTest {
         assertEquals(100, get("b", map));
     }
 
+    @Test
+    public void putDeepTest() {
+        Map<String, Object> map = new TreeMap<String, Object>();
+
+        put("a.b.c.d.e.f.g.h.i.j.k.l", 1, map);
+        put("a.b.c.d.e.f.x", 2, map);
+        put("a.b.c.d.e.f.g.h.i.j.k.l", 3, map);
+
+        assertEquals(3, get("a.b.c.d.e.f.g.h.i.j.k.l", map));
+        assertEquals(2, get("a.b.c.d.e.f.x", map));
+        assertEquals(2, getMap("a.b.c.d.e.f", map).size());
+        assertEquals(TreeMap.class, getMap("a.b.c.d.e.f.g.h", map).getClass());
+    }
+
+    @Test
+    public void putThroughValueIsNotMap() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        put("a.b", 1, map);
+
+        try {
+            put("a.b.c.d", 2, map);
+            fail("Expected exception");
+        } catch (IllegalStateException exc) {
+            assertEquals("Cannot move deeper for these keys: c.d", exc.getMessage());
+        }
+        assertEquals(1, get("a.b", map));
+    }
+
     @Test
     public void copyIncludeTest() {
         Map<String, Object> map = new HashMap<String, Object>();
@@ -283,6 +312,138 @@ public class DotDotTest {
         ));
     }
 
+    @Test
+    public void streamKeysInDotFormatTest() {
+        Map<String, Object> map = new HashMap<String, Object>();
+
+        put("a.b.c.d1", 12, map);
+        put("a.b.c.d2", "Hello", map);
+        put("a.b2", 3.141592, map);
+        put("a.b.c.d3.A", "Mostafa", map);
+        put("a.empty", new HashMap<String, Object>(), map);
+        put("b", 100, map);
+
+        Set<String> expected = new HashSet<String>(Arrays.asList("b", "a.b2", "a.b.c.d1", "a.b.c.d2", "a.b.c.d3.A"));
+        assertEquals(expected, getKeysInDotFormat(map));
+        assertEquals(expected, streamKeysInDotFormat(map).collect(Collectors.toSet()));
+        assertTrue(streamKeysInDotFormat(map).anyMatch("a.b.c.d2"::equals));
+    }
+
+    @Test
+    public void streamKeysInDotFormatParallelTest() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        Set<String> expected = new HashSet<String>();
+        for (int i = 0; i < 1000; i++) {
+            String path = "k" + (i % 37) + ".m" + (i % 5) + ".leaf" + i;
+            put(path, i, map);
+            expected.add(path);
+        }
+
+        List<String> keys = streamKeysInDotFormat(map).parallel().collect(Collectors.toList());
+        assertEquals(expected.size(), keys.size());
+        assertEquals(expected, new HashSet<String>(keys));
+    }
+
+    @Test
+    public void walkLeavesTest() {
+        Map<String, Object> map = new TreeMap<String, Object>();
+        put("a.b.c", 1, map);
+        put("a.d", 2, map);
+        put("e", 3, map);
+
+        final List<String> visited = new ArrayList<String>();
+        boolean completed = walkLeaves(map, new LeafVisitor<String>() {
+            public boolean visit(List<String> path, Object value) {
+                visited.add(path + "=" + value);
+                return true;
+            }
+        });
+        assertTrue(completed);
+        assertEquals(Arrays.asList("[a, b, c]=1", "[a, d]=2", "[e]=3"), visited);
+
+        visited.clear();
+        completed = walkLeaves(map, new LeafVisitor<String>() {
+            public boolean visit(List<String> path, Object value) {
+                visited.add(path.get(path.size() - 1));
+                return visited.size() < 2;
+            }
+        });
+        assertFalse(completed);
+        assertEquals(Arrays.asList("c", "d"), visited);
+    }
+
+    @Test
+    public void mergeNestedMapsTest() {
+        Map<String, Object> map1 = new HashMap<String, Object>();
+        put("a.b.c", 1, map1);
+        put("a.b.d", 2, map1);
+        put("x", "first", map1);
+
+        Map<String, Object> map2 = new HashMap<String, Object>();
+        put("a.b.d", 20, map2);
+        put("a.e", 3, map2);
+        put("x", "second", map2);
+
+        Map<String, Object> merged = mergeNestedMaps(map1, map2);
+        assertEquals(1, get("a.b.c", merged));
+        assertEquals(20, get("a.b.d", merged));
+        assertEquals(3, get("a.e", merged));
+        assertEquals("second", get("x", merged));
+
+        // the inputs are untouched and nothing is shared with them
+        assertEquals(2, get("a.b.d", map1));
+        put("a.b.c", 100, merged);
+        assertEquals(1, get("a.b.c", map1));
+    }
+
+    @Test
+    public void mergePoliciesTest() {
+        Map<String, Object> map1 = new HashMap<String, Object>();
+        put("a.list", Arrays.asList(1, 2), map1);
+        put("a.value", "first", map1);
+
+        Map<String, Object> map2 = new HashMap<String, Object>();
+        put("a.list", Arrays.asList(3), map2);
+        put("a.value", "second", map2);
+
+        Map<String, Object> firstWins = mergeNestedMaps(map1, map2, MergePolicy.FIRST_WINS);
+        assertEquals("first", get("a.value", firstWins));
+        assertEquals(Arrays.asList(1, 2), get("a.list", firstWins));
+
+        Map<String, Object> concat = mergeNestedMaps(map1, map2, MergePolicy.LIST_CONCAT);
+        assertEquals("second", get("a.value", concat));
+        assertEquals(Arrays.asList(1, 2, 3), get("a.list", concat));
+
+        Map<String, Object> custom = mergeNestedMaps(map1, map2, new MergePolicy() {
+            public Object resolve(Object key, Object existing, Object incoming) {
+                return key + ":" + existing + "+" + incoming;
+            }
+        });
+        assertEquals("value:first+second", get("a.value", custom));
+    }
+
+    @Test
+    public void mergeShareSubtreesTest() {
+        Map<String, Object> shared = new HashMap<String, Object>();
+        put("c.d", 1, shared);
+
+        Map<String, Object> map1 = new HashMap<String, Object>();
+        map1.put("only1", shared);
+        put("both.x", 1, map1);
+
+        Map<String, Object> map2 = new HashMap<String, Object>();
+        put("both.y", 2, map2);
+
+        Map<String, Object> copied = mergeNestedMaps(map1, map2, MergePolicy.LAST_WINS, false);
+        assertNotSame(shared, copied.get("only1"));
+        assertEquals(shared, copied.get("only1"));
+
+        Map<String, Object> merged = mergeNestedMaps(map1, map2, MergePolicy.LAST_WINS, true);
+        assertSame(shared, merged.get("only1"));
+        assertEquals(1, get("both.x", merged));
+        assertEquals(2, get("both.y", merged));
+    }
+
     @Test
     public void typeExtend_byte_Test() {
         Map<String, Object> map = new HashMap<String, Object>();
@@ -329,6 +490,35 @@ public class DotDotTest {
         assertEquals(new Double(l), getDouble("long", map));
     }
 
+    @Test
+    public void primitiveGettersTest() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        put("a.int", 10, map);
+        put("a.long", 20L, map);
+        put("a.double", 1.5, map);
+
+        assertEquals(10, getIntOrDefault("a.int", map, -1));
+        assertEquals(-1, getIntOrDefault("a.missing", map, -1));
+        assertEquals(-1, getIntOrDefault("missing.int", map, -1));
+        assertEquals(20L, getLongOrDefault("a.long", map, -1L));
+        assertEquals(10L, getLongOrDefault("a.int", map, -1L));
+        assertEquals(1.5, getDoubleOrDefault("a.double", map, -1), 0);
+        assertEquals(-1, getDoubleOrDefault("a.missing", null, -1), 0);
+
+        assertEquals(OptionalInt.of(10), findInt("a.int", map));
+        assertFalse(findInt("a.missing", map).isPresent());
+        assertEquals(OptionalLong.of(20L), findLong("a.long", map));
+        assertEquals(OptionalDouble.of(1.5), findDouble("a.double", map));
+        assertFalse(findDouble("a.double.x", new HashMap<String, Object>()).isPresent());
+    }
+
+    @Test
+    public void getByteWidensAnyNumber() {
+        Map<Integer, Object> map = new HashMap<Integer, Object>();
+        map.put(1, 10);
+        assertEquals(new Byte((byte) 10), getByte("1", map, new IntConverter()));
+    }
+
     @Test
     public void typeExtend_float_Test() {
         Map<String, Object> map = new HashMap<String, Object>();
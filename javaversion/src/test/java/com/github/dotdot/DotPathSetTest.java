@@ -0,0 +1,141 @@
+package com.github.dotdot;
+
+import com.github.dotdot.converters.StringConverter;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static com.github.dotdot.DotDot.*;
+
+public class DotPathSetTest {
+
+    private static Map<String, Object> document() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        put("payload.user.id", 7, map);
+        put("payload.user.name", "Mostafa", map);
+        put("payload.user.address.city", "Tehran", map);
+        put("payload.type", "login", map);
+        put("version", 2, map);
+        return map;
+    }
+
+    @Test
+    public void extract() {
+        DotPathSet<String> paths = DotPathSet.compile(
+                Arrays.asList("payload.user.name", "version", "payload.user.id", "payload.missing.x", "payload.user.name"),
+                new StringConverter());
+
+        Object[] values = paths.extract(document());
+        assertArrayEquals(new Object[] {"Mostafa", 2, 7, null, "Mostafa"}, values);
+
+        Object[] reused = {"stale", "stale", "stale", "stale", "stale"};
+        paths.extract(null, reused);
+        assertArrayEquals(new Object[5], reused);
+    }
+
+    @Test
+    public void extractValueIsNotMap() {
+        DotPathSet<String> paths = DotPathSet.compile(Arrays.asList("version", "payload.type.x.y"), new StringConverter());
+
+        try {
+            paths.extract(document());
+            fail("Expected exception");
+        } catch (IllegalStateException exc) {
+            assertEquals("Cannot move deeper for these keys: x.y", exc.getMessage());
+        }
+    }
+
+    @Test
+    public void allHaveValue() {
+        Map<String, Object> map = document();
+        assertTrue(DotPathSet.compile(Arrays.asList("payload.user.id", "payload.user.address.city", "version"),
+                new StringConverter()).allHaveValue(map));
+        assertFalse(DotPathSet.compile(Arrays.asList("payload.user.id", "payload.user.age"),
+                new StringConverter()).allHaveValue(map));
+        assertFalse(DotPathSet.compile(Arrays.asList("payload.user.id", "other.x"),
+                new StringConverter()).allHaveValue(map));
+
+        assertTrue(ensureHaveValue(new HashSet<String>(Arrays.asList("payload.type", "version")), map, new StringConverter()));
+        assertFalse(ensureHaveValue(new HashSet<String>(Arrays.asList("payload.type", "nothing")), map, new StringConverter()));
+    }
+
+    @Test
+    public void copyIncludeOfMissingPrefixLikeSeparatePuts() {
+        Map<String, Object> map = document();
+        List<List<String>> cases = Arrays.asList(
+                Arrays.asList("a.b", "a"),
+                Arrays.asList("a", "a.b"),
+                Arrays.asList("a.b", "a", "a.c"),
+                Arrays.asList("a.b.c", "a.b", "version"));
+
+        for (List<String> includes : cases) {
+            Map<String, Object> expected = new HashMap<String, Object>();
+            for (String path : includes) {
+                put(path, get(path, map), expected);
+            }
+            assertEquals(includes.toString(), expected, copyInclude(map, includes));
+        }
+
+        Map<String, Object> lastWins = new HashMap<String, Object>();
+        lastWins.put("a", null);
+        assertEquals(lastWins, copyInclude(map, Arrays.asList("a.b", "a")));
+    }
+
+    @Test
+    public void copyIncludeLikeSeparatePuts() {
+        Map<String, Object> map = document();
+        List<String> includes = Arrays.asList("payload.user.id", "payload.user.address", "payload.user.address.city",
+                "missing.a", "version");
+
+        Map<String, Object> copied = copyInclude(map, includes);
+        Map<String, Object> expected = new HashMap<String, Object>();
+        for (String path : includes) {
+            put(path, get(path, map), expected);
+        }
+
+        assertEquals(expected, copied);
+        assertEquals(7, get("payload.user.id", copied));
+        assertSame(getMap("payload.user.address", map), get("payload.user.address", copied));
+        assertTrue(copied.containsKey("missing"));
+        assertNull(get("missing.a", copied));
+        assertNull(get("payload.user.name", copied));
+    }
+
+    @Test
+    public void copyInto() {
+        Map<String, Object> target = new TreeMap<String, Object>();
+        put("payload.kept", true, target);
+
+        DotPathSet.compile(Arrays.asList("payload.user.name", "version"), new StringConverter())
+                .copyInto(document(), target);
+
+        assertEquals(true, get("payload.kept", target));
+        assertEquals("Mostafa", get("payload.user.name", target));
+        assertEquals(2, get("version", target));
+        assertEquals(TreeMap.class, getMap("payload.user", target).getClass());
+    }
+
+    @Test
+    public void cachedByEqualCollection() {
+        List<String> paths = new ArrayList<String>(Arrays.asList("a.b", "c"));
+        DotPathSet<String> first = DotPathSet.cached(paths, new StringConverter());
+        assertSame(first, DotPathSet.cached(Arrays.asList("a.b", "c"), new StringConverter()));
+
+        paths.add("d");
+        assertSame(first, DotPathSet.cached(Arrays.asList("a.b", "c"), new StringConverter()));
+        assertEquals(3, DotPathSet.cached(paths, new StringConverter()).size());
+    }
+
+    @Test
+    public void cachedSetsKeepTheirOrder() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        put("a", 1, map);
+        put("b", 2, map);
+
+        Set<String> ab = new LinkedHashSet<String>(Arrays.asList("a", "b"));
+        Set<String> ba = new LinkedHashSet<String>(Arrays.asList("b", "a"));
+        assertArrayEquals(new Object[] {1, 2}, DotPathSet.cached(ab, new StringConverter()).extract(map));
+        assertArrayEquals(new Object[] {2, 1}, DotPathSet.cached(ba, new StringConverter()).extract(map));
+    }
+}
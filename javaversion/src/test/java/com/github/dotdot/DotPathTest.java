@@ -0,0 +1,119 @@
+package com.github.dotdot;
+
+import com.github.dotdot.converters.Converter;
+import com.github.dotdot.converters.IntConverter;
+import com.github.dotdot.converters.StringConverter;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static com.github.dotdot.DotDot.*;
+
+public class DotPathTest {
+
+    @After
+    public void resetCache() {
+        DotPath.setCacheCapacity(DotPath.DEFAULT_CACHE_CAPACITY);
+    }
+
+    @Test
+    public void splitLikeStringSplit() {
+        String[] paths = {"a", "a.b.c", "a..b", "a.b.", "a.b..", ".a", "", ".", "..", "a. .b"};
+        for (String path : paths) {
+            assertArrayEquals(path, path.split("\\."), DotPath.split(path));
+        }
+    }
+
+    @Test
+    public void compileConvertsKeys() {
+        DotPath<Integer> path = DotPath.compile("2.22.31", new IntConverter());
+        assertEquals(3, path.size());
+        assertEquals(new Integer(22), path.key(1));
+        assertEquals("22", path.segment(1));
+        assertEquals("2.22.31", path.toString());
+    }
+
+    @Test
+    public void compiledPathAccess() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        DotPath<String> deep = DotPath.compile("a.b.c", new StringConverter());
+        DotPath<String> shallow = DotPath.compile("b", new StringConverter());
+
+        put(deep, 12, map);
+        put(shallow, "Hello", map);
+
+        assertEquals(12, get(deep, map));
+        assertEquals(new Integer(12), getInt(deep, map));
+        assertEquals(new Long(12), getLong(deep, map));
+        assertEquals("Hello", getString(shallow, map));
+        assertTrue(ensureHaveValue(deep, map));
+        assertFalse(ensureHaveValue(DotPath.compile("a.x", new StringConverter()), map));
+        assertEquals(new Integer(7), getInt(DotPath.compile("a.b.x", new StringConverter()), map, 7));
+
+        Map<String, Object> copied = copyInclude(map, deep);
+        assertEquals(1, copied.size());
+        assertEquals(12, get("a.b.c", copied));
+    }
+
+    @Test
+    public void compiledPathNotMap() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        put("a.b", 1, map);
+
+        try {
+            get(DotPath.compile("a.b.c.d", new StringConverter()), map);
+            fail("Expected exception");
+        } catch (IllegalStateException exc) {
+            assertEquals("Cannot move deeper for these keys: c.d", exc.getMessage());
+        }
+    }
+
+    @Test
+    public void cachedPathIsShared() {
+        DotPath<String> first = DotPath.cached("a.b.c", new StringConverter());
+        DotPath<String> second = DotPath.cached("a.b.c", new StringConverter());
+        assertSame(first, second);
+        assertEquals(DotPath.compile("a.b.c", new StringConverter()), first);
+    }
+
+    @Test
+    public void cacheIsBounded() {
+        DotPath.setCacheCapacity(2);
+        DotPath.cached("a", new StringConverter());
+        DotPath.cached("b", new StringConverter());
+        DotPath.cached("c", new StringConverter());
+        DotPath.cached("d", new StringConverter());
+
+        int cached = 0;
+        for (String path : Arrays.asList("a", "b", "c", "d")) {
+            if (DotPath.cached(path, new StringConverter()) == DotPath.cached(path, new StringConverter())) {
+                cached++;
+            }
+        }
+        assertTrue(cached > 0);
+    }
+
+    @Test
+    public void cacheCanBeDisabled() {
+        DotPath.setCacheCapacity(0);
+        assertNotSame(DotPath.cached("a.b", new StringConverter()), DotPath.cached("a.b", new StringConverter()));
+    }
+
+    @Test
+    public void newConverterPerCallDoesNotGrowTheCache() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        put("a.b", 1, map);
+
+        for (int i = 0; i < 10000; i++) {
+            Converter<String> converter = new Converter<String>() {
+                public String convert(String text) {
+                    return text;
+                }
+            };
+            assertEquals(1, get("a.b", map, converter));
+        }
+        assertTrue(DotPath.cachedConverterCount() <= CompileCache.MAX_CONVERTERS);
+    }
+}
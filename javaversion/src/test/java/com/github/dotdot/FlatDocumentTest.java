@@ -0,0 +1,115 @@
+package com.github.dotdot;
+
+import com.github.dotdot.converters.StringConverter;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static com.github.dotdot.DotDot.*;
+
+public class FlatDocumentTest {
+
+    private static Map<String, Object> document() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        put("payload.user.id", 7, map);
+        put("payload.user.name", "Mostafa", map);
+        put("payload.user.address.city", "Tehran", map);
+        put("payload.type", "login", map);
+        put("payload.tags", Arrays.asList("a", "b"), map);
+        put("version", 2, map);
+        map.put("empty", new HashMap<String, Object>());
+        return map;
+    }
+
+    @Test
+    public void resolve() {
+        FlatDocument doc = FlatDocument.of(document());
+
+        assertEquals(7, doc.leafCount());
+        assertEquals(7, doc.resolve("payload.user.id"));
+        assertEquals("Tehran", doc.resolve("payload.user.address.city"));
+        assertEquals(2, doc.resolve("version"));
+        assertEquals(Arrays.asList("a", "b"), doc.resolve("payload.tags"));
+        assertEquals(Collections.emptyMap(), doc.resolve("empty"));
+        assertEquals(document().get("payload"), doc.resolve("payload"));
+
+        assertNull(doc.resolve("payload.user.age"));
+        assertNull(doc.resolve("payload.missing.x"));
+        assertNull(doc.resolve("empty.x"));
+        assertNull(doc.resolve("missing"));
+    }
+
+    @Test
+    public void resolveThroughLeaf() {
+        FlatDocument doc = FlatDocument.of(document());
+        try {
+            doc.resolve("payload.type.x.y");
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("Cannot move deeper for these keys: x.y", e.getMessage());
+        }
+    }
+
+    @Test
+    public void getUsesTheIndex() {
+        FlatDocument doc = FlatDocument.of(document());
+
+        assertEquals(7, getInt("payload.user.id", doc).intValue());
+        assertEquals(7, getIntOrDefault("payload.user.id", doc, -1));
+        assertEquals("Mostafa", getString(DotPath.cached("payload.user.name", StringConverter.INSTANCE), doc));
+        assertTrue(ensureHaveValue("payload.user.address.city", doc));
+        assertFalse(ensureHaveValue("payload.user.address.street", doc));
+        assertEquals(Collections.singletonMap("city", "Tehran"), getMap("payload.user.address", doc));
+    }
+
+    @Test
+    public void mapView() {
+        Map<String, Object> source = document();
+        FlatDocument doc = FlatDocument.of(source);
+
+        assertEquals(source, doc);
+        assertEquals(doc, source);
+        assertEquals(source.hashCode(), doc.hashCode());
+        assertEquals(new TreeSet<String>(source.keySet()), doc.keySet());
+        assertEquals(new TreeSet<String>(getKeysInDotFormat(source)), new TreeSet<String>(getKeysInDotFormat(doc)));
+
+        Map<String, Object> user = (Map<String, Object>) ((Map<String, Object>) doc.get("payload")).get("user");
+        assertEquals(3, user.size());
+        assertTrue(user.containsKey("address"));
+        assertFalse(user.containsKey("address.city"));
+        assertNull(doc.get("payload.user"));
+    }
+
+    @Test
+    public void emptyKeyIsALevel() {
+        Map<String, Object> source = new HashMap<String, Object>();
+        source.put("", new HashMap<String, Object>(Collections.singletonMap("x", 1)));
+        source.put("x", 2);
+        FlatDocument doc = FlatDocument.of(source);
+
+        assertEquals(2, doc.leafCount());
+        assertEquals(get(".x", source), get(".x", doc));
+        assertEquals(2, get("x", doc));
+        assertEquals(source, doc);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void readOnly() {
+        FlatDocument.of(document()).put("version", 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsKeysWithDot() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put("a.b", 1);
+        FlatDocument.of(map);
+    }
+
+    @Test
+    public void emptyDocument() {
+        FlatDocument doc = FlatDocument.of(new HashMap<String, Object>());
+        assertTrue(doc.isEmpty());
+        assertNull(doc.resolve("a.b"));
+    }
+}
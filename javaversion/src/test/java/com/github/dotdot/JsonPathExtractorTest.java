@@ -0,0 +1,170 @@
+package com.github.dotdot;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class JsonPathExtractorTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String JSON = "{\n" +
+            "  \"took\": 12,\n" +
+            "  \"timed_out\": false,\n" +
+            "  \"_shards\": {\"total\": 5, \"failed\": 0, \"tags\": [\"a\", {\"b\": \"}\"}]},\n" +
+            "  \"hits\": {\n" +
+            "    \"total\": 2,\n" +
+            "    \"max_score\": 1.5e0,\n" +
+            "    \"hits\": [{\"_id\": \"1\"}, {\"_id\": \"2\"}],\n" +
+            "    \"user\": {\"name\": \"Mostafa \\\"m\\\" \\u00e9\\ud83d\\ude00\", \"age\": -31, \"address\": null}\n" +
+            "  },\n" +
+            "  \"big\": 123456789012345678901,\n" +
+            "  \"caf\\u00e9\": \"escaped key\"\n" +
+            "}";
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(UTF_8);
+    }
+
+    @Test
+    public void extract() {
+        JsonPathExtractor extractor = JsonPathExtractor.compile(Arrays.asList(
+                "took", "hits.total", "hits.max_score", "hits.user.name", "hits.user.age",
+                "timed_out", "hits.missing", "missing.x", "hits.user.address.city", "big", "caf\u00e9"));
+
+        Object[] values = extractor.extract(bytes(JSON));
+        assertArrayEquals(new Object[] {12L, 2L, 1.5d, "Mostafa \"m\" \u00e9\ud83d\ude00", -31L,
+                false, null, null, null, 1.23456789012345678901e20, "escaped key"}, values);
+    }
+
+    @Test
+    public void extractSubtrees() {
+        JsonPathExtractor extractor = JsonPathExtractor.compile(Arrays.asList(
+                "_shards", "hits.hits", "_shards.tags", "_shards.total"));
+
+        Object[] values = extractor.extract(bytes(JSON));
+
+        Map<String, Object> shards = new LinkedHashMap<String, Object>();
+        shards.put("total", 5L);
+        shards.put("failed", 0L);
+        List<Object> tags = Arrays.asList("a", (Object) Collections.singletonMap("b", "}"));
+        shards.put("tags", tags);
+        assertEquals(shards, values[0]);
+        assertEquals(Arrays.asList(Collections.singletonMap("_id", "1"), Collections.singletonMap("_id", "2")), values[1]);
+        assertEquals(tags, values[2]);
+        assertEquals(5L, values[3]);
+    }
+
+    @Test
+    public void sameResultsForEveryInput() throws IOException {
+        JsonPathExtractor extractor = JsonPathExtractor.compile(Arrays.asList("hits.user.name", "big", "hits.hits"));
+        Object[] expected = extractor.extract(bytes(JSON));
+
+        byte[] padded = bytes("xx" + JSON + "yy");
+        assertArrayEquals(expected, extractor.extract(padded, 2, padded.length - 4));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes(JSON).length);
+        direct.put(bytes(JSON)).flip();
+        assertArrayEquals(expected, extractor.extract(direct));
+        assertEquals(0, direct.position());
+
+        // one byte at a time, so every token is split between reads
+        InputStream slow = new ByteArrayInputStream(bytes(JSON)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(1, len));
+            }
+        };
+        assertArrayEquals(expected, extractor.extract(slow));
+    }
+
+    @Test
+    public void stopsWhenAllPathsAreFound() throws IOException {
+        JsonPathExtractor extractor = JsonPathExtractor.compile(Arrays.asList("took"));
+        // the rest of the document is never read
+        assertArrayEquals(new Object[] {1L}, extractor.extract(bytes("{\"took\": 1, \"rest\": [[[")));
+
+        ByteArrayInputStream stream = new ByteArrayInputStream(bytes("{\"took\": 1, \"rest\": [[["));
+        assertArrayEquals(new Object[] {1L}, extractor.extract(stream));
+    }
+
+    @Test
+    public void firstDuplicateKeyWins() {
+        JsonPathExtractor extractor = JsonPathExtractor.compile(Arrays.asList("a.b", "c"));
+        assertArrayEquals(new Object[] {1L, 3L}, extractor.extract(bytes("{\"a\": {\"b\": 1}, \"a\": {\"b\": 2}, \"c\": 3}")));
+    }
+
+    @Test
+    public void nullDocument() {
+        JsonPathExtractor extractor = JsonPathExtractor.compile(Arrays.asList("a.b"));
+        assertArrayEquals(new Object[1], extractor.extract(bytes(" null ")));
+    }
+
+    @Test
+    public void valueIsNotObject() {
+        JsonPathExtractor extractor = JsonPathExtractor.compile(Arrays.asList("took.x.y"));
+        try {
+            extractor.extract(bytes(JSON));
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("Cannot move deeper for these keys: x.y", e.getMessage());
+        }
+
+        extractor = JsonPathExtractor.compile(Arrays.asList("_shards", "_shards.tags.x"));
+        try {
+            extractor.extract(bytes(JSON));
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("Cannot move deeper for these keys: x", e.getMessage());
+        }
+    }
+
+    @Test
+    public void indexIntoArrays() {
+        JsonPathExtractor extractor = JsonPathExtractor.compile(Arrays.asList(
+                "hits.hits.1._id", "hits.hits.5._id", "_shards.tags.0", "_shards.tags.1.b", "_shards.tags", "_shards.tags.1"));
+
+        Object[] values = extractor.extract(bytes(JSON));
+        assertArrayEquals(new Object[] {"2", null, "a", "}",
+                Arrays.asList("a", (Object) Collections.singletonMap("b", "}")), Collections.singletonMap("b", "}")}, values);
+
+        extractor = JsonPathExtractor.compile(Arrays.asList("hits.hits.x"));
+        try {
+            extractor.extract(bytes(JSON));
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("Cannot move deeper for these keys: x", e.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void malformed() {
+        JsonPathExtractor.compile(Arrays.asList("a")).extract(bytes("{\"a\" 1}"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void notAnObject() {
+        JsonPathExtractor.compile(Arrays.asList("a")).extract(bytes("[1, 2]"));
+    }
+
+    @Test
+    public void sameAsGetOnParsedMap() {
+        Map<String, Object> expected = new HashMap<String, Object>();
+        DotDot.put("payload.user.id", 7L, expected);
+        DotDot.put("payload.type", "login", expected);
+
+        List<String> paths = Arrays.asList("payload.user.id", "payload.type", "payload.user.name", "payload");
+        Object[] values = JsonPathExtractor.compile(paths)
+                .extract(bytes("{\"payload\": {\"user\": {\"id\": 7}, \"type\": \"login\"}}"));
+        for (int i = 0; i < paths.size(); i++) {
+            assertEquals(DotDot.get(paths.get(i), expected), values[i]);
+        }
+    }
+}
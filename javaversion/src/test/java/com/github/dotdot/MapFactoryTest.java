@@ -0,0 +1,82 @@
+package com.github.dotdot;
+
+import com.github.dotdot.converters.StringConverter;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static org.junit.Assert.*;
+import static com.github.dotdot.DotDot.*;
+
+public class MapFactoryTest {
+
+    public static class CustomMap extends HashMap<String, Object> {
+    }
+
+    @Test
+    public void sameAs() {
+        assertSame(MapFactory.HASH_MAP, MapFactory.sameAs(new HashMap<String, Object>()));
+        assertSame(MapFactory.LINKED_HASH_MAP, MapFactory.sameAs(new LinkedHashMap<String, Object>()));
+        assertSame(MapFactory.TREE_MAP, MapFactory.sameAs(new TreeMap<String, Object>()));
+        assertSame(MapFactory.CONCURRENT_HASH_MAP, MapFactory.sameAs(new ConcurrentHashMap<String, Object>()));
+
+        assertEquals(CustomMap.class, MapFactory.sameAs(new CustomMap()).create(0).getClass());
+        assertEquals(HashMap.class, MapFactory.sameAs(Collections.emptyMap()).create(4).getClass());
+        assertEquals(ConcurrentSkipListMap.class, MapFactory.sameAs(new ConcurrentSkipListMap<String, Object>()).create(0).getClass());
+    }
+
+    @Test
+    public void sortedMapsKeepTheirComparator() {
+        Map<String, Object> map = new TreeMap<String, Object>(Collections.reverseOrder());
+        put("a.x", 1, map);
+        put("a.y", 2, map);
+
+        TreeMap<String, Object> level = (TreeMap<String, Object>) get("a", map);
+        assertEquals(Collections.reverseOrder(), level.comparator());
+        assertEquals(Arrays.asList("y", "x"), new ArrayList<String>(level.keySet()));
+    }
+
+    @Test
+    public void putWithFactory() {
+        Map<String, Object> map = Collections.synchronizedMap(new HashMap<String, Object>());
+        put("a.b.c", 1, map, MapFactory.LINKED_HASH_MAP);
+        assertTrue(get("a", map) instanceof LinkedHashMap);
+        assertTrue(get("a.b", map) instanceof LinkedHashMap);
+
+        // without a factory, maps that cannot be instantiated get HashMap levels
+        put("d.e", 1, map);
+        assertEquals(HashMap.class, get("d", map).getClass());
+    }
+
+    @Test
+    public void copyIncludeAndMergeWithFactory() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        put("user.id", 7, map);
+        put("user.name", "Mostafa", map);
+        put("version", 2, map);
+
+        DotPathSet<String> includes = DotPathSet.compile(Arrays.asList("user.id", "version"), StringConverter.INSTANCE);
+        Map<String, Object> copy = copyInclude(map, includes, MapFactory.TREE_MAP);
+        assertTrue(copy instanceof TreeMap);
+        assertTrue(get("user", copy) instanceof TreeMap);
+        assertEquals(7, get("user.id", copy));
+
+        Map<String, Object> overlay = new HashMap<String, Object>();
+        put("user.name", "M", overlay);
+        Map<String, Object> merged = mergeNestedMaps(map, overlay, MergePolicy.LAST_WINS, false, MapFactory.LINKED_HASH_MAP);
+        assertTrue(merged instanceof LinkedHashMap);
+        assertTrue(get("user", merged) instanceof LinkedHashMap);
+        assertEquals("M", get("user.name", merged));
+    }
+
+    @Test
+    public void putConcurrentWithFactory() {
+        ConcurrentSkipListMap<String, Object> map = new ConcurrentSkipListMap<String, Object>();
+        putConcurrent(DotPath.compile("a.b", StringConverter.INSTANCE), 1, map, MapFactory.CONCURRENT_HASH_MAP);
+        assertTrue(get("a", map) instanceof ConcurrentHashMap);
+        incrementAtPath("c.d", 1, map);
+        assertTrue(get("c", map) instanceof ConcurrentSkipListMap);
+    }
+}
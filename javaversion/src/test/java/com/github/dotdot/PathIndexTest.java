@@ -0,0 +1,148 @@
+package com.github.dotdot;
+
+import com.github.dotdot.converters.IntConverter;
+import com.github.dotdot.converters.StringConverter;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+import static com.github.dotdot.DotDot.*;
+
+public class PathIndexTest {
+
+    private static Map<String, Object> order() {
+        Map<String, Object> order = new HashMap<String, Object>();
+        List<Object> items = new ArrayList<Object>();
+        for (int i = 0; i < 3; i++) {
+            Map<String, Object> item = new HashMap<String, Object>();
+            item.put("price", 10 * (i + 1));
+            item.put("tags", new String[] {"t" + i});
+            items.add(item);
+        }
+        order.put("items", items);
+        order.put("scores", new int[] {4, 5, 6});
+        order.put("linked", new LinkedList<Object>(Arrays.asList("a", "b")));
+        order.put("id", 7);
+        return order;
+    }
+
+    @Test
+    public void indexIntoListsAndArrays() {
+        Map<String, Object> order = order();
+
+        assertEquals(20, get("items.1.price", order));
+        assertEquals("t2", get("items.2.tags.0", order));
+        assertEquals(5, get("scores.1", order));
+        assertEquals("b", get("linked.1", order));
+        assertEquals(Integer.valueOf(30), getInt("items.2.price", order));
+
+        // out of range is like a missing key
+        assertNull(get("items.3.price", order));
+        assertNull(get("scores.3", order));
+        assertFalse(ensureHaveValue("items.9", order));
+        assertTrue(ensureHaveValue("items.0.price", order));
+    }
+
+    @Test
+    public void nonNumericKeyBelowList() {
+        try {
+            get("items.first.price", order());
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("Cannot move deeper for these keys: first.price", e.getMessage());
+        }
+        try {
+            get("id.0", order());
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("Cannot move deeper for these keys: 0", e.getMessage());
+        }
+    }
+
+    @Test
+    public void readBackArrayOfKeyValue() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        putAsArrayOfKeyValue("headers", Collections.<String, Object>singletonMap("host", "example.com"), map);
+
+        assertEquals("host", get("headers.0.key", map));
+        assertEquals("example.com", get("headers.0.value", map));
+    }
+
+    @Test
+    public void numericKeys() {
+        Map<Integer, Object> map = new HashMap<Integer, Object>();
+        map.put(1, Arrays.asList("a", Collections.singletonMap(2, "b")));
+
+        assertEquals("a", get("1.0", map, IntConverter.INSTANCE));
+        assertEquals("b", get("1.1.2", map, IntConverter.INSTANCE));
+        assertNull(get("1.5", map, IntConverter.INSTANCE));
+    }
+
+    @Test
+    public void pathSet() {
+        DotPathSet<String> paths = DotPathSet.compile(
+                Arrays.asList("items.0.price", "items.2.price", "items.7.price", "scores.2"), StringConverter.INSTANCE);
+        assertArrayEquals(new Object[] {10, 30, null, 6}, paths.extract(order()));
+        assertFalse(paths.allHaveValue(order()));
+    }
+
+    @Test
+    public void wildcards() {
+        Map<String, Object> order = order();
+
+        assertEquals(Arrays.<Object>asList(10, 20, 30), matches("items.*.price", order));
+        assertEquals(Arrays.<Object>asList("t0", "t1", "t2"), matches("items.*.tags.*", order));
+        assertEquals(Arrays.<Object>asList(4, 5, 6), matches("scores.*", order));
+        assertEquals(Arrays.<Object>asList(20), matches("items.1.price", order));
+        // branches that do not fit are skipped
+        assertEquals(Collections.emptyList(), matches("id.*", order));
+        assertEquals(Collections.emptyList(), matches("missing.*.price", order));
+        assertEquals(4, matches("*", order).size());
+
+        assertEquals(60, streamMatches("items.*.price", order).mapToInt(new java.util.function.ToIntFunction<Object>() {
+            public int applyAsInt(Object price) {
+                return (Integer) price;
+            }
+        }).sum());
+        assertEquals(Integer.valueOf(10), streamMatches("items.*.price", order).findFirst().get());
+        assertEquals(0, streamMatches("items.*.price", null).count());
+    }
+
+    @Test
+    public void wildcardsWithNumericKeys() {
+        Map<Integer, Object> map = new TreeMap<Integer, Object>();
+        map.put(1, Collections.singletonMap(5, "a"));
+        map.put(2, Collections.singletonMap(5, "b"));
+
+        final List<Object> found = new ArrayList<Object>();
+        forEachMatch("*.5", map, IntConverter.INSTANCE, new Consumer<Object>() {
+            public void accept(Object value) {
+                found.add(value);
+            }
+        });
+        assertEquals(Arrays.<Object>asList("a", "b"), found);
+        assertEquals(2, streamMatches("*.5", map, IntConverter.INSTANCE).count());
+    }
+
+    /**
+     * Collects the matches of both forEachMatch and streamMatches, which must agree
+     */
+    private static List<Object> matches(String path, Map<String, Object> map) {
+        final List<Object> found = new ArrayList<Object>();
+        forEachMatch(path, map, new Consumer<Object>() {
+            public void accept(Object value) {
+                found.add(value);
+            }
+        });
+
+        List<Object> streamed = new ArrayList<Object>();
+        Iterator<Object> iterator = streamMatches(path, map).iterator();
+        while (iterator.hasNext()) {
+            streamed.add(iterator.next());
+        }
+        assertEquals(found, streamed);
+        return found;
+    }
+}
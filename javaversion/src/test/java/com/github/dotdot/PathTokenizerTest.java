@@ -0,0 +1,120 @@
+package com.github.dotdot;
+
+import com.github.dotdot.converters.IntConverter;
+import com.github.dotdot.converters.LongConverter;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static com.github.dotdot.DotDot.*;
+
+public class PathTokenizerTest {
+
+    private static List<String> segments(String path) {
+        List<String> segments = new ArrayList<String>();
+        PathTokenizer tokens = new PathTokenizer(path);
+        while (tokens.next()) {
+            segments.add(tokens.segment());
+        }
+        return segments;
+    }
+
+    @Test
+    public void segmentsLikeStringSplit() {
+        String[] paths = {"a", "a.b.c", "a..b", "a.b.", "a.b..", ".a", "", ".", "..", "a. .b"};
+        for (String path : paths) {
+            assertEquals(path, Arrays.asList(path.split("\\.")), segments(path));
+            assertEquals(path, path.split("\\.").length, PathTokenizer.count(path));
+        }
+    }
+
+    @Test
+    public void ranges() {
+        PathTokenizer tokens = new PathTokenizer(new StringBuilder("ab.c.def."));
+        assertTrue(tokens.next());
+        assertEquals(0, tokens.start());
+        assertEquals(2, tokens.end());
+        assertEquals("c.def", tokens.remaining());
+        assertFalse(tokens.isLast());
+
+        assertTrue(tokens.next());
+        assertTrue(tokens.next());
+        assertEquals("def", tokens.segment());
+        assertEquals("", tokens.remaining());
+        assertTrue(tokens.isLast());
+        assertFalse(tokens.next());
+
+        tokens.reset("x");
+        assertTrue(tokens.next());
+        assertEquals("x", tokens.segment());
+    }
+
+    @Test
+    public void convertInPlaceLikeValueOf() {
+        String[] numbers = {"0", "7", "-7", "+7", "2147483647", "-2147483648", "9223372036854775807",
+                "-9223372036854775808", "2147483648", "9223372036854775808", "", "-", "1a", "1.5", " 1"};
+        for (String number : numbers) {
+            String path = "x." + number + ".y";
+            int start = 2;
+            int end = start + number.length();
+
+            Object expected;
+            Object actual;
+            try {
+                expected = Integer.valueOf(number);
+            } catch (NumberFormatException e) {
+                expected = "invalid";
+            }
+            try {
+                actual = IntConverter.INSTANCE.convertToInt(path, start, end);
+            } catch (NumberFormatException e) {
+                actual = "invalid";
+            }
+            assertEquals(number, expected, actual);
+
+            try {
+                expected = Long.valueOf(number);
+            } catch (NumberFormatException e) {
+                expected = "invalid";
+            }
+            try {
+                actual = LongConverter.INSTANCE.convertToLong(path, start, end);
+            } catch (NumberFormatException e) {
+                actual = "invalid";
+            }
+            assertEquals(number, expected, actual);
+        }
+    }
+
+    @Test
+    public void numericPaths() {
+        Map<Long, Object> map = new HashMap<Long, Object>();
+        put("3.17.42", "value", map, LongConverter.INSTANCE);
+        put("3.18", "leaf", map, LongConverter.INSTANCE);
+
+        assertEquals("value", getString("3.17.42", map, LongConverter.INSTANCE));
+        assertNull(get("3.16.42", map, LongConverter.INSTANCE));
+        try {
+            get("3.18.1.2", map, LongConverter.INSTANCE);
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("Cannot move deeper for these keys: 1.2", e.getMessage());
+        }
+    }
+
+    @Test
+    public void subclassedConverterIsNotBypassed() {
+        IntConverter shifted = new IntConverter() {
+            @Override
+            public Integer convert(String text) {
+                return Integer.valueOf(text) + 100;
+            }
+        };
+        Map<Integer, Object> map = new HashMap<Integer, Object>();
+        put("1.2", "value", map, shifted);
+
+        assertEquals("value", get("1.2", map, shifted));
+        assertTrue(map.containsKey(101));
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.dotdot;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static com.github.dotdot.DotDot.*;
+
+public class ProjectionTest {
+
+    private static Map<String, Object> document() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        put("user.name", "Alice", map);
+        put("user.password", "secret", map);
+        put("user.session.token", "t1", map);
+        put("user.session.started", 100, map);
+        put("orders.o1.total", 10, map);
+        put("orders.o1.card.token", "t2", map);
+        put("orders.o2.total", 20, map);
+        put("orders.o2.items", Arrays.asList("a", "b"), map);
+        put("version", 3, map);
+        return map;
+    }
+
+    @Test
+    public void excludesOnly() {
+        Map<String, Object> doc = document();
+        Map<String, Object> copy = copyExclude(doc, Arrays.asList("user.password", "version"));
+
+        Map<String, Object> expected = document();
+        remove("user.password", expected);
+        remove("version", expected);
+        assertEquals(expected, copy);
+
+        // untouched subtrees are shared, the levels above an exclude are new
+        assertSame(get("orders", doc), get("orders", copy));
+        assertSame(get("user.session", doc), get("user.session", copy));
+        assertNotSame(get("user", doc), get("user", copy));
+        assertEquals("secret", get("user.password", doc));
+    }
+
+    @Test
+    public void wildcards() {
+        Map<String, Object> doc = document();
+
+        Map<String, Object> tokensRemoved = copyExclude(doc, Arrays.asList("**.token"));
+        assertNull(get("user.session.token", tokensRemoved));
+        assertNull(get("orders.o1.card.token", tokensRemoved));
+        assertEquals(Integer.valueOf(100), get("user.session.started", tokensRemoved));
+        assertTrue(getMap("orders.o1.card", tokensRemoved).isEmpty());
+
+        Map<String, Object> totals = Projection.builder().include("orders.*.total").build().apply(doc);
+        Map<String, Object> expected = new HashMap<String, Object>();
+        put("orders.o1.total", 10, expected);
+        put("orders.o2.total", 20, expected);
+        assertEquals(expected, totals);
+
+        // `**` also matches no key at all
+        Map<String, Object> deep = Projection.builder().include("user.**.token").build().apply(doc);
+        expected = new HashMap<String, Object>();
+        put("user.session.token", "t1", expected);
+        assertEquals(expected, deep);
+
+        assertEquals(doc, Projection.builder().include("**").build().apply(doc));
+        assertEquals(Collections.emptyMap(), Projection.builder().exclude("*").build().apply(doc));
+    }
+
+    @Test
+    public void excludesWinOverIncludes() {
+        Map<String, Object> doc = document();
+        Projection<String> projection = Projection.builder()
+                .include("user")
+                .include("orders.o2")
+                .include("missing.path")
+                .exclude("user.password")
+                .exclude("user.session")
+                .exclude("**.items")
+                .build();
+
+        Map<String, Object> expected = new HashMap<String, Object>();
+        put("user.name", "Alice", expected);
+        put("orders.o2.total", 20, expected);
+        assertEquals(expected, projection.apply(doc));
+        assertEquals(Arrays.asList("user", "orders.o2", "missing.path"), projection.includes());
+    }
+
+    @Test
+    public void pathsStopAtValues() {
+        Map<String, Object> doc = document();
+        // `version` is not a map and `orders.o2.items` is a list, neither fails
+        Map<String, Object> copy = Projection.builder()
+                .include("version.x")
+                .include("orders.o2.items.0")
+                .include("user.name")
+                .build()
+                .apply(doc);
+
+        Map<String, Object> expected = new HashMap<String, Object>();
+        put("user.name", "Alice", expected);
+        assertEquals(expected, copy);
+    }
+
+    @Test
+    public void copiesSubtreesWhenNotShared() {
+        Map<String, Object> doc = new TreeMap<String, Object>(document());
+        Map<String, Object> copy = Projection.builder()
+                .exclude("version")
+                .shareSubtrees(false)
+                .build()
+                .apply(doc);
+
+        assertTrue(copy instanceof TreeMap);
+        assertEquals(get("orders", doc), get("orders", copy));
+        assertNotSame(get("orders", doc), get("orders", copy));
+        assertNotSame(get("orders.o1", doc), get("orders.o1", copy));
+        assertNull(get("version", copy));
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.dotdot;
+
+import org.junit.Test;
+
+import java.io.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static com.github.dotdot.DotDot.*;
+
+public class ValidationExceptionsTest {
+
+    private static Map<String, Object> payload() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        put("user.id", 7, map);
+        put("type", "login", map);
+        return map;
+    }
+
+    @Test
+    public void stackTraceByDefault() {
+        try {
+            mustHaveValue("user.name", payload());
+            fail("expected NoValueException");
+        } catch (NoValueException e) {
+            assertTrue(e.getStackTrace().length > 0);
+            assertEquals("user.name value is missing", e.getMessage());
+        }
+    }
+
+    @Test
+    public void lightweight() {
+        List<Exception> failures = ValidationPlan.builder()
+                .lightweightExceptions(true)
+                .required("user.name")
+                .mustEqual("type", "logout")
+                .mustEqual("user.email", "x")
+                .build()
+                .validate(payload());
+
+        assertEquals(3, failures.size());
+        for (Exception failure : failures) {
+            assertEquals(0, failure.getStackTrace().length);
+        }
+        assertEquals("user.name value is missing", failures.get(0).getMessage());
+        assertEquals("com.github.dotdot.NoValueException: user.name value is missing", failures.get(0).toString());
+        assertEquals("Provided value is type=login but expected type=logout", failures.get(1).getMessage());
+        assertEquals("Value of 'user.email' is missing", failures.get(2).getMessage());
+    }
+
+    @Test
+    public void lightweightIsPerPlan() {
+        ValidationPlan.builder().lightweightExceptions(true).required("a").build();
+
+        List<Exception> failures = ValidationPlan.builder().required("a").build().validate(payload());
+        assertTrue(failures.get(0).getStackTrace().length > 0);
+        try {
+            mustHaveValue("user.name", payload());
+            fail("expected NoValueException");
+        } catch (NoValueException e) {
+            assertTrue(e.getStackTrace().length > 0);
+        }
+    }
+
+    @Test
+    public void userExceptionsAreUnchanged() {
+        assertEquals("custom", new NotEqualException("custom").getMessage());
+        assertNull(new NoValueException().getMessage());
+        assertTrue(new NoValueException("x").getStackTrace().length > 0);
+    }
+
+    @Test
+    public void serializeLazyMessage() throws Exception {
+        NotEqualException exception = null;
+        try {
+            mustEqual("type", (Object) "logout", payload());
+        } catch (NotEqualException e) {
+            exception = e;
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(exception);
+        out.close();
+        Object copy = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+        assertEquals("Provided value is type=login but expected type=logout", ((Exception) copy).getMessage());
+    }
+
+    @Test
+    public void checkWithoutThrowing() {
+        Map<String, Object> map = payload();
+
+        assertEquals(CheckResult.OK, checkValue("user.id", map));
+        assertEquals(CheckResult.MISSING, checkValue("user.name", map));
+        assertEquals(CheckResult.OK, checkEqual("type", (Object) "login", map));
+        assertEquals(CheckResult.NOT_EQUAL, checkEqual("type", (Object) "logout", map));
+        assertEquals(CheckResult.MISSING, checkEqual("user.name", (Object) "x", map));
+        assertEquals(CheckResult.OK, checkEqual("user.name", null, map));
+        assertTrue(checkEqual(DotPath.compile("user.id", com.github.dotdot.converters.StringConverter.INSTANCE), (Object) 7, map).isOk());
+    }
+}
@@ -0,0 +1,111 @@
+package com.github.dotdot;
+
+import com.github.dotdot.converters.IntConverter;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static com.github.dotdot.DotDot.*;
+
+public class ValidationPlanTest {
+
+    private static final ValidationPlan<String> PLAN = ValidationPlan.builder()
+            .required("user.id")
+            .mustEqual("type", "login")
+            .mustBe("user.age", Number.class)
+            .mustEqual("user.deleted", null)
+            .required("user.name")
+            .build();
+
+    private static Map<String, Object> payload() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        put("user.id", 7, map);
+        put("user.name", "Mostafa", map);
+        put("user.age", 31, map);
+        put("type", "login", map);
+        return map;
+    }
+
+    @Test
+    public void valid() throws Exception {
+        assertTrue(PLAN.isValid(payload()));
+        assertTrue(PLAN.validate(payload()).isEmpty());
+        PLAN.mustBeValid(payload());
+        assertEquals(5, PLAN.size());
+    }
+
+    @Test
+    public void collectsEveryFailure() {
+        Map<String, Object> map = payload();
+        put("user.id", null, map);
+        put("type", "logout", map);
+        put("user.age", "31", map);
+        put("user.deleted", true, map);
+
+        assertFalse(PLAN.isValid(map));
+        List<Exception> failures = PLAN.validate(map);
+        assertEquals(4, failures.size());
+
+        assertTrue(failures.get(0) instanceof NoValueException);
+        assertEquals("user.id value is missing", failures.get(0).getMessage());
+        assertTrue(failures.get(1) instanceof NotEqualException);
+        assertEquals("Provided value is type=logout but expected type=login", failures.get(1).getMessage());
+        assertEquals("Value of 'user.age' is a java.lang.String but expected a java.lang.Number", failures.get(2).getMessage());
+        assertEquals("Provided value is user.deleted=true but expected user.deleted=null", failures.get(3).getMessage());
+    }
+
+    @Test
+    public void sameMessagesAsDotDot() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        ValidationPlan<String> plan = ValidationPlan.builder().required("a.b").mustEqual("a.c", 1).build();
+        List<Exception> failures = plan.validate(map);
+
+        try {
+            mustHaveValue("a.b", map);
+            fail("expected NoValueException");
+        } catch (NoValueException e) {
+            assertEquals(e.getMessage(), failures.get(0).getMessage());
+        }
+        try {
+            mustEqual("a.c", (Object) 1, map);
+            fail("expected NotEqualException");
+        } catch (NotEqualException e) {
+            assertEquals(e.getMessage(), failures.get(1).getMessage());
+        }
+    }
+
+    @Test
+    public void mustBeValidThrowsTheFirstFailure() {
+        Map<String, Object> map = payload();
+        map.remove("type");
+        put("user.name", null, map);
+
+        try {
+            PLAN.mustBeValid(map);
+            fail("expected NotEqualException");
+        } catch (NotEqualException e) {
+            assertEquals("Value of 'type' is missing", e.getMessage());
+            assertEquals(1, e.getSuppressed().length);
+            assertTrue(e.getSuppressed()[0] instanceof NoValueException);
+        } catch (NoValueException e) {
+            fail("expected NotEqualException");
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void valueIsNotMap() {
+        Map<String, Object> map = payload();
+        map.put("user", 1);
+        PLAN.validate(map);
+    }
+
+    @Test
+    public void otherKeyTypes() {
+        Map<Integer, Object> map = new HashMap<Integer, Object>();
+        put("1.2", 3, map, IntConverter.INSTANCE);
+
+        ValidationPlan<Integer> plan = ValidationPlan.builder(IntConverter.INSTANCE).mustEqual("1.2", 3).required("1.5").build();
+        assertEquals(1, plan.validate(map).size());
+    }
+}
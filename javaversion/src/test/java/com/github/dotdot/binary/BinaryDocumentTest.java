@@ -0,0 +1,170 @@
+package com.github.dotdot.binary;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static com.github.dotdot.DotDot.*;
+
+public class BinaryDocumentTest {
+
+    private static Map<String, Object> document() {
+        Map<String, Object> map = new LinkedHashMap<String, Object>();
+        put("user.name", "J\u00f6rg", map);
+        put("user.age", 42, map);
+        put("user.id", 1L << 40, map);
+        put("user.score", -1.5, map);
+        put("user.ratio", 0.25f, map);
+        put("user.active", true, map);
+        put("user.nickname", null, map);
+        put("user.address.city", "Berlin", map);
+        put("tags", Arrays.asList("a", "b", "c"), map);
+        put("small.short", (short) -7, map);
+        put("small.byte", (byte) 3, map);
+        put("small.char", 'x', map);
+
+        Map<String, Object> first = new HashMap<String, Object>();
+        first.put("name", "home");
+        Map<String, Object> second = new HashMap<String, Object>();
+        second.put("name", "work");
+        put("addresses", Arrays.asList(first, second), map);
+        return map;
+    }
+
+    @Test
+    public void roundTrip() {
+        Map<String, Object> map = document();
+        BinaryDocument doc = BinaryDocument.of(BinaryWriter.write(map));
+
+        assertEquals(map, doc);
+        assertEquals(doc, map);
+        assertEquals(map.hashCode(), doc.hashCode());
+        assertEquals(new ArrayList<String>(map.keySet()), new ArrayList<String>(doc.keySet()));
+        assertEquals(4, doc.size());
+        assertTrue(doc.get("user") instanceof BinaryDocument);
+        assertTrue(doc.containsKey("tags"));
+        assertFalse(doc.containsKey("name"));
+        assertNull(doc.get("name"));
+        assertNull(doc.get(1));
+    }
+
+    @Test
+    public void resolvesPaths() {
+        BinaryDocument doc = BinaryDocument.of(BinaryWriter.write(document()));
+
+        assertEquals("J\u00f6rg", getString("user.name", doc));
+        assertEquals(Integer.valueOf(42), getInt("user.age", doc));
+        assertEquals(Long.valueOf(1L << 40), getLong("user.id", doc));
+        assertEquals(Double.valueOf(-1.5), getDouble("user.score", doc));
+        assertEquals(0.25f, get("user.ratio", doc));
+        assertEquals(Boolean.TRUE, getBoolean("user.active", doc));
+        assertEquals("Berlin", get("user.address.city", doc));
+        assertEquals((short) -7, get("small.short", doc));
+        assertEquals((byte) 3, get("small.byte", doc));
+        assertEquals('x', get("small.char", doc));
+
+        assertEquals("b", get("tags.1", doc));
+        assertEquals("work", get("addresses.1.name", doc));
+        assertEquals(Arrays.asList("a", "b", "c"), get("tags", doc));
+
+        assertNull(get("user.nickname", doc));
+        assertNull(get("user.nickname.first", doc));
+        assertNull(get("user.email", doc));
+        assertNull(get("unknown.key", doc));
+        assertNull(get("tags.3", doc));
+        assertNull(get("addresses.2.name", doc));
+    }
+
+    @Test
+    public void cannotMoveDeeperThanValues() {
+        BinaryDocument doc = BinaryDocument.of(BinaryWriter.write(document()));
+        try {
+            get("user.age.x.y", doc);
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("Cannot move deeper for these keys: x.y", e.getMessage());
+        }
+        try {
+            get("tags.first", doc);
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("Cannot move deeper for these keys: first", e.getMessage());
+        }
+    }
+
+    @Test
+    public void writesCollectionsAndArraysAsLists() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put("set", new TreeSet<String>(Arrays.asList("b", "a")));
+        map.put("ints", new int[]{1, 2, 3});
+        map.put("strings", new String[]{"x", "y"});
+        map.put("empty", new HashMap<String, Object>());
+
+        BinaryDocument doc = BinaryDocument.of(BinaryWriter.write(map));
+        assertEquals(Arrays.asList("a", "b"), doc.get("set"));
+        assertEquals(Arrays.asList(1, 2, 3), doc.get("ints"));
+        assertEquals(Integer.valueOf(3), getInt("ints.2", doc));
+        assertEquals("y", get("strings.1", doc));
+        assertTrue(((Map<?, ?>) doc.get("empty")).isEmpty());
+        assertNull(get("empty.x", doc));
+    }
+
+    @Test
+    public void readsDirectBuffersAndMappedFiles() throws Exception {
+        Map<String, Object> map = document();
+        byte[] bytes = BinaryWriter.write(map);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 3);
+        direct.put(new byte[]{9, 9, 9}).put(bytes).flip().position(3);
+        BinaryDocument fromDirect = BinaryDocument.of(direct);
+        assertEquals("J\u00f6rg", get("user.name", fromDirect));
+        assertEquals(map, fromDirect);
+
+        File file = File.createTempFile("document", ".ddb");
+        file.deleteOnExit();
+        OutputStream out = new FileOutputStream(file);
+        try {
+            BinaryWriter.write(map, out);
+        } finally {
+            out.close();
+        }
+        BinaryDocument mapped = BinaryDocument.map(file.toPath());
+        assertEquals("work", get("addresses.1.name", mapped));
+        assertEquals(map, mapped);
+    }
+
+    @Test
+    public void rejectsWhatItCannotWrite() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        map.put("date", new Date());
+        try {
+            BinaryWriter.write(map);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Cannot write a value of type java.util.Date", e.getMessage());
+        }
+
+        Map<Object, Object> numericKeys = new HashMap<Object, Object>();
+        numericKeys.put(1, "one");
+        Map<String, Object> outer = new HashMap<String, Object>();
+        outer.put("nested", numericKeys);
+        try {
+            BinaryWriter.write(outer);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Keys must be strings: 1", e.getMessage());
+        }
+
+        try {
+            BinaryDocument.of(new byte[]{1, 2, 3, 4, 5, 6});
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Not a binary document", e.getMessage());
+        }
+    }
+}
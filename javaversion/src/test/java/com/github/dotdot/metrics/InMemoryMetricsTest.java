@@ -0,0 +1,119 @@
+package com.github.dotdot.metrics;
+
+import com.github.dotdot.DotDotMetrics.Operation;
+import com.github.dotdot.DotDotMetrics.Outcome;
+import com.github.dotdot.MergePolicy;
+import com.github.dotdot.NoValueException;
+import com.github.dotdot.NotEqualException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static com.github.dotdot.DotDot.*;
+
+public class InMemoryMetricsTest {
+
+    private InMemoryMetrics metrics;
+
+    @Before
+    public void install() {
+        metrics = new InMemoryMetrics();
+        setMetrics(metrics);
+    }
+
+    @After
+    public void uninstall() {
+        setMetrics(null);
+    }
+
+    @Test
+    public void recordsOperations() throws Exception {
+        Map<String, Object> map = new HashMap<String, Object>();
+        put("a.b.c", 1, map);
+        put("a.x", "y", map);
+
+        assertEquals(1, get("a.b.c", map));
+        assertEquals(Integer.valueOf(1), getInt("a.b.c", map));
+        assertNull(get("a.b.missing", map));
+        try {
+            get("a.x.z", map);
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        assertEquals(2, metrics.count(Operation.PUT));
+        assertEquals(4, metrics.count(Operation.GET));
+        assertEquals(2, metrics.count(Operation.GET, Outcome.HIT));
+        assertEquals(1, metrics.count(Operation.GET, Outcome.MISS));
+        assertEquals(1, metrics.count(Operation.GET, Outcome.FAILED));
+        assertEquals(4, metrics.depthCount(Operation.GET, 3));
+        assertEquals(1, metrics.depthCount(Operation.PUT, 2));
+        assertTrue(metrics.percentileNanos(Operation.GET, 99) >= metrics.percentileNanos(Operation.GET, 50));
+        assertTrue(metrics.meanNanos(Operation.GET) > 0);
+
+        copyInclude(map, Arrays.asList("a.b"));
+        mergeNestedMaps(map, map, MergePolicy.LAST_WINS);
+        assertEquals(1, metrics.count(Operation.COPY_INCLUDE, Outcome.DONE));
+        assertEquals(1, metrics.count(Operation.MERGE, Outcome.DONE));
+        // copyInclude and merge do not count as gets
+        assertEquals(4, metrics.count(Operation.GET));
+
+        mustHaveValue("a.b.c", map);
+        mustEqual("a.x", "y", map);
+        try {
+            mustHaveValue("a.b.d", map);
+            fail("expected NoValueException");
+        } catch (NoValueException e) {
+            // expected
+        }
+        try {
+            mustEqual("a.x", "z", map);
+            fail("expected NotEqualException");
+        } catch (NotEqualException e) {
+            // expected
+        }
+        assertEquals(1, metrics.count(Operation.MUST_HAVE_VALUE, Outcome.HIT));
+        assertEquals(1, metrics.count(Operation.MUST_HAVE_VALUE, Outcome.NO_VALUE));
+        assertEquals(1, metrics.count(Operation.MUST_EQUAL, Outcome.HIT));
+        assertEquals(1, metrics.count(Operation.MUST_EQUAL, Outcome.NOT_EQUAL));
+        assertEquals(4, metrics.count(Operation.GET));
+    }
+
+    @Test
+    public void pathCounts() {
+        Map<String, Object> map = new HashMap<String, Object>();
+        put("a.b", 1, map);
+        for (int i = 0; i < 3; i++) {
+            get("a.b", map);
+        }
+        get("a.c", map);
+
+        assertEquals(3, metrics.path("a.b").hits());
+        assertEquals(0, metrics.path("a.b").misses());
+        assertEquals(1, metrics.path("a.c").misses());
+        assertEquals("a.b", metrics.hottestPaths(1).get(0).path());
+        assertTrue(metrics.report(5).contains("a.b: hits=3 misses=0"));
+
+        InMemoryMetrics bounded = new InMemoryMetrics(1);
+        setMetrics(bounded);
+        get("a.b", map);
+        get("a.c", map);
+        assertEquals(1, bounded.hottestPaths(10).size());
+        assertEquals(1, bounded.untrackedPathCount());
+
+        bounded.reset();
+        assertEquals(0, bounded.count(Operation.GET));
+        assertNull(bounded.path("a.b"));
+    }
+
+    @Test
+    public void noopByDefault() {
+        setMetrics(null);
+        get("a", new HashMap<String, Object>());
+        assertEquals(0, metrics.count(Operation.GET));
+    }
+}
@@ -0,0 +1,153 @@
+package com.github.dotdot.offheap;
+
+import com.github.dotdot.binary.BinaryDocument;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static org.junit.Assert.*;
+import static com.github.dotdot.DotDot.put;
+
+public class OffHeapStoreTest {
+
+    private Path file;
+
+    @Before
+    public void createFile() throws Exception {
+        file = Files.createTempFile("store", ".dds");
+    }
+
+    @After
+    public void deleteFile() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    private static Map<String, Object> product(int i) {
+        Map<String, Object> map = new HashMap<String, Object>();
+        put("details.name", "product " + i, map);
+        put("details.price", i * 1.5, map);
+        put("details.stock", i, map);
+        put("details.discontinued", i % 2 == 0, map);
+        put("tags", Arrays.asList("tag" + i, "all"), map);
+        put("vendor.id", 1000L + i, map);
+        return map;
+    }
+
+    private void writeProducts(OffHeapStore.Writer writer, int count) throws Exception {
+        try {
+            for (int i = 0; i < count; i++) {
+                writer.put("product-" + i, product(i));
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void readsWhatWasWritten() throws Exception {
+        writeProducts(OffHeapStore.create(file), 100);
+        OffHeapStore store = OffHeapStore.open(file);
+
+        assertEquals(100, store.size());
+        assertEquals("product 7", store.getString("product-7", "details.name"));
+        assertEquals(Double.valueOf(10.5), store.getDouble("product-7", "details.price"));
+        assertEquals(Integer.valueOf(7), store.getInt("product-7", "details.stock"));
+        assertEquals(Boolean.FALSE, store.getBoolean("product-7", "details.discontinued"));
+        assertEquals(Long.valueOf(1007L), store.getLong("product-7", "vendor.id"));
+        assertEquals("tag99", store.get("product-99", "tags.0"));
+        assertEquals(product(42), store.document("product-42"));
+
+        assertTrue(store.contains("product-0"));
+        assertFalse(store.contains("product-100"));
+        assertNull(store.document("product-100"));
+        assertNull(store.get("product-100", "details.name"));
+        assertNull(store.getString("product-1", "details.color"));
+    }
+
+    @Test
+    public void copyIncludeFromTheFile() throws Exception {
+        writeProducts(OffHeapStore.create(file), 3);
+        OffHeapStore store = OffHeapStore.open(file);
+
+        Map<String, Object> expected = new HashMap<String, Object>();
+        put("details.name", "product 2", expected);
+        put("vendor.id", 1002L, expected);
+        assertEquals(expected, store.copyInclude("product-2", Arrays.asList("details.name", "vendor.id")));
+        assertTrue(store.copyInclude("product-2", Arrays.asList("details.name")) instanceof LinkedHashMap);
+        assertNull(store.copyInclude("product-3", Arrays.asList("details.name")));
+    }
+
+    @Test
+    public void spansRegions() throws Exception {
+        writeProducts(OffHeapStore.create(file, 512), 50);
+        assertTrue(Files.size(file) > 10 * 512);
+
+        // a single hot document, so every other read opens its document again
+        OffHeapStore store = OffHeapStore.open(file, 1);
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < 50; i++) {
+                assertEquals(product(i), store.document("product-" + i));
+            }
+        }
+    }
+
+    @Test
+    public void hotDocumentsAreReused() throws Exception {
+        writeProducts(OffHeapStore.create(file), 3);
+        OffHeapStore store = OffHeapStore.open(file);
+        BinaryDocument document = store.document("product-1");
+        assertSame(document, store.document("product-1"));
+
+        OffHeapStore cold = OffHeapStore.open(file, 0);
+        assertNotSame(cold.document("product-1"), cold.document("product-1"));
+    }
+
+    @Test
+    public void emptyStore() throws Exception {
+        OffHeapStore.create(file).close();
+        OffHeapStore store = OffHeapStore.open(file);
+        assertEquals(0, store.size());
+        assertNull(store.document("any"));
+    }
+
+    @Test
+    public void rejectsInvalidInput() throws Exception {
+        OffHeapStore.Writer writer = OffHeapStore.create(file, 256);
+        try {
+            writer.put("a", product(1));
+            try {
+                writer.put("a", product(2));
+                fail("expected IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                assertEquals("Duplicate id: a", e.getMessage());
+            }
+
+            Map<String, Object> large = new HashMap<String, Object>();
+            large.put("text", new String(new char[300]).replace('\0', 'x'));
+            try {
+                writer.put("large", large);
+                fail("expected IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().startsWith("Document large does not fit in a region"));
+            }
+
+            // the writer is not closed yet
+            try {
+                OffHeapStore.open(file);
+                fail("expected IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().startsWith("The writer of the store was not closed"));
+            }
+        } finally {
+            writer.close();
+        }
+
+        OffHeapStore store = OffHeapStore.open(file);
+        assertEquals(1, store.size());
+        assertEquals(product(1), store.document("a"));
+    }
+}
@@ -0,0 +1,164 @@
+package com.github.dotdot.persistent;
+
+import com.github.dotdot.DotDot;
+import com.github.dotdot.converters.StringConverter;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.UnaryOperator;
+
+import static org.junit.Assert.*;
+
+public class PersistentMapTest {
+
+    /**
+     * Keys with only a few different hash codes, to exercise the collision nodes
+     */
+    private static final class BadHash {
+        final int id;
+
+        BadHash(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id % 3;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof BadHash && ((BadHash) o).id == id;
+        }
+    }
+
+    @Test
+    public void behavesLikeHashMap() {
+        Random random = new Random(7);
+        Map<Object, Object> expected = new HashMap<Object, Object>();
+        PersistentMap<Object, Object> map = PersistentMap.empty();
+
+        for (int i = 0; i < 20000; i++) {
+            int id = random.nextInt(2000);
+            Object key = id % 5 == 0 ? new BadHash(id) : id == 1 ? null : (Object) ("key" + id);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.minus(key);
+            } else {
+                expected.put(key, i);
+                map = map.plus(key, i);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected, map);
+        assertEquals(map, expected);
+        assertEquals(expected.hashCode(), map.hashCode());
+        for (Object key : expected.keySet()) {
+            assertTrue(map.containsKey(key));
+            assertEquals(expected.get(key), map.get(key));
+        }
+        assertFalse(map.containsKey("missing"));
+    }
+
+    @Test
+    public void versionsAreIndependent() {
+        PersistentMap<String, Object> v1 = PersistentMap.<String, Object>empty().plus("a", 1);
+        PersistentMap<String, Object> v2 = v1.plus("b", 2);
+        PersistentMap<String, Object> v3 = v2.minus("a");
+
+        assertEquals(Collections.singletonMap("a", 1), v1);
+        assertEquals(2, v2.size());
+        assertEquals(Collections.singletonMap("b", 2), v3);
+        assertSame(v2, v2.plus("b", 2));
+        assertSame(v2, v2.minus("missing"));
+        assertTrue(v3.minus("b").isEmpty());
+    }
+
+    @Test
+    public void putInCopiesOnlyThePath() {
+        Map<String, Object> source = new HashMap<String, Object>();
+        DotDot.put("db.pool.size", 10, source);
+        DotDot.put("db.url", "jdbc:x", source);
+        DotDot.put("cache.ttl", 60, source);
+
+        PersistentMap<String, Object> v1 = PersistentMap.of(source);
+        PersistentMap<String, Object> v2 = v1.putIn("db.pool.size", 20, StringConverter.INSTANCE);
+
+        assertEquals(10, DotDot.getInt("db.pool.size", v1).intValue());
+        assertEquals(20, DotDot.getInt("db.pool.size", v2).intValue());
+        assertSame(v1.get("cache"), v2.get("cache"));
+        assertNotSame(v1.get("db"), v2.get("db"));
+        assertEquals(source, v1);
+
+        PersistentMap<String, Object> v3 = v2.putIn("new.deep.key", "x", StringConverter.INSTANCE);
+        assertEquals("x", DotDot.get("new.deep.key", v3));
+        assertTrue(v3.get("new") instanceof PersistentMap);
+
+        PersistentMap<String, Object> v4 = v3.removeIn("db.pool.size", StringConverter.INSTANCE);
+        assertNull(DotDot.get("db.pool.size", v4));
+        assertEquals(Collections.emptyMap(), DotDot.get("db.pool", v4));
+        assertSame(v4, v4.removeIn("db.missing.x", StringConverter.INSTANCE));
+    }
+
+    @Test
+    public void putInThroughValueIsNotMap() {
+        PersistentMap<String, Object> map = PersistentMap.<String, Object>empty().plus("a", 1);
+        try {
+            map.putIn("a.b.c", 2, StringConverter.INSTANCE);
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("Cannot move deeper for these keys: b.c", e.getMessage());
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void readOnly() {
+        PersistentMap.<String, Object>empty().put("a", 1);
+    }
+
+    @Test
+    public void concurrentUpdates() throws InterruptedException {
+        final AtomicPersistentMap<String, Object> holder = new AtomicPersistentMap<String, Object>();
+        final int threads = 4;
+        final int updates = 2000;
+        final CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> workers = new ArrayList<Thread>();
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            Thread worker = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < updates; i++) {
+                        holder.putIn("threads.t" + id + ".last", i, StringConverter.INSTANCE);
+                        holder.update(new UnaryOperator<PersistentMap<String, Object>>() {
+                            public PersistentMap<String, Object> apply(PersistentMap<String, Object> map) {
+                                Integer count = DotDot.getInt("counter", map, 0);
+                                return map.plus("counter", count + 1);
+                            }
+                        });
+                    }
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        PersistentMap<String, Object> result = holder.get();
+        assertEquals(threads * updates, DotDot.getInt("counter", result).intValue());
+        for (int t = 0; t < threads; t++) {
+            assertEquals(updates - 1, DotDot.getInt("threads.t" + t + ".last", result).intValue());
+        }
+    }
+}